@@ -1,3 +1,24 @@
+import com.luciad.imageio.webp.WebPImageWriterSpi
+import com.luciad.imageio.webp.WebPWriteParam
+import java.awt.RenderingHints
+import java.awt.image.BufferedImage
+import java.nio.ByteBuffer
+import java.security.MessageDigest
+import java.util.Properties
+import javax.imageio.IIOImage
+import javax.imageio.ImageIO
+import javax.imageio.ImageWriteParam
+
+buildscript {
+    repositories {
+        mavenCentral()
+    }
+    dependencies {
+        // ImageIO WebP writer with libwebp bundled, so generatePosterVariants needs no installed tools
+        classpath(libs.webp.imageio)
+    }
+}
+
 plugins {
     alias(libs.plugins.android.application)
 }
@@ -29,6 +50,150 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    // SeatAllocatorBenchmark only runs with -Pbenchmarks
+    testOptions {
+        unitTests.all {
+            it.systemProperty("benchmarks", project.hasProperty("benchmarks").toString())
+        }
+    }
+    // Stored so DatabaseInstaller can copy the prebuilt database straight out of the APK
+    androidResources {
+        noCompress += "db"
+    }
+}
+
+/**
+ * Turns the poster originals in `src/main/posters` into fixed-width WebP drawables so cards
+ * and the detail screen decode something close to their on-screen size. The originals are
+ * not resources and never ship; only the variants do. A `<name>_d` image gets a detail
+ * variant, any other poster card and grid variants. `assets/poster_variants.properties`
+ * maps `<name>.<bucket>` to the variant resource name.
+ */
+abstract class GeneratePosterVariants : DefaultTask() {
+
+    @get:InputFiles
+    @get:PathSensitive(PathSensitivity.RELATIVE)
+    abstract val sources: ConfigurableFileCollection
+
+    @get:Input
+    abstract val buckets: MapProperty<String, Int>
+
+    @get:OutputDirectory
+    abstract val resDir: DirectoryProperty
+
+    @get:OutputDirectory
+    abstract val assetsDir: DirectoryProperty
+
+    @TaskAction
+    fun generate() {
+        val drawableDir = resDir.get().dir("drawable-nodpi").asFile
+        drawableDir.deleteRecursively()
+        drawableDir.mkdirs()
+        val images = sources.files.filter { it.extension.lowercase() in setOf("jpg", "jpeg", "png") }
+        val manifest = Properties()
+        for (image in images.sortedBy { it.name }) {
+            val name = image.nameWithoutExtension
+            val wanted = if (name.endsWith("_d")) listOf("detail") else listOf("card", "grid")
+            val source = ImageIO.read(image) ?: throw GradleException("${image.name} is not a readable image")
+            for (bucket in wanted) {
+                // Never upscale; a small original is only re-encoded
+                val width = Math.min(source.width, buckets.get().getValue(bucket))
+                val variant = "${name}_v_$bucket"
+                encode(scale(source, width), File(drawableDir, "$variant.webp"))
+                manifest.setProperty("$name.$bucket", variant)
+            }
+        }
+        val manifestFile = assetsDir.get().file("poster_variants.properties").asFile
+        manifestFile.parentFile.mkdirs()
+        manifestFile.outputStream().use { manifest.store(it, "Generated by generatePosterVariants") }
+    }
+
+    // Halves until within 2x of the target, then one bilinear pass; keeps detail a single pass would alias
+    private fun scale(source: BufferedImage, width: Int): BufferedImage {
+        var current = toRgb(source)
+        while (current.width / 2 >= width) current = resize(current, current.width / 2)
+        return if (current.width == width) current else resize(current, width)
+    }
+
+    private fun resize(image: BufferedImage, width: Int): BufferedImage {
+        val height = Math.max(1, Math.round(image.height.toDouble() * width / image.width).toInt())
+        val out = BufferedImage(width, height, BufferedImage.TYPE_INT_RGB)
+        val g = out.createGraphics()
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR)
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY)
+        g.drawImage(image, 0, 0, width, height, null)
+        g.dispose()
+        return out
+    }
+
+    private fun toRgb(image: BufferedImage): BufferedImage {
+        if (image.type == BufferedImage.TYPE_INT_RGB) return image
+        return resize(image, image.width)
+    }
+
+    // Lossy, quality 80. Created directly: ImageIO's service lookup does not see the buildscript classpath
+    private fun encode(image: BufferedImage, file: File) {
+        val writer = WebPImageWriterSpi().createWriterInstance()
+        ImageIO.createImageOutputStream(file).use { out ->
+            writer.output = out
+            val param = WebPWriteParam(writer.locale)
+            param.compressionMode = ImageWriteParam.MODE_EXPLICIT
+            param.compressionType = param.compressionTypes[WebPWriteParam.LOSSY_COMPRESSION]
+            param.compressionQuality = 0.8f
+            writer.write(null, IIOImage(image, null, null), param)
+        }
+        writer.dispose()
+    }
+}
+
+val generatePosterVariants = tasks.register<GeneratePosterVariants>("generatePosterVariants") {
+    sources.from(fileTree("src/main/posters"))
+    // Target widths in px: 180dp cards and grid tiles at up to xxhdpi, full-width detail
+    buckets.set(mapOf("card" to 360, "grid" to 480, "detail" to 1080))
+}
+
+/**
+ * Records the size, SHA-256 and schema version (the header's user_version) of the prebuilt
+ * database in `assets/movies.db.properties`, which DatabaseInstaller checks the on-device
+ * copy against. Fails the build when the asset is not a SQLite database.
+ */
+abstract class DescribePrebuiltDatabase : DefaultTask() {
+
+    @get:InputFile
+    @get:PathSensitive(PathSensitivity.NONE)
+    abstract val database: RegularFileProperty
+
+    @get:OutputDirectory
+    abstract val assetsDir: DirectoryProperty
+
+    @TaskAction
+    fun describe() {
+        val file = database.get().asFile
+        val bytes = file.readBytes()
+        require(bytes.size >= 100 && String(bytes, 0, 16, Charsets.US_ASCII) == "SQLite format 3\u0000") {
+            "${file.name} is not a SQLite database"
+        }
+        val manifest = Properties()
+        manifest.setProperty("size", bytes.size.toString())
+        manifest.setProperty("schemaVersion", ByteBuffer.wrap(bytes, 60, 4).int.toString())
+        manifest.setProperty("sha256", MessageDigest.getInstance("SHA-256").digest(bytes)
+            .joinToString("") { "%02x".format(it) })
+        val manifestFile = assetsDir.get().file("${file.name}.properties").asFile
+        manifestFile.parentFile.mkdirs()
+        manifestFile.outputStream().use { manifest.store(it, "Generated by describePrebuiltDatabase") }
+    }
+}
+
+val describePrebuiltDatabase = tasks.register<DescribePrebuiltDatabase>("describePrebuiltDatabase") {
+    database.set(layout.projectDirectory.file("src/main/assets/movies.db"))
+}
+
+androidComponents {
+    onVariants { variant ->
+        variant.sources.res?.addGeneratedSourceDirectory(generatePosterVariants, GeneratePosterVariants::resDir)
+        variant.sources.assets?.addGeneratedSourceDirectory(generatePosterVariants, GeneratePosterVariants::assetsDir)
+        variant.sources.assets?.addGeneratedSourceDirectory(describePrebuiltDatabase, DescribePrebuiltDatabase::assetsDir)
+    }
 }
 
 dependencies {
@@ -1,14 +1,23 @@
 package com.example.bookmyflick;
 
+import android.content.ContentResolver;
+import android.net.Uri;
 import android.os.Bundle;
 import android.text.TextUtils;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 public class AdminActivity extends AppCompatActivity {
 
     private EditText inputTitle;
@@ -21,16 +30,28 @@ public class AdminActivity extends AppCompatActivity {
     private EditText inputRating;
     private EditText inputCategory; // now | upcoming
 
-    private MovieDbHelper dbHelper;
+    private MovieRepository repository;
+    // Cancelled in onDestroy: a running import or export still finishes, but reports to no dead screen
+    private final MovieRepository.Scope requests = new MovieRepository.Scope();
+
+    // Rejected rows listed in the import summary; the rest are only counted
+    private static final int ERRORS_SHOWN = 20;
 
-    public static final String ACTION_MOVIES_CHANGED = "com.example.bookmyflick.MOVIES_CHANGED";
+    private final ActivityResultLauncher<String[]> importPicker =
+            registerForActivityResult(new ActivityResultContracts.OpenDocument(), this::importCatalog);
+    private final ActivityResultLauncher<String> csvExportPicker =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument("text/csv"),
+                    uri -> exportCatalog(uri, CatalogTransfer.Format.CSV));
+    private final ActivityResultLauncher<String> jsonExportPicker =
+            registerForActivityResult(new ActivityResultContracts.CreateDocument("application/json"),
+                    uri -> exportCatalog(uri, CatalogTransfer.Format.JSON));
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_admin);
 
-        dbHelper = new MovieDbHelper(this);
+        repository = MovieRepository.get(this);
 
         inputTitle = findViewById(R.id.input_title);
         inputLanguage = findViewById(R.id.input_language);
@@ -53,12 +74,88 @@ public class AdminActivity extends AppCompatActivity {
         btnDelete.setOnClickListener(v -> deleteMovie());
         btnCleanDupes.setOnClickListener(v -> cleanDuplicates());
         btnBack.setOnClickListener(v -> finish());
+
+        findViewById(R.id.btn_import).setOnClickListener(v ->
+                importPicker.launch(new String[]{"text/csv", "text/comma-separated-values", "application/json", "text/plain"}));
+        findViewById(R.id.btn_export_csv).setOnClickListener(v -> csvExportPicker.launch("catalog.csv"));
+        findViewById(R.id.btn_export_json).setOnClickListener(v -> jsonExportPicker.launch("catalog.json"));
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        requests.cancelAll();
+    }
+
+    private void importCatalog(@Nullable Uri uri) {
+        if (uri == null) return;
+        String type = getContentResolver().getType(uri);
+        CatalogTransfer.Format format = CatalogTransfer.formatOf(type != null ? type : uri.getLastPathSegment());
+        CatalogTransfer transfer = new CatalogTransfer(this, repository.helper());
+        ContentResolver resolver = getApplicationContext().getContentResolver();
+        requests.add(repository.importCatalog(() -> {
+            try (InputStream in = resolver.openInputStream(uri)) {
+                if (in == null) throw new IOException("Cannot open " + uri);
+                return transfer.importFrom(in, format);
+            }
+        }, new MovieRepository.Callback<CatalogTransfer.Report>() {
+            @Override
+            public void onResult(CatalogTransfer.Report report) {
+                showImportReport(report);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                MovieRepository.Callback.super.onError(e);
+                Toast.makeText(AdminActivity.this, "Import failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
+            }
+        }));
+    }
+
+    private void showImportReport(CatalogTransfer.Report report) {
+        StringBuilder message = new StringBuilder()
+                .append("Movies: ").append(report.movies)
+                .append("\nTheatres: ").append(report.theatres)
+                .append("\nShows added: ").append(report.shows)
+                .append("\nRejected rows: ").append(report.rejected);
+        for (int i = 0; i < report.errors.size() && i < ERRORS_SHOWN; i++) {
+            message.append("\n").append(report.errors.get(i));
+        }
+        if (report.rejected > ERRORS_SHOWN) message.append("\n…");
+        new AlertDialog.Builder(this)
+                .setTitle("Import finished")
+                .setMessage(message)
+                .setPositiveButton(android.R.string.ok, null)
+                .show();
+    }
+
+    // On the writer queue so the file is a consistent snapshot
+    private void exportCatalog(@Nullable Uri uri, CatalogTransfer.Format format) {
+        if (uri == null) return;
+        CatalogTransfer transfer = new CatalogTransfer(this, repository.helper());
+        ContentResolver resolver = getApplicationContext().getContentResolver();
+        requests.add(repository.write(() -> {
+            try (OutputStream out = resolver.openOutputStream(uri)) {
+                if (out == null) throw new IOException("Cannot open " + uri);
+                transfer.exportTo(out, format);
+            }
+            return null;
+        }, new MovieRepository.Callback<Void>() {
+            @Override
+            public void onResult(Void ignored) {
+                Toast.makeText(AdminActivity.this, "Exported", Toast.LENGTH_SHORT).show();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                MovieRepository.Callback.super.onError(e);
+                Toast.makeText(AdminActivity.this, "Export failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
+            }
+        }));
     }
 
     private void cleanDuplicates() {
-        int removed = dbHelper.deleteDuplicateTitles();
-        if (removed > 0) sendBroadcast(new android.content.Intent(ACTION_MOVIES_CHANGED));
-        Toast.makeText(this, removed > 0 ? "Duplicates removed" : "No duplicates", Toast.LENGTH_SHORT).show();
+        repository.deleteDuplicateTitles(removed -> Toast.makeText(this, removed > 0 ? "Duplicates removed" : "No duplicates", Toast.LENGTH_SHORT).show());
     }
 
     private void addMovie() {
@@ -75,22 +172,28 @@ public class AdminActivity extends AppCompatActivity {
         Integer imgId = resolveImageResId(posterName);
         if (!validate(title, language, posterName, category)) return;
         if (imgId == null || imgId == 0) {
-            Toast.makeText(this, "Invalid image (use drawable name)", Toast.LENGTH_SHORT).show();
-            return;
-        }
-        if (dbHelper.existsByTitleIgnoreCase(title)) {
-            Toast.makeText(this, "Movie already exists", Toast.LENGTH_SHORT).show();
+            Toast.makeText(this, "Invalid image (use poster name)", Toast.LENGTH_SHORT).show();
             return;
         }
-        long id = dbHelper.insertMovieByName(title, language, posterName, category);
-        if (id != -1) {
-            dbHelper.updateNames(title, posterName, TextUtils.isEmpty(detailImgStr) ? null : detailImgStr);
-            Integer year = TextUtils.isEmpty(yearStr) ? null : safeInt(yearStr);
-            Float rating = TextUtils.isEmpty(ratingStr) ? null : safeFloat(ratingStr);
-            dbHelper.updateMovieAll(title, null, null, null, null, TextUtils.isEmpty(cast) ? null : cast, year, TextUtils.isEmpty(director) ? null : director, rating);
-        }
-        Toast.makeText(this, id == -1 ? "Insert failed" : "Inserted", Toast.LENGTH_SHORT).show();
-        if (id != -1) sendBroadcast(new android.content.Intent(ACTION_MOVIES_CHANGED));
+        Integer year = TextUtils.isEmpty(yearStr) ? null : safeInt(yearStr);
+        Float rating = TextUtils.isEmpty(ratingStr) ? null : safeFloat(ratingStr);
+        // Existence check and insert share the writer thread so two taps cannot both insert
+        repository.write(() -> {
+            MovieDbHelper db = repository.helper();
+            if (db.existsByTitleIgnoreCase(title)) return null;
+            long id = db.insertMovieByName(title, language, posterName, category);
+            if (id != -1) {
+                db.updateNames(title, posterName, TextUtils.isEmpty(detailImgStr) ? null : detailImgStr);
+                db.updateMovieAll(title, null, null, null, null, TextUtils.isEmpty(cast) ? null : cast, year, TextUtils.isEmpty(director) ? null : director, rating);
+            }
+            return id;
+        }, id -> {
+            if (id == null) {
+                Toast.makeText(this, "Movie already exists", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            Toast.makeText(this, id == -1 ? "Insert failed" : "Inserted", Toast.LENGTH_SHORT).show();
+        });
     }
 
     private void updateMovie() {
@@ -109,22 +212,23 @@ public class AdminActivity extends AppCompatActivity {
             return;
         }
 
-        if (!TextUtils.isEmpty(posterName) || !TextUtils.isEmpty(detailImgStr)) {
-            dbHelper.updateNames(title, TextUtils.isEmpty(posterName) ? null : posterName, TextUtils.isEmpty(detailImgStr) ? null : detailImgStr);
-        }
         Integer year = TextUtils.isEmpty(yearStr) ? null : safeInt(yearStr);
         Float rating = TextUtils.isEmpty(ratingStr) ? null : safeFloat(ratingStr);
-        int rows = dbHelper.updateMovieAll(title,
-                TextUtils.isEmpty(language) ? null : language,
-                null,
-                TextUtils.isEmpty(category) ? null : category,
-                null,
-                TextUtils.isEmpty(cast) ? null : cast,
-                year,
-                TextUtils.isEmpty(director) ? null : director,
-                rating);
-        Toast.makeText(this, rows > 0 ? "Updated" : "Not found", Toast.LENGTH_SHORT).show();
-        if (rows > 0) sendBroadcast(new android.content.Intent(ACTION_MOVIES_CHANGED));
+        repository.write(() -> {
+            MovieDbHelper db = repository.helper();
+            if (!TextUtils.isEmpty(posterName) || !TextUtils.isEmpty(detailImgStr)) {
+                db.updateNames(title, TextUtils.isEmpty(posterName) ? null : posterName, TextUtils.isEmpty(detailImgStr) ? null : detailImgStr);
+            }
+            return db.updateMovieAll(title,
+                    TextUtils.isEmpty(language) ? null : language,
+                    null,
+                    TextUtils.isEmpty(category) ? null : category,
+                    null,
+                    TextUtils.isEmpty(cast) ? null : cast,
+                    year,
+                    TextUtils.isEmpty(director) ? null : director,
+                    rating);
+        }, rows -> Toast.makeText(this, rows > 0 ? "Updated" : "Not found", Toast.LENGTH_SHORT).show());
     }
 
     private void deleteMovie() {
@@ -133,9 +237,7 @@ public class AdminActivity extends AppCompatActivity {
             Toast.makeText(this, "Title required", Toast.LENGTH_SHORT).show();
             return;
         }
-        int rows = dbHelper.deleteMovie(title);
-        Toast.makeText(this, rows > 0 ? "Deleted" : "Not found", Toast.LENGTH_SHORT).show();
-        if (rows > 0) sendBroadcast(new android.content.Intent(ACTION_MOVIES_CHANGED));
+        repository.deleteMovie(title, rows -> Toast.makeText(this, rows > 0 ? "Deleted" : "Not found", Toast.LENGTH_SHORT).show());
     }
 
     private boolean validate(String title, String language, String imgStr, String category) {
@@ -145,7 +247,7 @@ public class AdminActivity extends AppCompatActivity {
         }
         Integer resolved = resolveImageResId(imgStr);
         if (resolved == null || resolved == 0) {
-            Toast.makeText(this, "Image must be valid drawable name", Toast.LENGTH_SHORT).show();
+            Toast.makeText(this, "Image must be a valid poster name", Toast.LENGTH_SHORT).show();
             return false;
         }
         if (!category.equals("now") && !category.equals("upcoming")) { Toast.makeText(this, "Category: now|upcoming", Toast.LENGTH_SHORT).show(); return false; }
@@ -162,7 +264,8 @@ public class AdminActivity extends AppCompatActivity {
                 return null;
             }
         } catch (NumberFormatException ignored) {}
-        int resolved = getResources().getIdentifier(imgStr, "drawable", getPackageName());
+        // Poster names only exist as generated variants
+        int resolved = PosterVariants.get(this).idOf(imgStr, PosterVariants.Bucket.CARD);
         return resolved == 0 ? null : resolved;
     }
 
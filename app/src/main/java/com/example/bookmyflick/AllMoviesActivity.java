@@ -1,12 +1,6 @@
 package com.example.bookmyflick;
 
-import android.content.BroadcastReceiver;
-import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
 import android.os.Bundle;
-import android.os.Build;
-import android.text.TextUtils;
 import android.view.View;
 
 import androidx.annotation.Nullable;
@@ -16,27 +10,23 @@ import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
-import java.util.List;
 
 public class AllMoviesActivity extends AppCompatActivity {
 
     private RecyclerView recyclerAllMovies;
     private MovieAdapter movieAdapter;
-    private List<Movie> allMovies;
-
-    private final BroadcastReceiver moviesChangedReceiver = new BroadcastReceiver() {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            MovieDbHelper db = new MovieDbHelper(AllMoviesActivity.this);
-            allMovies = new ArrayList<>(db.readAll());
-            movieAdapter.updateList(new ArrayList<>(allMovies));
-        }
-    };
+
+    private MovieCatalog catalog;
+    private SearchPipeline search;
+    private PosterPrefetcher prefetch;
+
+    private final MovieCatalog.Listener catalogListener = snapshot -> bindCatalog();
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_all_movies);
+        catalog = MovieCatalog.get(this);
 
         setupList();
         setupData();
@@ -50,27 +40,33 @@ public class AllMoviesActivity extends AppCompatActivity {
     }
 
     private void setupData() {
-        // Load all movies from DB
-        MovieDbHelper db = new MovieDbHelper(this);
-        allMovies = new ArrayList<>(db.readAll());
-        movieAdapter = new MovieAdapter(this, new ArrayList<>(allMovies), R.layout.item_movie_grid);
+        // Movies come from the in-memory catalog in onStart
+        movieAdapter = new MovieAdapter(this, new ArrayList<>(), R.layout.item_movie_grid);
         recyclerAllMovies.setAdapter(movieAdapter);
+        prefetch = PosterPrefetcher.attach(recyclerAllMovies);
+    }
+
+    private void bindCatalog() {
+        // Re-runs the current query (or lists everything) against the new snapshot
+        if (catalog.snapshot().isLoaded()) search.refresh();
     }
 
     private void setupSearch() {
         SearchView searchView = findViewById(R.id.search_view_all);
         searchView.setIconifiedByDefault(false);
         searchView.setQueryHint("search movies");
+        search = new SearchPipeline(this, (query, movies) -> movieAdapter.updateList(movies));
         searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
             @Override
             public boolean onQueryTextSubmit(String query) {
-                filterAllMovies(query);
+                search.submit(query);
+                search.refresh();
                 return true;
             }
 
             @Override
             public boolean onQueryTextChange(String newText) {
-                filterAllMovies(newText);
+                search.submit(newText);
                 return true;
             }
         });
@@ -98,45 +94,21 @@ public class AllMoviesActivity extends AppCompatActivity {
         }
     }
 
-    @Override
-    protected void onResume() {
-        super.onResume();
-        // Refresh list from DB in case Admin changed data
-        MovieDbHelper db = new MovieDbHelper(this);
-        allMovies = new ArrayList<>(db.readAll());
-        movieAdapter.updateList(new ArrayList<>(allMovies));
-    }
-
     @Override
     protected void onStart() {
         super.onStart();
-        IntentFilter filter = new IntentFilter(AdminActivity.ACTION_MOVIES_CHANGED);
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-            registerReceiver(moviesChangedReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
-        } else {
-            registerReceiver(moviesChangedReceiver, filter);
-        }
+        // The catalog swaps in a new snapshot when Admin changes data
+        catalog.addListener(catalogListener);
+        catalog.ensureLoaded();
+        bindCatalog();
     }
 
     @Override
     protected void onStop() {
         super.onStop();
-        unregisterReceiver(moviesChangedReceiver);
-    }
-
-    private void filterAllMovies(String query) {
-        String normalized = query == null ? "" : query.toLowerCase().trim();
-        List<Movie> filtered = new ArrayList<>();
-        if (TextUtils.isEmpty(normalized)) {
-            filtered.addAll(allMovies);
-        } else {
-            for (Movie movie : allMovies) {
-                if (movie.getTitle().toLowerCase().contains(normalized)) {
-                    filtered.add(movie);
-                }
-            }
-        }
-        movieAdapter.updateList(filtered);
+        catalog.removeListener(catalogListener);
+        search.cancel();
+        prefetch.cancel();
     }
 
 }
@@ -0,0 +1,84 @@
+package com.example.bookmyflick;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide thread pools for database work: a small pool for reads, a single
+ * writer thread so writes are serialized in submission order, and the main thread
+ * for delivering results back to the UI. Image decoding gets its own pool so it
+ * never queues behind queries.
+ */
+final class AppExecutors {
+
+    private static volatile AppExecutors instance;
+
+    private final ExecutorService reads;
+    private final ExecutorService writes;
+    private final ExecutorService images;
+    private final Handler mainThread = new Handler(Looper.getMainLooper());
+
+    static AppExecutors get() {
+        AppExecutors local = instance;
+        if (local == null) {
+            synchronized (AppExecutors.class) {
+                local = instance;
+                if (local == null) {
+                    local = new AppExecutors();
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private AppExecutors() {
+        int readers = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        ThreadPoolExecutor readPool = new ThreadPoolExecutor(readers, readers, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), namedFactory("db-read"));
+        readPool.allowCoreThreadTimeOut(true);
+        reads = readPool;
+        writes = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), namedFactory("db-write"));
+        ThreadPoolExecutor imagePool = new ThreadPoolExecutor(2, 2, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), namedFactory("image-decode"));
+        imagePool.allowCoreThreadTimeOut(true);
+        images = imagePool;
+    }
+
+    ExecutorService reads() { return reads; }
+    ExecutorService writes() { return writes; }
+    ExecutorService images() { return images; }
+
+    void postToMain(Runnable r) {
+        if (Looper.myLooper() == Looper.getMainLooper()) r.run(); else mainThread.post(r);
+    }
+
+    void postToMainDelayed(Runnable r, long delayMs) {
+        mainThread.postDelayed(r, delayMs);
+    }
+
+    void removeFromMain(Runnable r) {
+        mainThread.removeCallbacks(r);
+    }
+
+    private static ThreadFactory namedFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                r.run();
+            }, prefix + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.bookmyflick;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Warm-up work started with the process, so Home can draw its rails, posters included, on
+ * its first frame. Steps and what they wait for:
+ * <pre>
+ *   database  (writer)  install the prebuilt copy if needed, open, migrate
+ *   variants  (reader)  poster drawable table and variant manifest
+ *   catalog   (writer)  seed if empty, load the snapshot        after database, variants
+ *   posters   (reader)  decode the first cards of each rail     after catalog
+ * </pre>
+ * Shows are not generated here; the theatre picker does that for its movie. Every step is
+ * also done lazily by the screens, so a failed step costs time, not correctness.
+ */
+final class AppStartup {
+
+    private static final String TAG = "AppStartup";
+
+    static final String DATABASE = "database";
+    static final String VARIANTS = "variants";
+    static final String CATALOG = "catalog";
+    static final String POSTERS = "posters";
+
+    private static volatile AppStartup instance;
+
+    private final Context appContext;
+    private final AppExecutors executors;
+    private final StartupGraph graph;
+
+    static AppStartup get(Context context) {
+        AppStartup local = instance;
+        if (local == null) {
+            synchronized (AppStartup.class) {
+                local = instance;
+                if (local == null) {
+                    local = new AppStartup(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private AppStartup(Context appContext) {
+        this.appContext = appContext;
+        this.executors = AppExecutors.get();
+        graph = new StartupGraph((name, elapsedMs, error) -> {
+            if (error != null) Log.e(TAG, name + " failed after " + elapsedMs + " ms", error);
+            else Log.d(TAG, name + " took " + elapsedMs + " ms");
+        })
+                .add(DATABASE, executors.writes(), () -> MovieDbHelper.getInstance(appContext).getWritableDatabase())
+                .add(VARIANTS, executors.reads(), () -> PosterVariants.get(appContext))
+                .add(CATALOG, executors.writes(), () -> MovieCatalog.get(appContext).loadNow(), DATABASE, VARIANTS)
+                .add(POSTERS, executors.reads(), this::warmHomePosters, CATALOG);
+    }
+
+    /** Starts the pipeline; later calls do nothing. */
+    void start() {
+        graph.start();
+    }
+
+    /** Runs {@code callback} on the main thread once Home's data and first posters are ready. */
+    void whenHomeReady(Runnable callback) {
+        graph.whenFinished(POSTERS, executors::postToMain, callback);
+    }
+
+    // Waits for the decodes so their cache inserts are queued on main before the ready callback
+    private void warmHomePosters() {
+        MovieCatalog.Snapshot snapshot = MovieCatalog.get(appContext).snapshot();
+        if (!snapshot.isLoaded()) return;
+        Resources res = appContext.getResources();
+        int width = res.getDimensionPixelSize(R.dimen.card_poster_width);
+        int height = res.getDimensionPixelSize(R.dimen.card_poster_height);
+        PosterLoader posters = PosterLoader.get(appContext);
+        PosterVariants variants = PosterVariants.get(appContext);
+        List<Future<?>> decodes = new ArrayList<>();
+        for (String category : new String[]{"now", "upcoming"}) {
+            List<Movie> rail = snapshot.inCategory(category);
+            for (int i = 0; i < rail.size() && i < MainActivity.RAIL_SIZE; i++) {
+                int resId = variants.forBucket(rail.get(i).getImageResId(), PosterVariants.Bucket.CARD);
+                Future<?> f = posters.prefetch(resId, width, height);
+                if (f != null) decodes.add(f);
+            }
+        }
+        for (Future<?> f : decodes) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                Log.w(TAG, "Poster warm-up failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
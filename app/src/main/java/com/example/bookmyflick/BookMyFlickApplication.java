@@ -0,0 +1,13 @@
+package com.example.bookmyflick;
+
+import android.app.Application;
+
+public class BookMyFlickApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Opens the database and loads Home's data in the background while the splash shows
+        AppStartup.get(this).start();
+    }
+}
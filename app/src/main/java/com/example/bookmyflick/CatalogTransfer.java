@@ -0,0 +1,591 @@
+package com.example.bookmyflick;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteStatement;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk import and export of movies, theatres and show schedules for the admin screen.
+ * <p>
+ * JSON files hold {@code "movies"}, {@code "theatres"} and {@code "shows"} arrays of objects.
+ * CSV files hold one or more sections separated by a blank line, each starting with a header
+ * row naming its columns; the header tells the section apart ({@code title} for movies,
+ * {@code movie}/{@code date} for shows, {@code name} for theatres). Field names are the same
+ * in both formats, and an export can be imported again as is.
+ * <p>
+ * Files are streamed record by record. Every row is validated on its own: bad rows are
+ * reported with their line (CSV) or position (JSON) and skipped, the rest are written.
+ * Movies and theatres are upserted by title / name, leaving fields that are blank or absent
+ * unchanged; shows are added unless the slot already exists. The file is parsed on the
+ * calling thread, which must not be the writer; every {@link #BATCH_SIZE} rows are written and
+ * committed as a task of their own on the writer, so holds, checkouts and edits queued during
+ * a long import run between its batches. Records are applied in file order, so shows must
+ * come after any new movies they name.
+ */
+final class CatalogTransfer {
+
+    enum Format { CSV, JSON }
+
+    static final int BATCH_SIZE = 200;
+    static final int MAX_ERRORS = 100; // further bad rows are only counted
+    static final int MAX_SEAT_ROWS = 52;
+    static final int MAX_SEAT_COLS = 60;
+
+    private static final String KIND_MOVIES = "movies";
+    private static final String KIND_THEATRES = "theatres";
+    private static final String KIND_SHOWS = "shows";
+
+    private static final String[] MOVIE_FIELDS =
+            {"title", "language", "category", "posterName", "detailName", "cast", "year", "director", "rating"};
+    private static final String[] THEATRE_FIELDS = {"name", "location", "seatRows", "seatCols"};
+    private static final String[] SHOW_FIELDS = {"movie", "theatre", "date", "time"};
+
+    // Same shape as DEFAULT_SHOW_TIMES, e.g. "06:00 PM"
+    private static final Pattern SHOW_TIME = Pattern.compile("(0[1-9]|1[0-2]):[0-5]\\d (AM|PM)");
+
+    /** One rejected row. */
+    static final class RowError {
+        final String where; // "line 12" or "shows #3"
+        final String message;
+
+        RowError(String where, String message) {
+            this.where = where;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return where + ": " + message;
+        }
+    }
+
+    /** What an import changed and which rows it rejected. */
+    static final class Report {
+        int movies;
+        int theatres;
+        int shows;
+        int rejected;
+        final List<RowError> errors = new ArrayList<>();
+
+        void reject(String where, String message) {
+            rejected++;
+            if (errors.size() < MAX_ERRORS) errors.add(new RowError(where, message));
+        }
+    }
+
+    private final MovieDbHelper helper;
+    private final PosterVariants posters;
+    private final ExecutorService writer;
+
+    CatalogTransfer(Context context, MovieDbHelper helper) {
+        this.helper = helper;
+        this.posters = PosterVariants.get(context);
+        this.writer = AppExecutors.get().writes();
+    }
+
+    /** JSON when the name or MIME type says so, CSV otherwise. */
+    static Format formatOf(String nameOrType) {
+        return nameOrType != null && nameOrType.toLowerCase(Locale.ROOT).contains("json") ? Format.JSON : Format.CSV;
+    }
+
+    // Import
+
+    /**
+     * Applies every valid row of the file. A file that stops parsing (broken JSON, an
+     * unterminated quote) throws; batches committed before that point are kept.
+     */
+    Report importFrom(InputStream in, Format format) throws IOException {
+        Report report = new Report();
+        try (Importer importer = new Importer(helper.getWritableDatabase(), report)) {
+            InputStreamReader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+            if (format == Format.JSON) readJson(reader, importer);
+            else readCsv(reader, importer);
+            importer.flush();
+        }
+        return report;
+    }
+
+    private void readCsv(InputStreamReader in, Importer importer) throws IOException {
+        try (CsvReader csv = new CsvReader(in)) {
+            String kind = null;
+            List<String> header = null;
+            List<String> record;
+            while ((record = csv.next()) != null) {
+                String where = "line " + csv.recordLine();
+                if (record.isEmpty() || (record.size() == 1 && record.get(0).trim().isEmpty())) {
+                    header = null; // a blank line ends the section
+                    continue;
+                }
+                if (header == null) {
+                    header = record;
+                    kind = kindOf(header);
+                    if (kind == null) importer.report.reject(where, "unknown header " + header);
+                    continue;
+                }
+                if (kind == null) continue;
+                Map<String, String> row = new HashMap<>();
+                for (int i = 0; i < header.size() && i < record.size(); i++) {
+                    row.put(header.get(i).trim(), record.get(i));
+                }
+                importer.apply(kind, row, where);
+            }
+        }
+    }
+
+    private static String kindOf(List<String> header) {
+        List<String> names = new ArrayList<>();
+        for (String h : header) names.add(h.trim());
+        if (names.contains("title")) return KIND_MOVIES;
+        if (names.contains("movie") && names.contains("date")) return KIND_SHOWS;
+        if (names.contains("name")) return KIND_THEATRES;
+        return null;
+    }
+
+    private void readJson(InputStreamReader in, Importer importer) throws IOException {
+        try (JsonReader reader = new JsonReader(in)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String kind = reader.nextName();
+                boolean known = KIND_MOVIES.equals(kind) || KIND_THEATRES.equals(kind) || KIND_SHOWS.equals(kind);
+                if (!known || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                for (int index = 1; reader.hasNext(); index++) {
+                    String where = kind + " #" + index;
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        reader.skipValue();
+                        importer.report.reject(where, "not an object");
+                        continue;
+                    }
+                    importer.apply(kind, readObject(reader), where);
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        }
+    }
+
+    // Flat object as strings; nested values are skipped
+    private static Map<String, String> readObject(JsonReader reader) throws IOException {
+        Map<String, String> row = new HashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            JsonToken token = reader.peek();
+            if (token == JsonToken.STRING || token == JsonToken.NUMBER) row.put(name, reader.nextString());
+            else reader.skipValue();
+        }
+        reader.endObject();
+        return row;
+    }
+
+    /** One parsed record, held until its batch is written. */
+    private static final class Row {
+        final String kind;
+        final Map<String, String> fields;
+        final String where;
+
+        Row(String kind, Map<String, String> fields, String where) {
+            this.kind = kind;
+            this.fields = fields;
+            this.where = where;
+        }
+    }
+
+    /**
+     * Collects rows and hands every {@link #BATCH_SIZE} to the writer as one transaction,
+     * waiting for it before parsing on. The state below is only touched by whichever thread
+     * currently holds the batch; submitting and waiting on the task orders those accesses.
+     */
+    private final class Importer implements AutoCloseable {
+        final Report report;
+        private final SQLiteDatabase db;
+        private final SQLiteStatement updateMovie;
+        private final SQLiteStatement insertMovie;
+        private final SQLiteStatement updateTheatre;
+        private final SQLiteStatement insertTheatre;
+        private final SQLiteStatement theatreHasBookings;
+        private final SQLiteStatement insertShow;
+        private final SQLiteStatement movieId;
+        private final SQLiteStatement theatreId;
+        // Names resolved during this import; new rows are added as they are written
+        private final Map<String, Long> movieIds = new HashMap<>();
+        private final Map<String, Long> theatreIds = new HashMap<>();
+        private final SimpleDateFormat dateFormat = MovieDbHelper.showDateFormat();
+        // Published once when the import ends, covering only batches that committed
+        private final ChangeSet committed = new ChangeSet();
+        private ChangeSet batch = new ChangeSet();
+        private List<Row> pending = new ArrayList<>();
+
+        Importer(SQLiteDatabase db, Report report) {
+            this.db = db;
+            this.report = report;
+            dateFormat.setLenient(false);
+            updateMovie = db.compileStatement("UPDATE " + MovieDbHelper.TABLE_MOVIES + " SET " +
+                    keepIfNull(MovieDbHelper.COL_LANGUAGE, 1) + "," + keepIfNull(MovieDbHelper.COL_CATEGORY, 2) + "," +
+                    keepIfNull(MovieDbHelper.COL_POSTER_NAME, 3) + "," + keepIfNull(MovieDbHelper.COL_DETAIL_NAME, 4) + "," +
+                    keepIfNull(MovieDbHelper.COL_CAST, 5) + "," + keepIfNull(MovieDbHelper.COL_YEAR, 6) + "," +
+                    keepIfNull(MovieDbHelper.COL_DIRECTOR, 7) + "," + keepIfNull(MovieDbHelper.COL_RATING, 8) +
+                    " WHERE lower(" + MovieDbHelper.COL_TITLE + ")=lower(?9)");
+            insertMovie = db.compileStatement("INSERT INTO " + MovieDbHelper.TABLE_MOVIES + "(" +
+                    MovieDbHelper.COL_LANGUAGE + "," + MovieDbHelper.COL_CATEGORY + "," + MovieDbHelper.COL_POSTER_NAME + "," +
+                    MovieDbHelper.COL_DETAIL_NAME + "," + MovieDbHelper.COL_CAST + "," + MovieDbHelper.COL_YEAR + "," +
+                    MovieDbHelper.COL_DIRECTOR + "," + MovieDbHelper.COL_RATING + "," + MovieDbHelper.COL_TITLE +
+                    ") VALUES (?1,?2,?3,?4,?5,?6,?7,?8,?9)");
+            updateTheatre = db.compileStatement("UPDATE " + MovieDbHelper.TABLE_THEATRES + " SET " +
+                    keepIfNull(MovieDbHelper.COL_T_LOCATION, 1) + "," + keepIfNull(MovieDbHelper.COL_T_SEAT_ROWS, 2) + "," +
+                    keepIfNull(MovieDbHelper.COL_T_SEAT_COLS, 3) + " WHERE " + MovieDbHelper.COL_T_NAME + "=?4");
+            insertTheatre = db.compileStatement("INSERT INTO " + MovieDbHelper.TABLE_THEATRES + "(" +
+                    MovieDbHelper.COL_T_LOCATION + "," + MovieDbHelper.COL_T_SEAT_ROWS + "," + MovieDbHelper.COL_T_SEAT_COLS + "," +
+                    MovieDbHelper.COL_T_NAME + ") VALUES (?1, IFNULL(?2," + SeatMap.DEFAULT_ROWS + "), IFNULL(?3," +
+                    SeatMap.DEFAULT_COLS + "), ?4)");
+            // Seat indexes of existing bookings are laid out for the current hall size
+            theatreHasBookings = db.compileStatement("SELECT COUNT(*) FROM " + MovieDbHelper.TABLE_BOOKINGS + " b JOIN " +
+                    MovieDbHelper.TABLE_SHOWS + " s ON s." + MovieDbHelper.COL_S_ID + "=b." + MovieDbHelper.COL_B_SHOW_ID +
+                    " JOIN " + MovieDbHelper.TABLE_THEATRES + " t ON t." + MovieDbHelper.COL_T_ID + "=s." + MovieDbHelper.COL_S_THEATRE_ID +
+                    " WHERE t." + MovieDbHelper.COL_T_NAME + "=? AND (t." + MovieDbHelper.COL_T_SEAT_ROWS + "<>IFNULL(?, t." +
+                    MovieDbHelper.COL_T_SEAT_ROWS + ") OR t." + MovieDbHelper.COL_T_SEAT_COLS + "<>IFNULL(?, t." +
+                    MovieDbHelper.COL_T_SEAT_COLS + "))");
+            insertShow = db.compileStatement("INSERT OR IGNORE INTO " + MovieDbHelper.TABLE_SHOWS + "(" +
+                    MovieDbHelper.COL_S_MOVIE_ID + "," + MovieDbHelper.COL_S_THEATRE_ID + "," +
+                    MovieDbHelper.COL_S_DATE + "," + MovieDbHelper.COL_S_TIME + ") VALUES (?,?,?,?)");
+            movieId = db.compileStatement("SELECT " + MovieDbHelper.COL_ID + " FROM " + MovieDbHelper.TABLE_MOVIES +
+                    " WHERE lower(" + MovieDbHelper.COL_TITLE + ")=lower(?) LIMIT 1");
+            theatreId = db.compileStatement("SELECT " + MovieDbHelper.COL_T_ID + " FROM " + MovieDbHelper.TABLE_THEATRES +
+                    " WHERE " + MovieDbHelper.COL_T_NAME + "=? LIMIT 1");
+        }
+
+        void apply(String kind, Map<String, String> row, String where) throws IOException {
+            pending.add(new Row(kind, row, where));
+            if (pending.size() >= BATCH_SIZE) flush();
+        }
+
+        /** Writes the rows collected so far on the writer and waits for the commit. */
+        void flush() throws IOException {
+            if (pending.isEmpty()) return;
+            List<Row> rows = pending;
+            pending = new ArrayList<>();
+            try {
+                writer.submit(() -> write(rows)).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Import interrupted");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw new IOException(cause);
+            }
+        }
+
+        // Writer thread. Names are looked up afresh, as other writes may have run since the last batch
+        private void write(List<Row> rows) {
+            movieIds.clear();
+            theatreIds.clear();
+            batch = new ChangeSet();
+            db.beginTransaction();
+            try {
+                for (Row row : rows) {
+                    try {
+                        switch (row.kind) {
+                            case KIND_MOVIES: movie(row.fields); break;
+                            case KIND_THEATRES: theatre(row.fields); break;
+                            default: show(row.fields); break;
+                        }
+                    } catch (IllegalArgumentException | SQLException e) {
+                        report.reject(row.where, e.getMessage());
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            committed.add(batch);
+        }
+
+        // Each writes one row or throws IllegalArgumentException saying why it was rejected
+
+        private void movie(Map<String, String> row) {
+            String title = require(row, "title");
+            String language = text(row, "language");
+            String category = text(row, "category");
+            if (category != null) {
+                category = category.toLowerCase(Locale.ROOT);
+                check(category.equals("now") || category.equals("upcoming"), "category must be now or upcoming");
+            }
+            String poster = posterName(row, "posterName");
+            String detail = posterName(row, "detailName");
+            Long year = number(row, "year", 1888, 2100);
+            String ratingText = text(row, "rating");
+            Double rating = null;
+            if (ratingText != null) {
+                try {
+                    rating = Double.parseDouble(ratingText);
+                } catch (NumberFormatException e) {
+                    rating = Double.NaN;
+                }
+                check(rating >= 0 && rating <= 10, "rating must be between 0 and 10");
+            }
+
+            // Same parameter numbers in both statements; only the update matches case-insensitively
+            for (SQLiteStatement write : new SQLiteStatement[]{updateMovie, insertMovie}) {
+                bindText(write, 1, language);
+                bindText(write, 2, category);
+                bindText(write, 3, poster);
+                bindText(write, 4, detail);
+                bindText(write, 5, text(row, "cast"));
+                if (year != null) write.bindLong(6, year); else write.bindNull(6);
+                bindText(write, 7, text(row, "director"));
+                if (rating != null) write.bindDouble(8, rating); else write.bindNull(8);
+                write.bindString(9, title);
+            }
+            if (updateMovie.executeUpdateDelete() == 0) {
+                check(language != null && category != null && poster != null,
+                        "new movie needs language, category and posterName");
+                long id = insertMovie.executeInsert();
+                movieIds.put(key(title), id);
+                batch.movieInserted(id);
+            } else {
+                batch.movieUpdated(lookup(movieIds, key(title), movieId, title));
+            }
+            report.movies++;
+        }
+
+        private void theatre(Map<String, String> row) {
+            String name = require(row, "name");
+            Long rows = number(row, "seatRows", 1, MAX_SEAT_ROWS);
+            Long cols = number(row, "seatCols", 1, MAX_SEAT_COLS);
+            if (rows != null || cols != null) {
+                theatreHasBookings.bindString(1, name);
+                if (rows != null) theatreHasBookings.bindLong(2, rows); else theatreHasBookings.bindNull(2);
+                if (cols != null) theatreHasBookings.bindLong(3, cols); else theatreHasBookings.bindNull(3);
+                check(theatreHasBookings.simpleQueryForLong() == 0, "hall size can't change once seats are booked");
+            }
+            for (SQLiteStatement write : new SQLiteStatement[]{updateTheatre, insertTheatre}) {
+                bindText(write, 1, text(row, "location"));
+                if (rows != null) write.bindLong(2, rows); else write.bindNull(2);
+                if (cols != null) write.bindLong(3, cols); else write.bindNull(3);
+                write.bindString(4, name);
+            }
+            if (updateTheatre.executeUpdateDelete() == 0) theatreIds.put(name, insertTheatre.executeInsert());
+            report.theatres++;
+        }
+
+        private void show(Map<String, String> row) {
+            String movie = require(row, "movie");
+            String theatre = require(row, "theatre");
+            String date = require(row, "date");
+            String time = require(row, "time").toUpperCase(Locale.ROOT);
+            check(isDate(date), "date must be " + MovieDbHelper.SHOW_DATE_FORMAT);
+            check(SHOW_TIME.matcher(time).matches(), "time must look like 06:00 PM");
+            long mid = lookup(movieIds, key(movie), movieId, movie);
+            check(mid >= 0, "unknown movie " + movie);
+            long tid = lookup(theatreIds, theatre, theatreId, theatre);
+            check(tid >= 0, "unknown theatre " + theatre);
+            insertShow.bindLong(1, mid);
+            insertShow.bindLong(2, tid);
+            insertShow.bindString(3, date);
+            insertShow.bindString(4, time);
+            // An existing slot is not an error; re-importing a schedule is harmless
+            if (insertShow.executeInsert() != -1) report.shows++;
+        }
+
+        private String posterName(Map<String, String> row, String field) {
+            String name = text(row, field);
+            check(name == null || posters.has(name), "no poster named " + name);
+            return name;
+        }
+
+        private boolean isDate(String date) {
+            try {
+                Date parsed = dateFormat.parse(date);
+                return parsed != null && dateFormat.format(parsed).equals(date);
+            } catch (ParseException e) {
+                return false;
+            }
+        }
+
+        private long lookup(Map<String, Long> cache, String key, SQLiteStatement query, String value) {
+            Long id = cache.get(key);
+            if (id != null) return id;
+            query.bindString(1, value);
+            try {
+                id = query.simpleQueryForLong();
+            } catch (SQLiteDoneException e) {
+                id = -1L;
+            }
+            cache.put(key, id);
+            return id;
+        }
+
+        @Override
+        public void close() {
+            // Rows still pending when reading failed are dropped; earlier batches stay
+            for (SQLiteStatement s : new SQLiteStatement[]{updateMovie, insertMovie, updateTheatre, insertTheatre,
+                    theatreHasBookings, insertShow, movieId, theatreId}) {
+                s.close();
+            }
+            ChangeBus.get().publish(committed);
+        }
+    }
+
+    // Quoted because one column is named cast, which SQLite otherwise reads as CAST(...)
+    private static String keepIfNull(String column, int param) {
+        return "\"" + column + "\"=IFNULL(?" + param + ",\"" + column + "\")";
+    }
+
+    private static String key(String title) {
+        return title.toLowerCase(Locale.ROOT);
+    }
+
+    // Trimmed value, or null when absent or blank
+    private static String text(Map<String, String> row, String field) {
+        String v = row.get(field);
+        if (v == null) return null;
+        v = v.trim();
+        return v.isEmpty() ? null : v;
+    }
+
+    private static String require(Map<String, String> row, String field) {
+        String v = text(row, field);
+        check(v != null, field + " is required");
+        return v;
+    }
+
+    // Null when absent or blank
+    private static Long number(Map<String, String> row, String field, long min, long max) {
+        String v = text(row, field);
+        if (v == null) return null;
+        long n;
+        try {
+            n = Long.parseLong(v);
+        } catch (NumberFormatException e) {
+            n = min - 1;
+        }
+        check(n >= min && n <= max, field + " must be a whole number from " + min + " to " + max);
+        return n;
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) throw new IllegalArgumentException(message);
+    }
+
+    private static void bindText(SQLiteStatement stmt, int index, String value) {
+        if (value == null) stmt.bindNull(index); else stmt.bindString(index, value);
+    }
+
+    // Export
+
+    /**
+     * Writes every movie and theatre, and the shows from today on. Run it on the writer queue
+     * so no write lands between the three sections.
+     */
+    void exportTo(OutputStream out, Format format) throws IOException {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        String today = MovieDbHelper.showDateFormat().format(new Date());
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == Format.JSON) {
+            JsonWriter json = new JsonWriter(writer);
+            json.setIndent("  ");
+            json.beginObject();
+            exportJson(json, KIND_MOVIES, MOVIE_FIELDS, queryMovies(db));
+            exportJson(json, KIND_THEATRES, THEATRE_FIELDS, queryTheatres(db));
+            exportJson(json, KIND_SHOWS, SHOW_FIELDS, queryShows(db, today));
+            json.endObject();
+            json.flush();
+        } else {
+            exportCsv(writer, MOVIE_FIELDS, queryMovies(db));
+            writer.write('\n');
+            exportCsv(writer, THEATRE_FIELDS, queryTheatres(db));
+            writer.write('\n');
+            exportCsv(writer, SHOW_FIELDS, queryShows(db, today));
+            writer.flush();
+        }
+    }
+
+    // Cursors select the export fields in order, under the same names
+    private static Cursor queryMovies(SQLiteDatabase db) {
+        return db.rawQuery("SELECT " + MovieDbHelper.COL_TITLE + "," + MovieDbHelper.COL_LANGUAGE + "," +
+                MovieDbHelper.COL_CATEGORY + "," + MovieDbHelper.COL_POSTER_NAME + "," + MovieDbHelper.COL_DETAIL_NAME + "," +
+                "\"" + MovieDbHelper.COL_CAST + "\"," + MovieDbHelper.COL_YEAR + "," + MovieDbHelper.COL_DIRECTOR + "," +
+                MovieDbHelper.COL_RATING + " FROM " + MovieDbHelper.TABLE_MOVIES + " ORDER BY " + MovieDbHelper.COL_ID, null);
+    }
+
+    private static Cursor queryTheatres(SQLiteDatabase db) {
+        return db.rawQuery("SELECT " + MovieDbHelper.COL_T_NAME + "," + MovieDbHelper.COL_T_LOCATION + "," +
+                MovieDbHelper.COL_T_SEAT_ROWS + "," + MovieDbHelper.COL_T_SEAT_COLS + " FROM " +
+                MovieDbHelper.TABLE_THEATRES + " ORDER BY " + MovieDbHelper.COL_T_ID, null);
+    }
+
+    private static Cursor queryShows(SQLiteDatabase db, String fromDate) {
+        return db.rawQuery("SELECT m." + MovieDbHelper.COL_TITLE + ", t." + MovieDbHelper.COL_T_NAME + ", s." +
+                MovieDbHelper.COL_S_DATE + ", s." + MovieDbHelper.COL_S_TIME + " FROM " + MovieDbHelper.TABLE_SHOWS + " s" +
+                " JOIN " + MovieDbHelper.TABLE_MOVIES + " m ON m." + MovieDbHelper.COL_ID + "=s." + MovieDbHelper.COL_S_MOVIE_ID +
+                " JOIN " + MovieDbHelper.TABLE_THEATRES + " t ON t." + MovieDbHelper.COL_T_ID + "=s." + MovieDbHelper.COL_S_THEATRE_ID +
+                " WHERE s." + MovieDbHelper.COL_S_DATE + ">=? ORDER BY s." + MovieDbHelper.COL_S_DATE + ", t." +
+                MovieDbHelper.COL_T_NAME + ", s." + MovieDbHelper.COL_S_TIME, new String[]{fromDate});
+    }
+
+    private static void exportCsv(Writer out, String[] fields, Cursor c) throws IOException {
+        try {
+            out.write(String.join(",", fields));
+            out.write('\n');
+            while (c.moveToNext()) {
+                for (int i = 0; i < fields.length; i++) {
+                    if (i > 0) out.write(',');
+                    out.write(CsvReader.escape(c.getString(i)));
+                }
+                out.write('\n');
+            }
+        } finally { c.close(); }
+    }
+
+    private static void exportJson(JsonWriter json, String kind, String[] fields, Cursor c) throws IOException {
+        try {
+            json.name(kind).beginArray();
+            while (c.moveToNext()) {
+                json.beginObject();
+                for (int i = 0; i < fields.length; i++) {
+                    if (c.isNull(i)) continue;
+                    json.name(fields[i]);
+                    switch (c.getType(i)) {
+                        case Cursor.FIELD_TYPE_INTEGER: json.value(c.getLong(i)); break;
+                        case Cursor.FIELD_TYPE_FLOAT: json.value(c.getDouble(i)); break;
+                        default: json.value(c.getString(i));
+                    }
+                }
+                json.endObject();
+            }
+            json.endArray();
+        } finally { c.close(); }
+    }
+}
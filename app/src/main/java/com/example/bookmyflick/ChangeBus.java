@@ -0,0 +1,82 @@
+package com.example.bookmyflick;
+
+import android.view.Choreographer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process notifications of data changes. Writers publish a {@link ChangeSet} from any
+ * thread; everything published before the next frame is merged and delivered to observers
+ * once, on the main thread, so an admin batch edit costs observers one update rather than
+ * one per row.
+ * <p>
+ * A set may be published from inside a transaction that has not committed yet. Observers
+ * that re-read the rows should do so on the writer queue, which runs after the publishing
+ * write has finished.
+ */
+final class ChangeBus {
+
+    /** Called on the main thread with the changes merged since the last frame. */
+    interface Observer {
+        void onChanges(ChangeSet changes);
+    }
+
+    private static volatile ChangeBus instance;
+
+    private final AppExecutors executors;
+    private final List<Observer> observers = new CopyOnWriteArrayList<>();
+    private ChangeSet pending; // guarded by this; null when nothing is waiting for a frame
+
+    private final Choreographer.FrameCallback dispatch = frameTimeNanos -> deliver();
+
+    static ChangeBus get() {
+        ChangeBus local = instance;
+        if (local == null) {
+            synchronized (ChangeBus.class) {
+                local = instance;
+                if (local == null) {
+                    local = new ChangeBus(AppExecutors.get());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private ChangeBus(AppExecutors executors) {
+        this.executors = executors;
+    }
+
+    void addObserver(Observer observer) {
+        observers.add(observer);
+    }
+
+    void removeObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    /** Queues {@code changes} for the next frame; the set must not be modified afterwards. */
+    void publish(ChangeSet changes) {
+        if (changes.isEmpty()) return;
+        synchronized (this) {
+            if (pending != null) {
+                pending.add(changes);
+                return;
+            }
+            pending = new ChangeSet().add(changes);
+        }
+        // Choreographer is per looper, so the frame callback has to be posted from main
+        executors.postToMain(() -> Choreographer.getInstance().postFrameCallback(dispatch));
+    }
+
+    private void deliver() {
+        ChangeSet changes;
+        synchronized (this) {
+            changes = pending;
+            pending = null;
+        }
+        if (changes == null || changes.isEmpty()) return; // e.g. a movie added and removed within the frame
+        for (Observer o : observers) o.onChanges(changes);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.bookmyflick;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * What one or more writes changed: movie ids inserted, updated or deleted. Writers fill
+ * one in and hand it to {@link ChangeBus#publish}; sets from the same frame are merged
+ * with {@link #add}, so observers see the net effect (a movie inserted and then edited
+ * arrives as inserted, one inserted and deleted again not at all). Plain Java so it can
+ * be tested on the JVM.
+ */
+final class ChangeSet {
+
+    private final Set<Long> insertedMovies = new HashSet<>();
+    private final Set<Long> updatedMovies = new HashSet<>();
+    private final Set<Long> deletedMovies = new HashSet<>();
+
+    ChangeSet movieInserted(long id) {
+        if (deletedMovies.remove(id)) updatedMovies.add(id); // same id back again: the row was replaced
+        else insertedMovies.add(id);
+        return this;
+    }
+
+    ChangeSet movieUpdated(long id) {
+        if (!insertedMovies.contains(id)) updatedMovies.add(id);
+        return this;
+    }
+
+    ChangeSet movieDeleted(long id) {
+        updatedMovies.remove(id);
+        if (!insertedMovies.remove(id)) deletedMovies.add(id);
+        return this;
+    }
+
+    ChangeSet moviesUpdated(Collection<Long> ids) {
+        for (long id : ids) movieUpdated(id);
+        return this;
+    }
+
+    ChangeSet moviesDeleted(Collection<Long> ids) {
+        for (long id : ids) movieDeleted(id);
+        return this;
+    }
+
+    /** Folds a later set into this one, in the order the writes happened. */
+    ChangeSet add(ChangeSet later) {
+        for (long id : later.insertedMovies) movieInserted(id);
+        for (long id : later.updatedMovies) movieUpdated(id);
+        for (long id : later.deletedMovies) movieDeleted(id);
+        return this;
+    }
+
+    Set<Long> insertedMovies() { return Collections.unmodifiableSet(insertedMovies); }
+    Set<Long> updatedMovies() { return Collections.unmodifiableSet(updatedMovies); }
+    Set<Long> deletedMovies() { return Collections.unmodifiableSet(deletedMovies); }
+
+    boolean isEmpty() {
+        return insertedMovies.isEmpty() && updatedMovies.isEmpty() && deletedMovies.isEmpty();
+    }
+}
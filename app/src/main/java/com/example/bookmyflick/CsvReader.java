@@ -0,0 +1,112 @@
+package com.example.bookmyflick;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming CSV reader (RFC 4180): comma separated, fields optionally quoted,
+ * quotes doubled inside quoted fields, which may also span lines. Reads one record at a
+ * time so large files never sit in memory. Plain Java so it can be tested on the JVM.
+ */
+final class CsvReader implements AutoCloseable {
+
+    private final Reader in;
+    private int pending = -2; // one char of lookahead; -2 when empty
+    private int line = 1;     // line the next record starts on
+    private int recordLine;
+
+    CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Next record, or null at end of input. A blank line comes back as an empty list,
+     * so callers can use it as a separator.
+     */
+    List<String> next() throws IOException {
+        int c = read();
+        if (c == -1) return null;
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        if (c == '\n' || c == '\r') {
+            endLine(c);
+            return fields;
+        }
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) throw new IOException("Unterminated quote in record starting on line " + recordLine);
+                if (c == '"') {
+                    int n = read();
+                    if (n == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = n;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0 && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                fields.add(field.toString());
+                if (c != -1) endLine(c);
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /** Line number the last record returned by {@link #next()} started on, from 1. */
+    int recordLine() {
+        return recordLine;
+    }
+
+    /** Quotes a value for writing when it contains a separator, quote or line break; null is written empty. */
+    static String escape(String value) {
+        if (value == null) return "";
+        boolean plain = true;
+        for (int i = 0; i < value.length() && plain; i++) {
+            char c = value.charAt(i);
+            plain = c != ',' && c != '"' && c != '\n' && c != '\r';
+        }
+        return plain ? value : "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // Treats \r\n as one line end
+    private void endLine(int c) throws IOException {
+        line++;
+        if (c == '\r') {
+            int n = read();
+            if (n != '\n') pending = n;
+        }
+    }
+
+    private int read() throws IOException {
+        if (pending != -2) {
+            int c = pending;
+            pending = -2;
+            return c;
+        }
+        return in.read();
+    }
+}
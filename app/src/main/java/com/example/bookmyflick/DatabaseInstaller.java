@@ -0,0 +1,178 @@
+package com.example.bookmyflick;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Installs the prebuilt database bundled in assets on first launch. It runs in the
+ * {@link AppStartup} database step on the writer thread, or on whichever thread first opens
+ * the database if that comes sooner. The asset is stored uncompressed in the APK, so it is
+ * copied with FileChannel transfers straight out of the APK file. The copy goes to a
+ * temporary file and is checked against the size, SHA-256 and schema version recorded at
+ * build time in {@link #MANIFEST} before being renamed into place, so an interrupted or
+ * corrupt copy is never opened. When any check fails the copy is dropped and
+ * {@link MovieDbHelper} creates and seeds an empty database as usual.
+ */
+final class DatabaseInstaller {
+
+    private static final String TAG = "DatabaseInstaller";
+
+    /** Written next to the asset by the {@code describePrebuiltDatabase} build task. */
+    static final String MANIFEST = MovieDbHelper.DB_NAME + ".properties";
+
+    // Oldest schema MovieDbHelper.onUpgrade still migrates
+    private static final int MIN_SCHEMA_VERSION = 1;
+    private static final byte[] SQLITE_MAGIC = "SQLite format 3\0".getBytes(StandardCharsets.US_ASCII);
+    private static final int USER_VERSION_OFFSET = 60; // big-endian int in the file header
+    private static final long CHUNK = 1 << 20;
+
+    private static volatile DatabaseInstaller instance;
+
+    private final Context appContext;
+    private final FutureTask<Boolean> install = new FutureTask<>(this::installIfNeeded);
+
+    static DatabaseInstaller get(Context context) {
+        DatabaseInstaller local = instance;
+        if (local == null) {
+            synchronized (DatabaseInstaller.class) {
+                local = instance;
+                if (local == null) {
+                    local = new DatabaseInstaller(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private DatabaseInstaller(Context appContext) {
+        this.appContext = appContext;
+    }
+
+    /** Blocks until the install has finished, running it on this thread if no other thread has. */
+    void await() {
+        install.run(); // no-op once started elsewhere
+        try {
+            install.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Install failed", e.getCause());
+        }
+    }
+
+    // True when the prebuilt database was put in place
+    private boolean installIfNeeded() {
+        File target = appContext.getDatabasePath(MovieDbHelper.DB_NAME);
+        if (target.exists()) return false;
+        Properties manifest = new Properties();
+        try (InputStream in = appContext.getAssets().open(MANIFEST)) {
+            manifest.load(in);
+        } catch (IOException e) {
+            return false; // this build ships no prebuilt database
+        }
+        File temp = new File(target.getPath() + ".installing");
+        try {
+            long size = Long.parseLong(manifest.getProperty("size"));
+            int schema = Integer.parseInt(manifest.getProperty("schemaVersion"));
+            if (schema < MIN_SCHEMA_VERSION || schema > MovieDbHelper.DB_VERSION) {
+                Log.w(TAG, "Prebuilt database has schema " + schema + ", app supports " +
+                        MIN_SCHEMA_VERSION + ".." + MovieDbHelper.DB_VERSION);
+                return false;
+            }
+            File parent = target.getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs()) throw new IOException("Cannot create " + parent);
+            copy(temp);
+            verify(temp, size, schema, manifest.getProperty("sha256"));
+            // Journal files left by an earlier database would be replayed into this one
+            for (String suffix : new String[]{"-wal", "-shm", "-journal"}) {
+                new File(target.getPath() + suffix).delete();
+            }
+            if (!temp.renameTo(target)) throw new IOException("Cannot rename " + temp + " to " + target);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Prebuilt database not installed", e);
+            temp.delete();
+            return false;
+        }
+    }
+
+    private void copy(File temp) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            FileChannel dst = out.getChannel();
+            AssetFileDescriptor fd;
+            try {
+                fd = appContext.getAssets().openFd(MovieDbHelper.DB_NAME);
+            } catch (FileNotFoundException compressed) {
+                fd = null; // packed without noCompress; only a stream is available
+            }
+            if (fd != null) {
+                try (FileInputStream in = fd.createInputStream()) {
+                    // The descriptor is the whole APK; the asset is a slice of it
+                    FileChannel src = in.getChannel();
+                    long start = fd.getStartOffset();
+                    long length = fd.getLength();
+                    for (long done = 0; done < length; ) {
+                        long n = src.transferTo(start + done, length - done, dst);
+                        if (n <= 0) throw new IOException("Copy stopped at " + done + " of " + length + " bytes");
+                        done += n;
+                    }
+                }
+            } else {
+                try (ReadableByteChannel src = Channels.newChannel(appContext.getAssets().open(MovieDbHelper.DB_NAME))) {
+                    long done = 0;
+                    long n;
+                    while ((n = dst.transferFrom(src, done, CHUNK)) > 0) done += n;
+                }
+            }
+            dst.force(true); // on disk before the rename makes it visible
+        }
+    }
+
+    private static void verify(File file, long size, int schema, String sha256) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            FileChannel ch = in.getChannel();
+            if (ch.size() != size) throw new IOException("Copied " + ch.size() + " bytes, expected " + size);
+            MappedByteBuffer data = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            byte[] magic = new byte[SQLITE_MAGIC.length];
+            data.get(magic);
+            if (!Arrays.equals(magic, SQLITE_MAGIC)) throw new IOException("Not a SQLite database");
+            if (data.getInt(USER_VERSION_OFFSET) != schema) {
+                throw new IOException("Header says schema " + data.getInt(USER_VERSION_OFFSET) + ", manifest " + schema);
+            }
+            data.rewind();
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(data);
+            if (!hex(digest.digest()).equalsIgnoreCase(sha256)) throw new IOException("Checksum mismatch");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
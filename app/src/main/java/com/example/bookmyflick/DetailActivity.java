@@ -2,19 +2,18 @@ package com.example.bookmyflick;
 
 import android.annotation.SuppressLint;
 import android.content.Intent;
-import android.database.Cursor;
-import android.graphics.BitmapFactory;
 import android.os.Bundle;
+import android.view.View;
 import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.appcompat.app.AppCompatActivity;
 
-import java.util.Random;
-
 public class DetailActivity extends AppCompatActivity {
 
-    private MovieDbHelper dbHelper;
+    private MovieRepository repository;
+    // One-shot loads; cancelled in onDestroy so a ticket still arriving after onStop is shown
+    private final MovieRepository.Scope requests = new MovieRepository.Scope();
 
     private TextView tvEmail, tvMovie, tvTheatre, tvDate, tvTime, tvSeat, tvAmount, tvOrderId;
     private ImageView ivBackground;
@@ -36,7 +35,7 @@ public class DetailActivity extends AppCompatActivity {
             finish();
         });
 
-        dbHelper = new MovieDbHelper(this);
+        repository = MovieRepository.get(this);
 
         tvEmail = findViewById(R.id.txtEmail);
         tvMovie = findViewById(R.id.txtMovieName);
@@ -48,40 +47,40 @@ public class DetailActivity extends AppCompatActivity {
         tvOrderId = findViewById(R.id.txtOrderId);
         ivBackground = findViewById(R.id.imgBackground);
 
+        // Straight from checkout we know the exact order; otherwise show the buyer's latest
+        String orderId = getIntent().getStringExtra("orderId");
         String email = getIntent().getStringExtra("email");
-        if (email != null) {
-            loadLatestPayment(email);
+        if (orderId != null) {
+            requests.add(repository.getTicketByOrderId(orderId, this::showTicket));
+        } else if (email != null) {
+            requests.add(repository.getLatestTicketByEmail(email, this::showTicket));
         }
     }
 
-    private void loadLatestPayment(String email) {
-        Cursor c = dbHelper.getLatestPaymentByEmail(email);
-        if (c != null && c.moveToFirst()) {
-            String movie = c.getString(c.getColumnIndexOrThrow("movie"));
-            String theatre = c.getString(c.getColumnIndexOrThrow("theatre"));
-            String date = c.getString(c.getColumnIndexOrThrow("date"));
-            String time = c.getString(c.getColumnIndexOrThrow("time"));
-            String seats = c.getString(c.getColumnIndexOrThrow("seats"));
-            int amount = c.getInt(c.getColumnIndexOrThrow("amount"));
-
-            String orderId = "ORD-" + String.format("%06d", new Random().nextInt(999999));
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        requests.cancelAll();
+    }
 
-            tvEmail.setText(email);
-            tvMovie.setText(movie);
-            tvTheatre.setText(theatre);
-            tvDate.setText(date);
-            tvTime.setText(time);
-            tvSeat.setText(seats);
-            tvAmount.setText("Rs. " + amount);
-            tvOrderId.setText(orderId);
+    private void showTicket(Ticket ticket) {
+        if (ticket == null) return;
+        tvEmail.setText(ticket.getEmail());
+        View history = findViewById(R.id.ticketHistoryButton);
+        if (history != null && ticket.getEmail() != null) history.setOnClickListener(v -> {
+            Intent intent = new Intent(DetailActivity.this, TicketHistoryActivity.class);
+            intent.putExtra("email", ticket.getEmail());
+            startActivity(intent);
+        });
+        tvMovie.setText(ticket.getMovie());
+        tvTheatre.setText(ticket.getTheatre());
+        tvDate.setText(ticket.getDate());
+        tvTime.setText(ticket.getTime());
+        tvSeat.setText(ticket.getSeats());
+        tvAmount.setText("Rs. " + ticket.getAmount());
+        tvOrderId.setText(ticket.getOrderId());
 
-            int posterRes = dbHelper.getPosterResIdForMovieTitle(movie);
-            if (posterRes != 0) {
-                ivBackground.setImageBitmap(BitmapFactory.decodeResource(getResources(), posterRes));
-            } else {
-                ivBackground.setImageResource(R.drawable.ic_launcher_foreground);
-            }
-        }
-        if (c != null) c.close();
+        requests.add(repository.getPosterResIdForMovieTitle(ticket.getMovie(), posterRes ->
+                PosterLoader.get(this).load(ivBackground, posterRes, R.drawable.ic_launcher_foreground)));
     }
 }
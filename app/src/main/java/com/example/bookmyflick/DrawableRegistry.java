@@ -0,0 +1,74 @@
+package com.example.bookmyflick;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.util.Log;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drawable name to resource id table, built once from the generated {@code R.drawable}
+ * fields so catalog reads never go through {@link Resources#getIdentifier}. Names that
+ * are not in the table are looked up once and the answer, including "missing", is cached.
+ */
+final class DrawableRegistry {
+
+    private static final String TAG = "DrawableRegistry";
+    private static final int MISSING = 0;
+
+    private static volatile DrawableRegistry instance;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Resources resources;
+    private final String packageName;
+
+    static DrawableRegistry get(Context context) {
+        DrawableRegistry local = instance;
+        if (local == null) {
+            synchronized (DrawableRegistry.class) {
+                local = instance;
+                if (local == null) {
+                    local = new DrawableRegistry(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private DrawableRegistry(Context appContext) {
+        this.resources = appContext.getResources();
+        this.packageName = appContext.getPackageName();
+        indexGeneratedIds();
+    }
+
+    private void indexGeneratedIds() {
+        try {
+            for (Field f : R.drawable.class.getFields()) {
+                if (f.getType() == int.class && Modifier.isStatic(f.getModifiers())) {
+                    ids.put(f.getName(), f.getInt(null));
+                }
+            }
+        } catch (Exception e) {
+            // Falls back to per-name lookups below
+            Log.w(TAG, "Could not index R.drawable", e);
+        }
+    }
+
+    /** Resource id for a drawable name, or 0 when there is no such drawable. */
+    int idOf(String name) {
+        if (name == null) return MISSING;
+        String key = name.trim();
+        if (key.isEmpty()) return MISSING;
+        Integer id = ids.get(key);
+        if (id != null) return id;
+        int resolved;
+        try { resolved = resources.getIdentifier(key, "drawable", packageName); }
+        catch (Exception e) { resolved = MISSING; }
+        ids.put(key, resolved);
+        return resolved;
+    }
+}
@@ -1,14 +1,9 @@
 package com.example.bookmyflick;
 
-import android.content.BroadcastReceiver;
-import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.os.Bundle;
-import android.os.Build;
 import android.os.SystemClock;
 import android.text.InputType;
-import android.text.TextUtils;
 import android.widget.AutoCompleteTextView;
 import android.widget.EditText;
 
@@ -25,6 +20,9 @@ import java.util.List;
 
 public class MainActivity extends AppCompatActivity {
 
+    // Cards per home rail; AppStartup warms this many posters per rail
+    static final int RAIL_SIZE = 5;
+
     private RecyclerView recyclerNowShowing;
     private RecyclerView recyclerUpcoming;
     private MovieAdapter nowShowingAdapter;
@@ -33,26 +31,25 @@ public class MainActivity extends AppCompatActivity {
     private List<Movie> allNowShowingMovies;
     private List<Movie> allUpcomingMovies;
 
+    private MovieCatalog catalog;
+    private SearchPipeline search;
+    private PosterPrefetcher nowShowingPrefetch;
+    private PosterPrefetcher upcomingPrefetch;
+
     // Secret Admin gate state
     private static final int ADMIN_TAP_THRESHOLD = 5;
     private static final long ADMIN_TAP_WINDOW_MS = 2000L;
     private int adminTapCount = 0;
     private long adminTapWindowStart = 0L;
 
-    private final BroadcastReceiver moviesChangedReceiver = new BroadcastReceiver() {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            refreshFromDatabase();
-        }
-    };
+    private final MovieCatalog.Listener catalogListener = snapshot -> bindCatalog();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
-        // Ensure a prebuilt DB from assets is copied on first run (if provided)
-        MovieDbHelper.copyPrebuiltDbIfNeeded(this);
+        catalog = MovieCatalog.get(this);
 
         setupToolbar();
         setupLists();
@@ -78,53 +75,45 @@ public class MainActivity extends AppCompatActivity {
         recyclerNowShowing.setLayoutManager(new LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false));
         recyclerUpcoming.setLayoutManager(new LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false));
 
-        // initial data; actual refresh in onResume from DB if available
-        allNowShowingMovies = limitToFive(getNowShowingMovies());
-        allUpcomingMovies = limitToFive(getUpcomingMovies());
+        // AppStartup has normally loaded the catalog during the splash, so the first frame is
+        // already populated; the built-in list only covers a start that skipped it
+        MovieCatalog.Snapshot snapshot = catalog.snapshot();
+        allNowShowingMovies = limitToFive(snapshot.isLoaded() ? snapshot.inCategory("now") : getNowShowingMovies());
+        allUpcomingMovies = limitToFive(snapshot.isLoaded() ? snapshot.inCategory("upcoming") : getUpcomingMovies());
 
         nowShowingAdapter = new MovieAdapter(this, new ArrayList<>(allNowShowingMovies));
         upcomingAdapter = new MovieAdapter(this, new ArrayList<>(allUpcomingMovies));
 
         recyclerNowShowing.setAdapter(nowShowingAdapter);
         recyclerUpcoming.setAdapter(upcomingAdapter);
-    }
-
-    @Override
-    protected void onResume() {
-        super.onResume();
-        refreshFromDatabase();
+        nowShowingPrefetch = PosterPrefetcher.attach(recyclerNowShowing);
+        upcomingPrefetch = PosterPrefetcher.attach(recyclerUpcoming);
     }
 
     @Override
     protected void onStart() {
         super.onStart();
-        IntentFilter filter = new IntentFilter(AdminActivity.ACTION_MOVIES_CHANGED);
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-            registerReceiver(moviesChangedReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
-        } else {
-            registerReceiver(moviesChangedReceiver, filter);
-        }
+        catalog.addListener(catalogListener);
+        // Usually loaded by AppStartup already; otherwise this seeds and loads it
+        catalog.ensureLoaded();
+        bindCatalog();
     }
 
     @Override
     protected void onStop() {
         super.onStop();
-        unregisterReceiver(moviesChangedReceiver);
+        catalog.removeListener(catalogListener);
+        search.cancel();
+        nowShowingPrefetch.cancel();
+        upcomingPrefetch.cancel();
     }
 
-    private void refreshFromDatabase() {
-        MovieDbHelper db = new MovieDbHelper(this);
-        // Seed from assets if empty for cross-device portability
-        db.seedFromAssetsIfEmpty();
-
-        List<Movie> now = db.readByCategory("now");
-        List<Movie> up = db.readByCategory("upcoming");
-
-        allNowShowingMovies = limitToFive(now);
-        nowShowingAdapter.updateList(new ArrayList<>(allNowShowingMovies));
-
-        allUpcomingMovies = limitToFive(up);
-        upcomingAdapter.updateList(new ArrayList<>(allUpcomingMovies));
+    private void bindCatalog() {
+        MovieCatalog.Snapshot snapshot = catalog.snapshot();
+        if (!snapshot.isLoaded()) return;
+        allNowShowingMovies = limitToFive(snapshot.inCategory("now"));
+        allUpcomingMovies = limitToFive(snapshot.inCategory("upcoming"));
+        search.refresh();
     }
 
     private void setupSearch() {
@@ -136,17 +125,23 @@ public class MainActivity extends AppCompatActivity {
         searchAutoComplete.setHintTextColor(ContextCompat.getColor(this, android.R.color.darker_gray));
         searchAutoComplete.setTextColor(ContextCompat.getColor(this, android.R.color.black));
 
+        search = new SearchPipeline(this, (query, movies) -> {
+            nowShowingAdapter.updateList(limitToFive(inCategory(movies, "now")));
+            upcomingAdapter.updateList(limitToFive(inCategory(movies, "upcoming")));
+        });
+
         searchView.setOnClickListener(v -> searchView.setIconified(false));
         searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
             @Override
             public boolean onQueryTextSubmit(String query) {
-                filterMovies(query);
+                search.submit(query);
+                search.refresh();
                 return true;
             }
 
             @Override
             public boolean onQueryTextChange(String newText) {
-                filterMovies(newText);
+                search.submit(newText);
                 return true;
             }
         });
@@ -171,59 +166,40 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    private void filterMovies(String query) {
-        String normalized = query == null ? "" : query.toLowerCase().trim();
-
-        MovieDbHelper db = new MovieDbHelper(this);
-        List<Movie> fullNow = db.readByCategory("now");
-        List<Movie> fullUpcoming = db.readByCategory("upcoming");
-
-        List<Movie> filteredNowShowing = new ArrayList<>();
-        List<Movie> filteredUpcoming = new ArrayList<>();
-
-        if (TextUtils.isEmpty(normalized)) {
-            filteredNowShowing.addAll(fullNow);
-            filteredUpcoming.addAll(fullUpcoming);
-        } else {
-            for (Movie movie : fullNow) {
-                if (movie.getTitle().toLowerCase().contains(normalized)) {
-                    filteredNowShowing.add(movie);
-                }
-            }
-            for (Movie movie : fullUpcoming) {
-                if (movie.getTitle().toLowerCase().contains(normalized)) {
-                    filteredUpcoming.add(movie);
-                }
+    private static List<Movie> inCategory(List<Movie> movies, String category) {
+        List<Movie> filtered = new ArrayList<>();
+        for (Movie movie : movies) {
+            if (category.equalsIgnoreCase(movie.getCategory())) {
+                filtered.add(movie);
             }
         }
-
-        nowShowingAdapter.updateList(limitToFive(filteredNowShowing));
-        upcomingAdapter.updateList(limitToFive(filteredUpcoming));
-
+        return filtered;
     }
 
     private List<Movie> limitToFive(List<Movie> source) {
         if (source == null) return new ArrayList<>();
-        int size = Math.min(source.size(), 5);
+        int size = Math.min(source.size(), RAIL_SIZE);
         return new ArrayList<>(source.subList(0, size));
     }
 
     private List<Movie> getNowShowingMovies() {
+        PosterVariants posters = PosterVariants.get(this);
         List<Movie> list = new ArrayList<>();
-        list.add(new Movie("Thalaivan Thalaivi", R.drawable.thalaivanthalaivi, "TAMIL"));
-        list.add(new Movie("Maargan", R.drawable.maargan, "TAMIL"));
-        list.add(new Movie("Avengers", R.drawable.avengers, "ENGLISH"));
-        list.add(new Movie("Batman", R.drawable.batman, "ENGLISH"));
-        list.add(new Movie("Spiderman", R.drawable.spiderman, "TAMIL"));
+        list.add(new Movie("Thalaivan Thalaivi", posters.idOf("thalaivanthalaivi", PosterVariants.Bucket.CARD), "TAMIL"));
+        list.add(new Movie("Maargan", posters.idOf("maargan", PosterVariants.Bucket.CARD), "TAMIL"));
+        list.add(new Movie("Avengers", posters.idOf("avengers", PosterVariants.Bucket.CARD), "ENGLISH"));
+        list.add(new Movie("Batman", posters.idOf("batman", PosterVariants.Bucket.CARD), "ENGLISH"));
+        list.add(new Movie("Spiderman", posters.idOf("spiderman", PosterVariants.Bucket.CARD), "TAMIL"));
         return list;
     }
 
     private List<Movie> getUpcomingMovies() {
+        PosterVariants posters = PosterVariants.get(this);
         List<Movie> list = new ArrayList<>();
-        list.add(new Movie("Jana Nayagan", R.drawable.jananayagan, "TAMIL"));
-        list.add(new Movie("Superman", R.drawable.superman, "TAMIL"));
-        list.add(new Movie("Ironman", R.drawable.ironman, "ENGLISH"));
-        list.add(new Movie("Thor", R.drawable.thor, "HINDI"));
+        list.add(new Movie("Jana Nayagan", posters.idOf("jananayagan", PosterVariants.Bucket.CARD), "TAMIL"));
+        list.add(new Movie("Superman", posters.idOf("superman", PosterVariants.Bucket.CARD), "TAMIL"));
+        list.add(new Movie("Ironman", posters.idOf("ironman", PosterVariants.Bucket.CARD), "ENGLISH"));
+        list.add(new Movie("Thor", posters.idOf("thor", PosterVariants.Bucket.CARD), "HINDI"));
         return list;
     }
 
@@ -1,6 +1,7 @@
 package com.example.bookmyflick;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 /**
  * Immutable value object representing a movie item displayed in the app.
@@ -8,6 +9,7 @@ import java.io.Serializable;
 public class Movie implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    private final long id; // movies._id, 0 for built-in placeholders
     private final String title;
     private final int imageResId;
     private final String language;
@@ -16,12 +18,13 @@ public class Movie implements Serializable {
     private final Integer year; // optional release year
     private final String director; // optional director name
     private final Float rating; // optional rating 0..10
+    private final String category; // now | upcoming, null for placeholders
 
     /**
      * Creates a new Movie with minimal fields.
      */
     public Movie(String title, int imageResId, String language) {
-        this(title, imageResId, language, null, null, null, null, null);
+        this(0, title, imageResId, language, null, null, null, null, null, null);
     }
 
     /**
@@ -29,6 +32,15 @@ public class Movie implements Serializable {
      */
     public Movie(String title, int imageResId, String language, Integer detailImageResId, String cast,
                  Integer year, String director, Float rating) {
+        this(0, title, imageResId, language, detailImageResId, cast, year, director, rating, null);
+    }
+
+    /**
+     * Creates a Movie as stored in the catalog table.
+     */
+    public Movie(long id, String title, int imageResId, String language, Integer detailImageResId, String cast,
+                 Integer year, String director, Float rating, String category) {
+        this.id = id;
         this.title = title;
         this.imageResId = imageResId;
         this.language = language;
@@ -37,8 +49,10 @@ public class Movie implements Serializable {
         this.year = year;
         this.director = director;
         this.rating = rating;
+        this.category = category;
     }
 
+    public long getId() { return id; }
     public String getTitle() { return title; }
     public int getImageResId() { return imageResId; }
     public String getLanguage() { return language; }
@@ -47,4 +61,22 @@ public class Movie implements Serializable {
     public Integer getYear() { return year; }
     public String getDirector() { return director; }
     public Float getRating() { return rating; }
+    public String getCategory() { return category; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Movie)) return false;
+        Movie m = (Movie) o;
+        return id == m.id && imageResId == m.imageResId
+                && Objects.equals(title, m.title) && Objects.equals(language, m.language)
+                && Objects.equals(detailImageResId, m.detailImageResId) && Objects.equals(cast, m.cast)
+                && Objects.equals(year, m.year) && Objects.equals(director, m.director)
+                && Objects.equals(rating, m.rating) && Objects.equals(category, m.category);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, title, imageResId, language, detailImageResId, cast, year, director, rating, category);
+    }
 }
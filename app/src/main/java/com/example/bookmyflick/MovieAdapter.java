@@ -1,39 +1,77 @@
 package com.example.bookmyflick;
 
+import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.res.Resources;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
-import androidx.appcompat.content.res.AppCompatResources;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Simple RecyclerView adapter rendering movie poster, language and title.
  * Supports swapping item layout (card vs grid) via constructor overload.
+ * List updates are diffed on a background thread so only changed cards rebind.
  */
 public class MovieAdapter extends RecyclerView.Adapter<MovieAdapter.MovieViewHolder> {
 
+    private static final DiffUtil.ItemCallback<Movie> DIFF = new DiffUtil.ItemCallback<Movie>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Movie oldItem, @NonNull Movie newItem) {
+            return stableIdOf(oldItem) == stableIdOf(newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Movie oldItem, @NonNull Movie newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+
     private final Context context;
-    private final List<Movie> movieList;
+    private final AsyncListDiffer<Movie> differ;
     private final int itemLayoutResId;
+    private final PosterLoader posters;
+    private final PosterVariants.Bucket bucket;
 
     public MovieAdapter(Context context, List<Movie> movieList) {
-        this.context = context;
-        this.movieList = movieList;
-        this.itemLayoutResId = R.layout.item_movie_card;
+        this(context, movieList, R.layout.item_movie_card);
     }
 
     public MovieAdapter(Context context, List<Movie> movieList, int itemLayoutResId) {
         this.context = context;
-        this.movieList = movieList;
+        this.posters = PosterLoader.get(context);
+        this.bucket = itemLayoutResId == R.layout.item_movie_grid ? PosterVariants.Bucket.GRID : PosterVariants.Bucket.CARD;
         this.itemLayoutResId = itemLayoutResId;
+        this.differ = new AsyncListDiffer<>(new AdapterListUpdateCallback(this),
+                new AsyncDifferConfig.Builder<>(DIFF)
+                        .setBackgroundThreadExecutor(AppExecutors.get().reads())
+                        .build());
+        setHasStableIds(true);
+        differ.submitList(new ArrayList<>(movieList));
+    }
+
+    // Catalog rows use their row id; built-in placeholders (id 0) are keyed by title
+    static long stableIdOf(Movie movie) {
+        if (movie.getId() > 0) return movie.getId();
+        String title = movie.getTitle();
+        return -1L - (title == null ? 0 : title.hashCode() & 0xffffffffL);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return stableIdOf(differ.getCurrentList().get(position));
     }
 
     @NonNull
@@ -44,19 +82,20 @@ public class MovieAdapter extends RecyclerView.Adapter<MovieAdapter.MovieViewHol
         return new MovieViewHolder(view);
     }
 
+    @SuppressLint("ClickableViewAccessibility") // the touch listener never consumes; clicks still fire
     @Override
     public void onBindViewHolder(@NonNull MovieViewHolder holder, int position) {
-        Movie movie = movieList.get(position);
-        // Safely set image with fallback to launcher icon if invalid ID in DB
-        int resId = movie.getImageResId();
-        try {
-            holder.movieImage.setImageDrawable(AppCompatResources.getDrawable(context, resId));
-        } catch (Resources.NotFoundException | NullPointerException e) {
-            holder.movieImage.setImageDrawable(AppCompatResources.getDrawable(context, R.drawable.ic_launcher_foreground));
-        }
+        Movie movie = differ.getCurrentList().get(position);
+        // Decoded at card size off the main thread; launcher icon if the id in the DB is invalid
+        posters.load(holder.movieImage, posterResIdAt(position), R.drawable.ic_launcher_foreground);
         holder.movieTitle.setText(movie.getTitle());
         holder.movieLanguage.setText(movie.getLanguage());
 
+        // The press lands well before the click; start decoding the detail image now
+        holder.itemView.setOnTouchListener((v, event) -> {
+            if (event.getActionMasked() == MotionEvent.ACTION_DOWN) prefetchDetail(movie);
+            return false;
+        });
         holder.itemView.setOnClickListener(v -> {
             android.content.Intent intent = new android.content.Intent(context, MovieDetailActivity.class);
             intent.putExtra("movie", movie);
@@ -69,18 +108,34 @@ public class MovieAdapter extends RecyclerView.Adapter<MovieAdapter.MovieViewHol
         });
     }
 
+    /** Poster for the item at {@code position}, in the size bucket this adapter's layout uses. */
+    int posterResIdAt(int position) {
+        return PosterVariants.get(context).forBucket(differ.getCurrentList().get(position).getImageResId(), bucket);
+    }
+
+    private void prefetchDetail(Movie movie) {
+        Integer detail = movie.getDetailImageResId();
+        if (detail == null || detail == 0) return;
+        Resources res = context.getResources();
+        posters.prefetch(detail, res.getDisplayMetrics().widthPixels, res.getDimensionPixelSize(R.dimen.detail_image_height));
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull MovieViewHolder holder) {
+        posters.cancel(holder.movieImage);
+    }
+
     @Override
     public int getItemCount() {
-        return movieList.size();
+        return differ.getCurrentList().size();
     }
 
     /**
-     * Replace current dataset and refresh the list.
+     * Replace current dataset; the diff is computed off the main thread and dispatched
+     * as granular insert/remove/move/change events.
      */
     public void updateList(List<Movie> newList) {
-        movieList.clear();
-        movieList.addAll(newList);
-        notifyDataSetChanged();
+        differ.submitList(new ArrayList<>(newList));
     }
 
     static class MovieViewHolder extends RecyclerView.ViewHolder {
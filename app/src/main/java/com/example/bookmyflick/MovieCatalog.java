@@ -0,0 +1,200 @@
+package com.example.bookmyflick;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Process-wide, in-memory copy of the movies table. Screens read an immutable
+ * {@link Snapshot}; the catalog loads once, then follows {@link ChangeBus} and swaps in
+ * a new snapshot with only the changed movies re-read.
+ */
+final class MovieCatalog {
+
+    private static final String TAG = "MovieCatalog";
+    // Beyond this many changed rows one full read is cheaper than patching
+    private static final int MAX_PATCH = 200;
+
+    /** Called on the main thread after a new snapshot has been installed. */
+    interface Listener {
+        void onCatalogChanged(Snapshot snapshot);
+
+        /** First-run seeding progress, in titles read so far; also on the main thread. */
+        default void onSeedProgress(int titlesRead) {}
+    }
+
+    /** Immutable view of the catalog at one version; movies are ordered newest first. */
+    static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(0, Collections.emptyList());
+
+        final long version;
+        private final List<Movie> all;
+        private final Map<Long, Movie> byId = new HashMap<>();
+        private final Map<String, Movie> byTitle = new HashMap<>();
+        private final Map<String, List<Movie>> byCategory = new HashMap<>();
+
+        Snapshot(long version, List<Movie> movies) {
+            this.version = version;
+            this.all = Collections.unmodifiableList(new ArrayList<>(movies));
+            Map<String, List<Movie>> categories = new HashMap<>();
+            for (Movie m : all) {
+                byId.put(m.getId(), m);
+                // Newest wins, matching readByTitle
+                String title = key(m.getTitle());
+                if (!byTitle.containsKey(title)) byTitle.put(title, m);
+                String category = key(m.getCategory());
+                List<Movie> list = categories.get(category);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    categories.put(category, list);
+                }
+                list.add(m);
+            }
+            for (Map.Entry<String, List<Movie>> e : categories.entrySet()) {
+                byCategory.put(e.getKey(), Collections.unmodifiableList(e.getValue()));
+            }
+        }
+
+        boolean isLoaded() { return version > 0; }
+
+        List<Movie> all() { return all; }
+
+        Movie byId(long id) { return byId.get(id); }
+
+        /** Case-insensitive exact title match. */
+        Movie byTitle(String title) { return title == null ? null : byTitle.get(key(title)); }
+
+        List<Movie> inCategory(String category) {
+            List<Movie> list = byCategory.get(key(category));
+            return list != null ? list : Collections.emptyList();
+        }
+
+        private static String key(String s) {
+            return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static volatile MovieCatalog instance;
+
+    private final MovieDbHelper db;
+    private final AppExecutors executors;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(Snapshot.EMPTY);
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private long nextVersion; // writer thread only
+    private final AtomicBoolean loadRequested = new AtomicBoolean();
+
+    private final ChangeBus.Observer changeObserver = this::apply;
+
+    static MovieCatalog get(Context context) {
+        MovieCatalog local = instance;
+        if (local == null) {
+            synchronized (MovieCatalog.class) {
+                local = instance;
+                if (local == null) {
+                    local = new MovieCatalog(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private MovieCatalog(Context appContext) {
+        this.db = MovieDbHelper.getInstance(appContext);
+        this.executors = AppExecutors.get();
+        // Observed for the life of the process, like the catalog itself
+        ChangeBus.get().addObserver(changeObserver);
+    }
+
+    /** Latest installed snapshot; {@link Snapshot#EMPTY} until the first load completes. */
+    Snapshot snapshot() {
+        return current.get();
+    }
+
+    void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Starts the first load (seeding the table if it is empty) on the writer; later calls do nothing. */
+    void ensureLoaded() {
+        if (loadRequested.compareAndSet(false, true)) load(true);
+    }
+
+    /** The first load, run on the calling thread, which must be the writer; used by {@link AppStartup}. */
+    void loadNow() {
+        if (loadRequested.compareAndSet(false, true)) loadTask(true).run();
+    }
+
+    /** Rebuilds the whole snapshot from the database. */
+    void reload() {
+        loadRequested.set(true);
+        load(false);
+    }
+
+    // Loads run on the writer queue, so a reload always observes the write that triggered it
+    // and snapshots are installed in the order they were requested.
+    private void load(boolean seed) {
+        executors.writes().execute(loadTask(seed));
+    }
+
+    private Runnable loadTask(boolean seed) {
+        return () -> {
+            try {
+                if (seed) db.seedFromAssetsIfEmpty((read, inserted) -> executors.postToMain(() -> {
+                    for (Listener l : listeners) l.onSeedProgress(read);
+                }));
+                install(new Snapshot(++nextVersion, db.readAll()));
+            } catch (Exception e) {
+                Log.e(TAG, "Catalog load failed", e);
+            }
+        };
+    }
+
+    // Patches the current snapshot with the changed rows. Runs on the writer queue too,
+    // behind the writes that published the changes.
+    private void apply(ChangeSet changes) {
+        Set<Long> changed = new HashSet<>(changes.insertedMovies());
+        changed.addAll(changes.updatedMovies());
+        if (changed.size() + changes.deletedMovies().size() > MAX_PATCH) {
+            if (loadRequested.get()) load(false);
+            return;
+        }
+        executors.writes().execute(() -> {
+            Snapshot old = current.get();
+            if (!old.isLoaded()) return; // the first load has not run and will read everything
+            try {
+                List<Movie> movies = new ArrayList<>(old.all().size() + changed.size());
+                for (Movie m : old.all()) {
+                    if (!changed.contains(m.getId()) && !changes.deletedMovies().contains(m.getId())) movies.add(m);
+                }
+                movies.addAll(db.readByIds(changed));
+                Collections.sort(movies, (a, b) -> Long.compare(b.getId(), a.getId()));
+                install(new Snapshot(++nextVersion, movies));
+            } catch (Exception e) {
+                Log.e(TAG, "Catalog update failed", e);
+            }
+        });
+    }
+
+    private void install(Snapshot snapshot) {
+        current.set(snapshot);
+        executors.postToMain(() -> {
+            for (Listener l : listeners) l.onCatalogChanged(snapshot);
+        });
+    }
+}
@@ -3,26 +3,30 @@ package com.example.bookmyflick;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.text.TextUtils;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 class MovieDbHelper extends SQLiteOpenHelper {
 
     static final String DB_NAME = "movies.db";
-    static final int DB_VERSION = 7;
+    static final int DB_VERSION = 16;
 
     static final String TABLE_MOVIES = "movies";
     static final String COL_ID = "_id";
@@ -33,39 +37,59 @@ class MovieDbHelper extends SQLiteOpenHelper {
     static final String COL_YEAR = "year"; // optional integer
     static final String COL_DIRECTOR = "director"; // optional
     static final String COL_RATING = "rating"; // optional float 0..10
-    static final String COL_POSTER_NAME = "poster_name"; // drawable name
-    static final String COL_DETAIL_NAME = "detail_name"; // drawable name
+    static final String COL_POSTER_NAME = "poster_name"; // poster name, resolved by PosterVariants
+    static final String COL_DETAIL_NAME = "detail_name"; // poster name, resolved by PosterVariants
+
+    // Full-text index over the searchable movie columns, kept in sync by triggers
+    static final String TABLE_MOVIES_FTS = "movies_fts";
 
     // Theatres
     static final String TABLE_THEATRES = "theatres";
+    static final String COL_T_ID = "_id";
     static final String COL_T_NAME = "name";
     static final String COL_T_LOCATION = "location";
+    static final String COL_T_SEAT_ROWS = "seat_rows"; // hall geometry for SeatMap
+    static final String COL_T_SEAT_COLS = "seat_cols";
 
     // Shows
     static final String TABLE_SHOWS = "shows";
     static final String COL_S_ID = "_id";
-    static final String COL_S_MOVIE = "movie";
+    static final String COL_S_MOVIE_ID = "movie_id"; // movies._id
+    static final String COL_S_THEATRE_ID = "theatre_id"; // theatres._id
     static final String COL_S_DATE = "date";
-    static final String COL_S_THEATRE = "theatre";
     static final String COL_S_TIME = "time";
 
-    // Bookings table to persist sold seats per show
+    // Per-theatre show time templates used when generating shows
+    static final String TABLE_SHOW_TIMES = "show_times";
+    static final String COL_ST_THEATRE_ID = "theatre_id";
+    static final String COL_ST_TIME = "time";
+    static final List<String> DEFAULT_SHOW_TIMES =
+            Collections.unmodifiableList(Arrays.asList("10:00 AM", "01:30 PM", "06:00 PM", "09:00 PM"));
+
+    // Shows are generated ahead for the dates the theatre picker allows, a chunk of days at a time
+    static final int SHOW_HORIZON_MONTHS = 3;
+    static final int SHOW_CHUNK_DAYS = 14;
+    static final String SHOW_DATE_FORMAT = "yyyy-MM-dd";
+
+    // Small key/value store for bookkeeping such as how far each movie's shows are generated
+    static final String TABLE_META = "app_meta";
+    static final String COL_META_KEY = "key";
+    static final String COL_META_VALUE = "value";
+    // Suffixed with the movie id: last date generated, and the newest show_times rowid covered
+    private static final String META_SHOWS_THROUGH = "shows_through.";
+    private static final String META_SHOWS_TEMPLATES = "shows_templates.";
+
+    // Bookings table to persist sold seats per show (seat index as laid out by SeatMap)
     static final String TABLE_BOOKINGS = "bookings";
     static final String COL_B_ID = "_id";
-    static final String COL_B_MOVIE = "movie";
-    static final String COL_B_DATE = "date";
-    static final String COL_B_THEATRE = "theatre";
-    static final String COL_B_TIME = "time";
-    static final String COL_B_SEAT = "seat";
+    static final String COL_B_SHOW_ID = "show_id";
+    static final String COL_B_SEAT_INDEX = "seat_index";
 
     // Payments table to store successful transactions
     static final String TABLE_PAYMENTS = "payments";
     static final String COL_P_ID = "_id";
-    static final String COL_P_MOVIE = "movie";
-    static final String COL_P_DATE = "date";
-    static final String COL_P_THEATRE = "theatre";
-    static final String COL_P_TIME = "time";
-    static final String COL_P_SEATS = "seats"; // comma separated
+    static final String COL_P_SHOW_ID = "show_id";
+    static final String COL_P_SEATS = "seats"; // comma separated labels, for display
     static final String COL_P_SEAT_COUNT = "seat_count";
     static final String COL_P_AMOUNT = "amount"; // integer amount
     static final String COL_P_EMAIL = "email";
@@ -73,34 +97,159 @@ class MovieDbHelper extends SQLiteOpenHelper {
     static final String COL_P_NAME_ON_CARD = "name_on_card";
     static final String COL_P_CARD_LAST4 = "card_last4";
     static final String COL_P_CREATED_AT = "created_at";
+    static final String COL_P_IDEMPOTENCY_KEY = "idempotency_key"; // one per checkout attempt, v13
+    static final String COL_P_ORDER_ID = "order_id"; // shown to the buyer, v14
+    // What the ticket was for, kept when the movie or theatre is later deleted; v16
+    static final String COL_P_MOVIE_TITLE = "movie_title";
+    static final String COL_P_THEATRE_NAME = "theatre_name";
+
+    // Single-row counter behind order ids; bumped inside the payment's transaction
+    static final String TABLE_ORDER_SEQUENCE = "order_sequence";
+    static final String COL_SEQ_NAME = "name";
+    static final String COL_SEQ_VALUE = "value";
+    private static final String SEQ_ORDERS = "orders";
+
+    // Text keys used by shows/bookings/payments before v10. Still the column
+    // aliases of ticket cursors, and needed by the old onUpgrade steps.
+    static final String COL_MOVIE = "movie";
+    static final String COL_DATE = "date";
+    static final String COL_THEATRE = "theatre";
+    static final String COL_TIME = "time";
+    static final String COL_SEAT = "seat";
+
+    // Seat holds: short-lived leases taken when a buyer proceeds to payment
+    static final String TABLE_SEAT_HOLDS = "seat_holds";
+    static final String COL_H_SHOW_ID = "show_id";
+    static final String COL_H_SEAT_INDEX = "seat_index";
+    static final String COL_H_TOKEN = "token";
+    static final String COL_H_EXPIRES_AT = "expires_at"; // epoch millis
+
+    // Hot statements, compiled once against the shared connection
+    private static final String SQL_MOVIE_ID =
+            "SELECT " + COL_ID + " FROM " + TABLE_MOVIES + " WHERE " + COL_TITLE + "=? LIMIT 1";
+    private static final String SQL_THEATRE_ID =
+            "SELECT " + COL_T_ID + " FROM " + TABLE_THEATRES + " WHERE " + COL_T_NAME + "=? LIMIT 1";
+    private static final String SQL_SHOW_ID =
+            "SELECT s." + COL_S_ID + " FROM " + TABLE_SHOWS + " s" +
+                    " JOIN " + TABLE_MOVIES + " m ON m." + COL_ID + "=s." + COL_S_MOVIE_ID +
+                    " JOIN " + TABLE_THEATRES + " t ON t." + COL_T_ID + "=s." + COL_S_THEATRE_ID +
+                    " WHERE m." + COL_TITLE + "=? AND s." + COL_S_DATE + "=? AND t." + COL_T_NAME + "=? AND s." + COL_S_TIME + "=?" +
+                    " LIMIT 1";
+    private static final String SQL_SHOW_TIMES =
+            "SELECT " + COL_S_TIME + " FROM " + TABLE_SHOWS +
+                    " WHERE " + COL_S_MOVIE_ID + "=? AND " + COL_S_DATE + "=? AND " + COL_S_THEATRE_ID + "=?" +
+                    " ORDER BY " + COL_S_TIME;
+    private static final String SQL_BOOKED_SEATS =
+            "SELECT " + COL_B_SEAT_INDEX + " FROM " + TABLE_BOOKINGS + " WHERE " + COL_B_SHOW_ID + "=?";
+    private static final String SQL_MOVIE_HAS_SHOWS_ON =
+            "SELECT COUNT(*) FROM " + TABLE_SHOWS + " WHERE " + COL_S_MOVIE_ID + "=? AND " + COL_S_DATE + "=?";
+    private static final String SQL_INSERT_SHOW =
+            "INSERT OR IGNORE INTO " + TABLE_SHOWS + "(" + COL_S_MOVIE_ID + "," + COL_S_THEATRE_ID + "," +
+                    COL_S_DATE + "," + COL_S_TIME + ") VALUES (?,?,?,?)";
+    private static final String SQL_INSERT_BOOKING =
+            "INSERT OR IGNORE INTO " + TABLE_BOOKINGS + "(" + COL_B_SHOW_ID + "," + COL_B_SEAT_INDEX + ") VALUES (?,?)";
+    private static final String SQL_INSERT_HOLD =
+            "INSERT OR REPLACE INTO " + TABLE_SEAT_HOLDS + "(" + COL_H_SHOW_ID + "," + COL_H_SEAT_INDEX + "," +
+                    COL_H_TOKEN + "," + COL_H_EXPIRES_AT + ") VALUES (?,?,?,?)";
+    private static final String SQL_INSERT_PAYMENT =
+            "INSERT INTO " + TABLE_PAYMENTS + "(" + COL_P_SHOW_ID + "," + COL_P_SEATS + "," + COL_P_SEAT_COUNT + "," +
+                    COL_P_AMOUNT + "," + COL_P_EMAIL + "," + COL_P_PHONE + "," + COL_P_NAME_ON_CARD + "," +
+                    COL_P_CARD_LAST4 + "," + COL_P_IDEMPOTENCY_KEY + "," + COL_P_ORDER_ID + "," + COL_P_MOVIE_TITLE + "," +
+                    COL_P_THEATRE_NAME + ") VALUES (?,?,?,?,?,?,?,?,?,?,?,?)";
+    private static final String SQL_PAYMENT_BY_KEY =
+            "SELECT " + COL_P_ORDER_ID + " FROM " + TABLE_PAYMENTS + " WHERE " + COL_P_IDEMPOTENCY_KEY + "=?";
+    private static final String SQL_BUMP_ORDER_SEQUENCE =
+            "UPDATE " + TABLE_ORDER_SEQUENCE + " SET " + COL_SEQ_VALUE + "=" + COL_SEQ_VALUE + "+1 WHERE " + COL_SEQ_NAME + "=?";
+    private static final String SQL_ORDER_SEQUENCE =
+            "SELECT " + COL_SEQ_VALUE + " FROM " + TABLE_ORDER_SEQUENCE + " WHERE " + COL_SEQ_NAME + "=?";
+
+    private static volatile MovieDbHelper instance;
 
     private final Context appContext;
+    private final DatabaseInstaller installer;
+    private final Map<String, SQLiteStatement> statements = new HashMap<>();
 
-    MovieDbHelper(Context context) {
+    /**
+     * Application-wide helper. It keeps one connection pool open for the life of the
+     * process (WAL, so readers never wait on the writer) instead of a helper per screen.
+     */
+    static MovieDbHelper getInstance(Context context) {
+        MovieDbHelper local = instance;
+        if (local == null) {
+            synchronized (MovieDbHelper.class) {
+                local = instance;
+                if (local == null) {
+                    local = new MovieDbHelper(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private MovieDbHelper(Context context) {
         super(context, DB_NAME, null, DB_VERSION);
         this.appContext = context.getApplicationContext();
+        this.installer = DatabaseInstaller.get(appContext);
+        setWriteAheadLoggingEnabled(true);
     }
 
-    // Copy a prebuilt DB from assets on first run (if present)
-    public static void copyPrebuiltDbIfNeeded(Context context) {
-        try {
-            java.io.File dbPath = context.getDatabasePath(DB_NAME);
-            if (dbPath.exists()) return;
-            java.io.File parent = dbPath.getParentFile();
-            if (parent != null && !parent.exists()) parent.mkdirs();
-            try (InputStream is = context.getAssets().open(DB_NAME);
-                 java.io.OutputStream os = new java.io.FileOutputStream(dbPath)) {
-                byte[] buffer = new byte[8192];
-                int len;
-                while ((len = is.read(buffer)) > 0) {
-                    os.write(buffer, 0, len);
-                }
-                os.flush();
+    /** Compiles {@code sql} on first use. Callers must synchronize on the statement while binding and executing it. */
+    private SQLiteStatement statement(String sql) {
+        synchronized (statements) {
+            SQLiteStatement stmt = statements.get(sql);
+            if (stmt == null) {
+                stmt = getWritableDatabase().compileStatement(sql);
+                statements.put(sql, stmt);
             }
-        } catch (Exception ignored) {
+            return stmt;
         }
     }
 
+    // Single-value lookup through a cached statement; -1 when there is no row
+    private long queryForLong(String sql, String... args) {
+        SQLiteStatement stmt = statement(sql);
+        synchronized (stmt) {
+            stmt.clearBindings();
+            for (int i = 0; i < args.length; i++) {
+                if (args[i] == null) stmt.bindNull(i + 1); else stmt.bindString(i + 1, args[i]);
+            }
+            try {
+                return stmt.simpleQueryForLong();
+            } catch (SQLiteDoneException e) {
+                return -1;
+            }
+        }
+    }
+
+    private String queryForString(String sql, String... args) {
+        SQLiteStatement stmt = statement(sql);
+        synchronized (stmt) {
+            stmt.clearBindings();
+            for (int i = 0; i < args.length; i++) {
+                if (args[i] == null) stmt.bindNull(i + 1); else stmt.bindString(i + 1, args[i]);
+            }
+            try {
+                return stmt.simpleQueryForString();
+            } catch (SQLiteDoneException e) {
+                return null;
+            }
+        }
+    }
+
+    // The first open waits until the prebuilt database, if any, is in place
+    @Override
+    public SQLiteDatabase getWritableDatabase() {
+        installer.await();
+        return super.getWritableDatabase();
+    }
+
+    @Override
+    public SQLiteDatabase getReadableDatabase() {
+        installer.await();
+        return super.getReadableDatabase();
+    }
+
     @Override
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(
@@ -117,45 +266,111 @@ class MovieDbHelper extends SQLiteOpenHelper {
                         COL_DETAIL_NAME + " TEXT" +
                         ")"
         );
-        // Theatres
+        createTheatresTable(db, TABLE_THEATRES);
+        createShowsTable(db, TABLE_SHOWS);
+        createBookingsTable(db, TABLE_BOOKINGS);
+        createPaymentsTable(db, TABLE_PAYMENTS);
+        addPaymentSnapshots(db, TABLE_PAYMENTS);
+        createShowAndBookingIndexes(db);
+        createSeatHoldsTable(db);
+        createScheduleTables(db);
+        db.execSQL(SQL_CREATE_SHOW_SLOT_INDEX);
+        createSearchIndex(db);
+        addPaymentKeys(db);
+        addOrderIds(db);
+        createTitleIndex(db);
+    }
+
+    // Case-insensitive title lookups (seeding, readByTitle, duplicate checks) compare lower(title)
+    private static void createTitleIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_movies_title_lower ON " + TABLE_MOVIES + "(lower(" + COL_TITLE + "))");
+    }
+
+    // Added after the table itself, so the v10 rebuild keeps its original shape
+    private static void addPaymentKeys(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_PAYMENTS + " ADD COLUMN " + COL_P_IDEMPOTENCY_KEY + " TEXT");
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS idx_payments_key ON " + TABLE_PAYMENTS +
+                "(" + COL_P_IDEMPOTENCY_KEY + ") WHERE " + COL_P_IDEMPOTENCY_KEY + " IS NOT NULL");
+    }
+
+    private static void addPaymentSnapshots(SQLiteDatabase db, String table) {
+        db.execSQL("ALTER TABLE " + table + " ADD COLUMN " + COL_P_MOVIE_TITLE + " TEXT");
+        db.execSQL("ALTER TABLE " + table + " ADD COLUMN " + COL_P_THEATRE_NAME + " TEXT");
+    }
+
+    /**
+     * v14: every payment carries an order id from a counter that only moves forward, so an id
+     * is never reused even after rows are deleted. Older payments are numbered after their row
+     * id and the counter starts past them. Also indexes the columns ticket history is looked up by.
+     */
+    private static void addOrderIds(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_PAYMENTS + " ADD COLUMN " + COL_P_ORDER_ID + " TEXT");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_ORDER_SEQUENCE + " (" +
+                COL_SEQ_NAME + " TEXT PRIMARY KEY, " + COL_SEQ_VALUE + " INTEGER NOT NULL)");
+        db.execSQL("UPDATE " + TABLE_PAYMENTS + " SET " + COL_P_ORDER_ID + "='ORD-' || substr('00000000' || " +
+                COL_P_ID + ", -8)");
+        db.execSQL("INSERT OR IGNORE INTO " + TABLE_ORDER_SEQUENCE + " SELECT '" + SEQ_ORDERS + "', IFNULL(MAX(" +
+                COL_P_ID + "), 0) FROM " + TABLE_PAYMENTS);
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS idx_payments_order ON " + TABLE_PAYMENTS +
+                "(" + COL_P_ORDER_ID + ") WHERE " + COL_P_ORDER_ID + " IS NOT NULL");
+        // Row id last so each index also serves the newest-first keyset scan
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_payments_email ON " + TABLE_PAYMENTS +
+                "(" + COL_P_EMAIL + ", " + COL_P_ID + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_payments_phone ON " + TABLE_PAYMENTS +
+                "(" + COL_P_PHONE + ", " + COL_P_ID + ")");
+    }
+
+    // External-content FTS4 table: the text lives only in movies, the index holds the tokens
+    private static void createSearchIndex(SQLiteDatabase db) {
+        String columns = COL_TITLE + ", " + COL_CAST + ", " + COL_DIRECTOR + ", " + COL_LANGUAGE;
+        String newValues = "new." + COL_ID + ", new." + COL_TITLE + ", new." + COL_CAST + ", new." + COL_DIRECTOR + ", new." + COL_LANGUAGE;
+        String insert = "INSERT INTO " + TABLE_MOVIES_FTS + "(docid, " + columns + ") VALUES (" + newValues + ")";
+        String delete = "DELETE FROM " + TABLE_MOVIES_FTS + " WHERE docid=old." + COL_ID;
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_MOVIES_FTS + " USING fts4(content=\"" + TABLE_MOVIES + "\", " + columns + ")");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS movies_fts_bu BEFORE UPDATE ON " + TABLE_MOVIES + " BEGIN " + delete + "; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS movies_fts_bd BEFORE DELETE ON " + TABLE_MOVIES + " BEGIN " + delete + "; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS movies_fts_au AFTER UPDATE ON " + TABLE_MOVIES + " BEGIN " + insert + "; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS movies_fts_ai AFTER INSERT ON " + TABLE_MOVIES + " BEGIN " + insert + "; END");
+        db.execSQL("INSERT INTO " + TABLE_MOVIES_FTS + "(" + TABLE_MOVIES_FTS + ") VALUES ('rebuild')");
+    }
+
+    private static void createTheatresTable(SQLiteDatabase db, String table) {
         db.execSQL(
-                "CREATE TABLE IF NOT EXISTS " + TABLE_THEATRES + " (" +
-                        COL_T_NAME + " TEXT PRIMARY KEY, " +
-                        COL_T_LOCATION + " TEXT)"
+                "CREATE TABLE IF NOT EXISTS " + table + " (" +
+                        COL_T_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        COL_T_NAME + " TEXT NOT NULL UNIQUE, " +
+                        COL_T_LOCATION + " TEXT, " +
+                        COL_T_SEAT_ROWS + " INTEGER NOT NULL DEFAULT " + SeatMap.DEFAULT_ROWS + ", " +
+                        COL_T_SEAT_COLS + " INTEGER NOT NULL DEFAULT " + SeatMap.DEFAULT_COLS + ")"
         );
-        // Shows
+    }
+
+    private static void createShowsTable(SQLiteDatabase db, String table) {
         db.execSQL(
-                "CREATE TABLE IF NOT EXISTS " + TABLE_SHOWS + " (" +
+                "CREATE TABLE IF NOT EXISTS " + table + " (" +
                         COL_S_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                        COL_S_MOVIE + " TEXT NOT NULL, " +
+                        COL_S_MOVIE_ID + " INTEGER NOT NULL REFERENCES " + TABLE_MOVIES + "(" + COL_ID + "), " +
+                        COL_S_THEATRE_ID + " INTEGER NOT NULL REFERENCES " + TABLE_THEATRES + "(" + COL_T_ID + "), " +
                         COL_S_DATE + " TEXT NOT NULL, " +
-                        COL_S_THEATRE + " TEXT NOT NULL, " +
                         COL_S_TIME + " TEXT NOT NULL)"
         );
-        db.execSQL("CREATE INDEX IF NOT EXISTS idx_shows_movie_date ON " + TABLE_SHOWS + "(" + COL_S_MOVIE + "," + COL_S_DATE + ")");
-        db.execSQL("CREATE INDEX IF NOT EXISTS idx_shows_theatre ON " + TABLE_SHOWS + "(" + COL_S_THEATRE + ")");
+    }
 
-        // Bookings
+    private static void createBookingsTable(SQLiteDatabase db, String table) {
         db.execSQL(
-                "CREATE TABLE IF NOT EXISTS " + TABLE_BOOKINGS + " (" +
+                "CREATE TABLE IF NOT EXISTS " + table + " (" +
                         COL_B_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                        COL_B_MOVIE + " TEXT NOT NULL, " +
-                        COL_B_DATE + " TEXT NOT NULL, " +
-                        COL_B_THEATRE + " TEXT NOT NULL, " +
-                        COL_B_TIME + " TEXT NOT NULL, " +
-                        COL_B_SEAT + " TEXT NOT NULL, " +
-                        "UNIQUE(" + COL_B_MOVIE + "," + COL_B_DATE + "," + COL_B_THEATRE + "," + COL_B_TIME + "," + COL_B_SEAT + ") ON CONFLICT IGNORE)"
+                        COL_B_SHOW_ID + " INTEGER NOT NULL REFERENCES " + TABLE_SHOWS + "(" + COL_S_ID + "), " +
+                        COL_B_SEAT_INDEX + " INTEGER NOT NULL, " +
+                        "UNIQUE(" + COL_B_SHOW_ID + "," + COL_B_SEAT_INDEX + "))"
         );
-        db.execSQL("CREATE INDEX IF NOT EXISTS idx_bookings_lookup ON " + TABLE_BOOKINGS + "(" + COL_B_MOVIE + "," + COL_B_DATE + "," + COL_B_THEATRE + "," + COL_B_TIME + ")");
+    }
 
-        // Payments
+    private static void createPaymentsTable(SQLiteDatabase db, String table) {
         db.execSQL(
-                "CREATE TABLE IF NOT EXISTS " + TABLE_PAYMENTS + " (" +
+                "CREATE TABLE IF NOT EXISTS " + table + " (" +
                         COL_P_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                        COL_P_MOVIE + " TEXT NOT NULL, " +
-                        COL_P_DATE + " TEXT NOT NULL, " +
-                        COL_P_THEATRE + " TEXT NOT NULL, " +
-                        COL_P_TIME + " TEXT NOT NULL, " +
+                        COL_P_SHOW_ID + " INTEGER NOT NULL REFERENCES " + TABLE_SHOWS + "(" + COL_S_ID + "), " +
                         COL_P_SEATS + " TEXT NOT NULL, " +
                         COL_P_SEAT_COUNT + " INTEGER NOT NULL, " +
                         COL_P_AMOUNT + " INTEGER NOT NULL, " +
@@ -166,7 +381,63 @@ class MovieDbHelper extends SQLiteOpenHelper {
                         COL_P_CREATED_AT + " TEXT DEFAULT (datetime('now'))" +
                         ")"
         );
-        db.execSQL("CREATE INDEX IF NOT EXISTS idx_payments_lookup ON " + TABLE_PAYMENTS + "(" + COL_P_MOVIE + "," + COL_P_DATE + "," + COL_P_THEATRE + "," + COL_P_TIME + ")");
+    }
+
+    // The UNIQUE(show_id, seat_index) index on bookings already serves per-show seat lookups,
+    // and the show slot index (v11) serves lookups by movie and date
+    private static void createShowAndBookingIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_shows_theatre ON " + TABLE_SHOWS + "(" + COL_S_THEATRE_ID + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_payments_show ON " + TABLE_PAYMENTS + "(" + COL_P_SHOW_ID + ")");
+    }
+
+    // One show per movie, date, theatre and time; generation relies on it to stay idempotent
+    private static final String SQL_CREATE_SHOW_SLOT_INDEX =
+            "CREATE UNIQUE INDEX IF NOT EXISTS idx_shows_slot ON " + TABLE_SHOWS +
+                    "(" + COL_S_MOVIE_ID + "," + COL_S_DATE + "," + COL_S_THEATRE_ID + "," + COL_S_TIME + ")";
+
+    private static void createScheduleTables(SQLiteDatabase db) {
+        db.execSQL(
+                "CREATE TABLE IF NOT EXISTS " + TABLE_SHOW_TIMES + " (" +
+                        COL_ST_THEATRE_ID + " INTEGER NOT NULL REFERENCES " + TABLE_THEATRES + "(" + COL_T_ID + "), " +
+                        COL_ST_TIME + " TEXT NOT NULL, " +
+                        "PRIMARY KEY(" + COL_ST_THEATRE_ID + "," + COL_ST_TIME + "))"
+        );
+        db.execSQL(
+                "CREATE TABLE IF NOT EXISTS " + TABLE_META + " (" +
+                        COL_META_KEY + " TEXT PRIMARY KEY, " +
+                        COL_META_VALUE + " TEXT)"
+        );
+    }
+
+    private static void createSeatHoldsTable(SQLiteDatabase db) {
+        db.execSQL(
+                "CREATE TABLE IF NOT EXISTS " + TABLE_SEAT_HOLDS + " (" +
+                        COL_H_SHOW_ID + " INTEGER NOT NULL, " +
+                        COL_H_SEAT_INDEX + " INTEGER NOT NULL, " +
+                        COL_H_TOKEN + " TEXT NOT NULL, " +
+                        COL_H_EXPIRES_AT + " INTEGER NOT NULL, " +
+                        "PRIMARY KEY(" + COL_H_SHOW_ID + "," + COL_H_SEAT_INDEX + "))"
+        );
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_seat_holds_expiry ON " + TABLE_SEAT_HOLDS + "(" + COL_H_EXPIRES_AT + ")");
+    }
+
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        if (!db.isReadOnly() && SeatHoldManager.get().markRestored()) restoreSeatHolds(db);
+    }
+
+    // Reload leases that survived a process restart into the in-memory manager
+    private void restoreSeatHolds(SQLiteDatabase db) {
+        long now = System.currentTimeMillis();
+        db.delete(TABLE_SEAT_HOLDS, COL_H_EXPIRES_AT + "<=?", new String[]{String.valueOf(now)});
+        Cursor c = db.query(TABLE_SEAT_HOLDS,
+                new String[]{COL_H_SHOW_ID, COL_H_SEAT_INDEX, COL_H_TOKEN, COL_H_EXPIRES_AT},
+                null, null, null, null, null);
+        try {
+            SeatHoldManager holds = SeatHoldManager.get();
+            while (c.moveToNext()) holds.restore(c.getLong(0), c.getInt(1), c.getString(2), c.getLong(3));
+        } finally { c.close(); }
     }
 
     @Override
@@ -193,35 +464,35 @@ class MovieDbHelper extends SQLiteOpenHelper {
             db.execSQL(
                     "CREATE TABLE IF NOT EXISTS " + TABLE_SHOWS + " (" +
                             COL_S_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                            COL_S_MOVIE + " TEXT NOT NULL, " +
+                            COL_MOVIE + " TEXT NOT NULL, " +
                             COL_S_DATE + " TEXT NOT NULL, " +
-                            COL_S_THEATRE + " TEXT NOT NULL, " +
+                            COL_THEATRE + " TEXT NOT NULL, " +
                             COL_S_TIME + " TEXT NOT NULL)"
             );
-            db.execSQL("CREATE INDEX IF NOT EXISTS idx_shows_movie_date ON " + TABLE_SHOWS + "(" + COL_S_MOVIE + "," + COL_S_DATE + ")");
-            db.execSQL("CREATE INDEX IF NOT EXISTS idx_shows_theatre ON " + TABLE_SHOWS + "(" + COL_S_THEATRE + ")");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_shows_movie_date ON " + TABLE_SHOWS + "(" + COL_MOVIE + "," + COL_S_DATE + ")");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_shows_theatre ON " + TABLE_SHOWS + "(" + COL_THEATRE + ")");
         }
         if (oldVersion < 6) {
             db.execSQL(
                     "CREATE TABLE IF NOT EXISTS " + TABLE_BOOKINGS + " (" +
                             COL_B_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                            COL_B_MOVIE + " TEXT NOT NULL, " +
-                            COL_B_DATE + " TEXT NOT NULL, " +
-                            COL_B_THEATRE + " TEXT NOT NULL, " +
-                            COL_B_TIME + " TEXT NOT NULL, " +
-                            COL_B_SEAT + " TEXT NOT NULL, " +
-                            "UNIQUE(" + COL_B_MOVIE + "," + COL_B_DATE + "," + COL_B_THEATRE + "," + COL_B_TIME + "," + COL_B_SEAT + ") ON CONFLICT IGNORE)"
+                            COL_MOVIE + " TEXT NOT NULL, " +
+                            COL_DATE + " TEXT NOT NULL, " +
+                            COL_THEATRE + " TEXT NOT NULL, " +
+                            COL_TIME + " TEXT NOT NULL, " +
+                            COL_SEAT + " TEXT NOT NULL, " +
+                            "UNIQUE(" + COL_MOVIE + "," + COL_DATE + "," + COL_THEATRE + "," + COL_TIME + "," + COL_SEAT + ") ON CONFLICT IGNORE)"
             );
-            db.execSQL("CREATE INDEX IF NOT EXISTS idx_bookings_lookup ON " + TABLE_BOOKINGS + "(" + COL_B_MOVIE + "," + COL_B_DATE + "," + COL_B_THEATRE + "," + COL_B_TIME + ")");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_bookings_lookup ON " + TABLE_BOOKINGS + "(" + COL_MOVIE + "," + COL_DATE + "," + COL_THEATRE + "," + COL_TIME + ")");
         }
         if (oldVersion < 7) {
             db.execSQL(
                     "CREATE TABLE IF NOT EXISTS " + TABLE_PAYMENTS + " (" +
                             COL_P_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                            COL_P_MOVIE + " TEXT NOT NULL, " +
-                            COL_P_DATE + " TEXT NOT NULL, " +
-                            COL_P_THEATRE + " TEXT NOT NULL, " +
-                            COL_P_TIME + " TEXT NOT NULL, " +
+                            COL_MOVIE + " TEXT NOT NULL, " +
+                            COL_DATE + " TEXT NOT NULL, " +
+                            COL_THEATRE + " TEXT NOT NULL, " +
+                            COL_TIME + " TEXT NOT NULL, " +
                             COL_P_SEATS + " TEXT NOT NULL, " +
                             COL_P_SEAT_COUNT + " INTEGER NOT NULL, " +
                             COL_P_AMOUNT + " INTEGER NOT NULL, " +
@@ -232,8 +503,158 @@ class MovieDbHelper extends SQLiteOpenHelper {
                             COL_P_CREATED_AT + " TEXT DEFAULT (datetime('now'))" +
                             ")"
             );
-            db.execSQL("CREATE INDEX IF NOT EXISTS idx_payments_lookup ON " + TABLE_PAYMENTS + "(" + COL_P_MOVIE + "," + COL_P_DATE + "," + COL_P_THEATRE + "," + COL_P_TIME + ")");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_payments_lookup ON " + TABLE_PAYMENTS + "(" + COL_MOVIE + "," + COL_DATE + "," + COL_THEATRE + "," + COL_TIME + ")");
+        }
+        if (oldVersion < 8) {
+            try { db.execSQL("ALTER TABLE " + TABLE_THEATRES + " ADD COLUMN " + COL_T_SEAT_ROWS + " INTEGER NOT NULL DEFAULT " + SeatMap.DEFAULT_ROWS); } catch (Exception ignored) {}
+            try { db.execSQL("ALTER TABLE " + TABLE_THEATRES + " ADD COLUMN " + COL_T_SEAT_COLS + " INTEGER NOT NULL DEFAULT " + SeatMap.DEFAULT_COLS); } catch (Exception ignored) {}
+        }
+        if (oldVersion < 9) {
+            createSeatHoldsTable(db);
+        }
+        if (oldVersion < 10) {
+            migrateToShowIds(db);
+        }
+        if (oldVersion < 11) {
+            createScheduleTables(db);
+            seedShowTimesIfMissing(db);
+            mergeDuplicateShows(db);
+            db.execSQL("DROP INDEX IF EXISTS idx_shows_movie_date");
+            db.execSQL(SQL_CREATE_SHOW_SLOT_INDEX);
         }
+        if (oldVersion < 12) {
+            createSearchIndex(db);
+        }
+        if (oldVersion < 13) {
+            addPaymentKeys(db);
+        }
+        if (oldVersion < 14) {
+            addOrderIds(db);
+        }
+        if (oldVersion < 15) {
+            createTitleIndex(db);
+        }
+        if (oldVersion < 16) {
+            if (oldVersion >= 10) addPaymentSnapshots(db, TABLE_PAYMENTS); // the v10 rebuild adds them itself
+            db.execSQL("UPDATE " + TABLE_PAYMENTS + " SET " +
+                    COL_P_MOVIE_TITLE + "=(SELECT m." + COL_TITLE + " FROM " + TABLE_SHOWS + " s JOIN " + TABLE_MOVIES +
+                    " m ON m." + COL_ID + "=s." + COL_S_MOVIE_ID + " WHERE s." + COL_S_ID + "=" + TABLE_PAYMENTS + "." + COL_P_SHOW_ID + "), " +
+                    COL_P_THEATRE_NAME + "=(SELECT t." + COL_T_NAME + " FROM " + TABLE_SHOWS + " s JOIN " + TABLE_THEATRES +
+                    " t ON t." + COL_T_ID + "=s." + COL_S_THEATRE_ID + " WHERE s." + COL_S_ID + "=" + TABLE_PAYMENTS + "." + COL_P_SHOW_ID + ")" +
+                    " WHERE " + COL_P_MOVIE_TITLE + " IS NULL");
+        }
+    }
+
+    /**
+     * v11: shows generated concurrently before the slot index existed may be duplicated.
+     * Bookings and payments move to the lowest id of each slot before the extra rows go.
+     */
+    private void mergeDuplicateShows(SQLiteDatabase db) {
+        String keepers = "SELECT MIN(" + COL_S_ID + ") FROM " + TABLE_SHOWS +
+                " GROUP BY " + COL_S_MOVIE_ID + "," + COL_S_DATE + "," + COL_S_THEATRE_ID + "," + COL_S_TIME;
+        String keeperOf = "(SELECT MIN(k." + COL_S_ID + ") FROM " + TABLE_SHOWS + " s JOIN " + TABLE_SHOWS + " k" +
+                " ON k." + COL_S_MOVIE_ID + "=s." + COL_S_MOVIE_ID + " AND k." + COL_S_DATE + "=s." + COL_S_DATE +
+                " AND k." + COL_S_THEATRE_ID + "=s." + COL_S_THEATRE_ID + " AND k." + COL_S_TIME + "=s." + COL_S_TIME +
+                " WHERE s." + COL_S_ID + "=%s." + COL_B_SHOW_ID + ")";
+        // Seats booked under both copies of a show collapse onto one booking
+        db.execSQL("UPDATE OR IGNORE " + TABLE_BOOKINGS + " SET " + COL_B_SHOW_ID + "=" + String.format(keeperOf, TABLE_BOOKINGS) +
+                " WHERE " + COL_B_SHOW_ID + " NOT IN (" + keepers + ")");
+        db.execSQL("DELETE FROM " + TABLE_BOOKINGS + " WHERE " + COL_B_SHOW_ID + " NOT IN (" + keepers + ")");
+        db.execSQL("UPDATE " + TABLE_PAYMENTS + " SET " + COL_P_SHOW_ID + "=" + String.format(keeperOf, TABLE_PAYMENTS) +
+                " WHERE " + COL_P_SHOW_ID + " NOT IN (" + keepers + ")");
+        db.delete(TABLE_SEAT_HOLDS, COL_H_SHOW_ID + " NOT IN (" + keepers + ")", null);
+        db.delete(TABLE_SHOWS, COL_S_ID + " NOT IN (" + keepers + ")", null);
+    }
+
+    /**
+     * v10: shows reference movies/theatres by integer id, and bookings/payments reference
+     * shows._id instead of repeating movie/date/theatre/time text. Show ids are preserved so
+     * seat_holds rows stay valid. Slots whose movie or theatre was deleted keep their bookings
+     * and payments: they are keyed through stand-in rows that are removed again at the end,
+     * leaving the same dangling ids a later deleteMovie leaves. Payments keep the title and
+     * theatre name they were sold under.
+     */
+    private void migrateToShowIds(SQLiteDatabase db) {
+        createTheatresTable(db, "theatres_v10");
+        db.execSQL("INSERT INTO theatres_v10(" + COL_T_NAME + "," + COL_T_LOCATION + "," + COL_T_SEAT_ROWS + "," + COL_T_SEAT_COLS + ") " +
+                "SELECT " + COL_T_NAME + "," + COL_T_LOCATION + "," + COL_T_SEAT_ROWS + "," + COL_T_SEAT_COLS + " FROM " + TABLE_THEATRES);
+
+        // Bookings and payments may reference shows that were never materialized
+        db.execSQL("INSERT INTO " + TABLE_SHOWS + "(" + COL_MOVIE + "," + COL_DATE + "," + COL_THEATRE + "," + COL_TIME + ") " +
+                "SELECT DISTINCT x." + COL_MOVIE + ", x." + COL_DATE + ", x." + COL_THEATRE + ", x." + COL_TIME + " FROM (" +
+                "SELECT " + COL_MOVIE + "," + COL_DATE + "," + COL_THEATRE + "," + COL_TIME + " FROM " + TABLE_BOOKINGS +
+                " UNION SELECT " + COL_MOVIE + "," + COL_DATE + "," + COL_THEATRE + "," + COL_TIME + " FROM " + TABLE_PAYMENTS + ") x " +
+                "WHERE NOT EXISTS (SELECT 1 FROM " + TABLE_SHOWS + " s WHERE s." + COL_MOVIE + "=x." + COL_MOVIE +
+                " AND s." + COL_DATE + "=x." + COL_DATE + " AND s." + COL_THEATRE + "=x." + COL_THEATRE + " AND s." + COL_TIME + "=x." + COL_TIME + ")");
+
+        // Stand-ins so the joins below key every slot; ids at or past these are removed at the end
+        long firstStandInMovie = DatabaseUtils.longForQuery(db, "SELECT IFNULL(MAX(" + COL_ID + "), 0) + 1 FROM " + TABLE_MOVIES, null);
+        long firstStandInTheatre = DatabaseUtils.longForQuery(db, "SELECT IFNULL(MAX(" + COL_T_ID + "), 0) + 1 FROM theatres_v10", null);
+        db.execSQL("INSERT INTO " + TABLE_MOVIES + "(" + COL_TITLE + "," + COL_LANGUAGE + "," + COL_CATEGORY + ") " +
+                "SELECT DISTINCT s." + COL_MOVIE + ", '', '' FROM " + TABLE_SHOWS + " s" +
+                " WHERE NOT EXISTS (SELECT 1 FROM " + TABLE_MOVIES + " m WHERE m." + COL_TITLE + "=s." + COL_MOVIE + ")");
+        db.execSQL("INSERT INTO theatres_v10(" + COL_T_NAME + ") " +
+                "SELECT DISTINCT s." + COL_THEATRE + " FROM " + TABLE_SHOWS + " s" +
+                " WHERE NOT EXISTS (SELECT 1 FROM theatres_v10 t WHERE t." + COL_T_NAME + "=s." + COL_THEATRE + ")");
+
+        createShowsTable(db, "shows_v10");
+        db.execSQL("INSERT INTO shows_v10(" + COL_S_ID + "," + COL_S_MOVIE_ID + "," + COL_S_THEATRE_ID + "," + COL_S_DATE + "," + COL_S_TIME + ") " +
+                "SELECT s." + COL_S_ID + ", m." + COL_ID + ", t." + COL_T_ID + ", s." + COL_DATE + ", s." + COL_TIME +
+                " FROM " + TABLE_SHOWS + " s" +
+                " JOIN " + TABLE_MOVIES + " m ON m." + COL_TITLE + "=s." + COL_MOVIE +
+                " JOIN theatres_v10 t ON t." + COL_T_NAME + "=s." + COL_THEATRE);
+
+        // Seat labels become indexes, which depend on each theatre's hall geometry
+        createBookingsTable(db, "bookings_v10");
+        Map<String, SeatMap> maps = new HashMap<>();
+        Cursor c = db.rawQuery(
+                "SELECT s." + COL_S_ID + ", b." + COL_THEATRE + ", b." + COL_SEAT + ", t." + COL_T_SEAT_ROWS + ", t." + COL_T_SEAT_COLS +
+                        " FROM " + TABLE_BOOKINGS + " b" +
+                        " JOIN " + TABLE_SHOWS + " s ON s." + COL_MOVIE + "=b." + COL_MOVIE + " AND s." + COL_DATE + "=b." + COL_DATE +
+                        " AND s." + COL_THEATRE + "=b." + COL_THEATRE + " AND s." + COL_TIME + "=b." + COL_TIME +
+                        " JOIN shows_v10 n ON n." + COL_S_ID + "=s." + COL_S_ID +
+                        " JOIN theatres_v10 t ON t." + COL_T_NAME + "=b." + COL_THEATRE, null);
+        try {
+            while (c.moveToNext()) {
+                SeatMap map = maps.get(c.getString(1));
+                if (map == null) {
+                    map = c.getInt(3) > 0 && c.getInt(4) > 0 ? new SeatMap(c.getInt(3), c.getInt(4)) : SeatMap.standard();
+                    maps.put(c.getString(1), map);
+                }
+                int index = map.indexOf(c.getString(2));
+                if (index < 0) continue;
+                ContentValues v = new ContentValues();
+                v.put(COL_B_SHOW_ID, c.getLong(0));
+                v.put(COL_B_SEAT_INDEX, index);
+                db.insertWithOnConflict("bookings_v10", null, v, SQLiteDatabase.CONFLICT_IGNORE);
+            }
+        } finally { c.close(); }
+
+        createPaymentsTable(db, "payments_v10");
+        addPaymentSnapshots(db, "payments_v10");
+        db.execSQL("INSERT INTO payments_v10(" + COL_P_ID + "," + COL_P_SHOW_ID + "," + COL_P_SEATS + "," + COL_P_SEAT_COUNT + "," +
+                COL_P_AMOUNT + "," + COL_P_EMAIL + "," + COL_P_PHONE + "," + COL_P_NAME_ON_CARD + "," + COL_P_CARD_LAST4 + "," + COL_P_CREATED_AT + "," +
+                COL_P_MOVIE_TITLE + "," + COL_P_THEATRE_NAME + ") " +
+                "SELECT p." + COL_P_ID + ", n." + COL_S_ID + ", p." + COL_P_SEATS + ", p." + COL_P_SEAT_COUNT + ", p." + COL_P_AMOUNT +
+                ", p." + COL_P_EMAIL + ", p." + COL_P_PHONE + ", p." + COL_P_NAME_ON_CARD + ", p." + COL_P_CARD_LAST4 + ", p." + COL_P_CREATED_AT +
+                ", p." + COL_MOVIE + ", p." + COL_THEATRE +
+                " FROM " + TABLE_PAYMENTS + " p" +
+                " JOIN " + TABLE_SHOWS + " s ON s." + COL_MOVIE + "=p." + COL_MOVIE + " AND s." + COL_DATE + "=p." + COL_DATE +
+                " AND s." + COL_THEATRE + "=p." + COL_THEATRE + " AND s." + COL_TIME + "=p." + COL_TIME +
+                " JOIN shows_v10 n ON n." + COL_S_ID + "=s." + COL_S_ID);
+
+        db.execSQL("DROP TABLE " + TABLE_PAYMENTS);
+        db.execSQL("DROP TABLE " + TABLE_BOOKINGS);
+        db.execSQL("DROP TABLE " + TABLE_SHOWS);
+        db.execSQL("DROP TABLE " + TABLE_THEATRES);
+        db.execSQL("ALTER TABLE theatres_v10 RENAME TO " + TABLE_THEATRES);
+        db.execSQL("ALTER TABLE shows_v10 RENAME TO " + TABLE_SHOWS);
+        db.execSQL("ALTER TABLE bookings_v10 RENAME TO " + TABLE_BOOKINGS);
+        db.execSQL("ALTER TABLE payments_v10 RENAME TO " + TABLE_PAYMENTS);
+        createShowAndBookingIndexes(db);
+        db.delete(TABLE_SEAT_HOLDS, COL_H_SHOW_ID + " NOT IN (SELECT " + COL_S_ID + " FROM " + TABLE_SHOWS + ")", null);
+        db.delete(TABLE_MOVIES, COL_ID + ">=?", new String[]{String.valueOf(firstStandInMovie)});
+        db.delete(TABLE_THEATRES, COL_T_ID + ">=?", new String[]{String.valueOf(firstStandInTheatre)});
     }
 
     long insertMovieByName(String title, String language, String posterName, String category) {
@@ -242,14 +663,16 @@ class MovieDbHelper extends SQLiteOpenHelper {
         values.put(COL_LANGUAGE, language);
         values.put(COL_CATEGORY, category);
         values.put(COL_POSTER_NAME, posterName);
-        return getWritableDatabase().insert(TABLE_MOVIES, null, values);
+        long id = getWritableDatabase().insert(TABLE_MOVIES, null, values);
+        if (id != -1) ChangeBus.get().publish(new ChangeSet().movieInserted(id));
+        return id;
     }
 
     int updateNames(String title, String posterName, String detailName) {
         ContentValues values = new ContentValues();
         if (posterName != null && !posterName.trim().isEmpty()) values.put(COL_POSTER_NAME, posterName);
         if (detailName != null && !detailName.trim().isEmpty()) values.put(COL_DETAIL_NAME, detailName);
-        return getWritableDatabase().update(TABLE_MOVIES, values, COL_TITLE + "=?", new String[]{title});
+        return updateByTitle(title, values);
     }
 
     int updateMovieAll(String title, String language, Integer unusedImageResId, String category, Integer unusedDetailImageResId, String cast,
@@ -261,97 +684,115 @@ class MovieDbHelper extends SQLiteOpenHelper {
         if (year != null) values.put(COL_YEAR, year);
         if (director != null) values.put(COL_DIRECTOR, director);
         if (rating != null) values.put(COL_RATING, rating);
-        return getWritableDatabase().update(TABLE_MOVIES, values, COL_TITLE + "=?", new String[]{title});
+        return updateByTitle(title, values);
+    }
+
+    private int updateByTitle(String title, ContentValues values) {
+        if (values.size() == 0) return 0;
+        List<Long> ids = movieIdsByTitle(title);
+        if (ids.isEmpty()) return 0;
+        int rows = getWritableDatabase().update(TABLE_MOVIES, values, COL_ID + " IN (" + TextUtils.join(",", ids) + ")", null);
+        if (rows > 0) ChangeBus.get().publish(new ChangeSet().moviesUpdated(ids));
+        return rows;
     }
 
     int deleteMovie(String title) {
-        return getWritableDatabase().delete(TABLE_MOVIES, COL_TITLE + "=?", new String[]{title});
+        List<Long> ids = movieIdsByTitle(title);
+        if (ids.isEmpty()) return 0;
+        int rows = getWritableDatabase().delete(TABLE_MOVIES, COL_ID + " IN (" + TextUtils.join(",", ids) + ")", null);
+        forgetSchedules(ids);
+        if (rows > 0) ChangeBus.get().publish(new ChangeSet().moviesDeleted(ids));
+        return rows;
     }
 
-    List<Movie> readByCategory(String category) {
-        List<Movie> list = new ArrayList<>();
-        Cursor c = getReadableDatabase().query(TABLE_MOVIES, null, COL_CATEGORY + "=?", new String[]{category}, null, null, COL_ID + " DESC");
+    // Exact title match; the lower(title) index narrows it to a lookup
+    private List<Long> movieIdsByTitle(String title) {
+        return queryIds("SELECT " + COL_ID + " FROM " + TABLE_MOVIES +
+                " WHERE lower(" + COL_TITLE + ")=lower(?1) AND " + COL_TITLE + "=?1", new String[]{title});
+    }
+
+    private List<Long> queryIds(String sql, String[] args) {
+        List<Long> ids = new ArrayList<>();
+        Cursor c = getReadableDatabase().rawQuery(sql, args);
         try {
-            int idxTitle = c.getColumnIndexOrThrow(COL_TITLE);
-            int idxLang = c.getColumnIndexOrThrow(COL_LANGUAGE);
-            int idxPosterName = c.getColumnIndex(COL_POSTER_NAME);
-            int idxDetailName = c.getColumnIndex(COL_DETAIL_NAME);
-            int idxCast = c.getColumnIndex(COL_CAST);
-            int idxYear = c.getColumnIndex(COL_YEAR);
-            int idxDirector = c.getColumnIndex(COL_DIRECTOR);
-            int idxRating = c.getColumnIndex(COL_RATING);
-            while (c.moveToNext()) {
-                String posterName = (idxPosterName >= 0) ? c.getString(idxPosterName) : null;
-                int img = resolveDrawableId(posterName);
-                String detailName = (idxDetailName >= 0) ? c.getString(idxDetailName) : null;
-                Integer detail = (detailName != null) ? resolveDrawableId(detailName) : null;
-                String cast = (idxCast >= 0) ? c.getString(idxCast) : null;
-                Integer year = (idxYear >= 0 && !c.isNull(idxYear)) ? c.getInt(idxYear) : null;
-                String director = (idxDirector >= 0) ? c.getString(idxDirector) : null;
-                Float rating = (idxRating >= 0 && !c.isNull(idxRating)) ? c.getFloat(idxRating) : null;
-                list.add(new Movie(c.getString(idxTitle), img, c.getString(idxLang), detail, cast, year, director, rating));
-            }
+            while (c.moveToNext()) ids.add(c.getLong(0));
         } finally { c.close(); }
-        return list;
+        return ids;
+    }
+
+    /** Movies with the given ids, newest first; ids no longer in the table are skipped. */
+    List<Movie> readByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) return new ArrayList<>();
+        return readMovies(COL_ID + " IN (" + TextUtils.join(",", ids) + ")", null, null);
+    }
+
+    List<Movie> readByCategory(String category) {
+        return readMovies(COL_CATEGORY + "=?", new String[]{category}, null);
     }
 
     List<Movie> readAll() {
+        return readMovies(null, null, null);
+    }
+
+    Movie readByTitle(String title) {
+        List<Movie> found = readMovies("lower(" + COL_TITLE + ") = lower(?)", new String[]{title}, "1");
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    // Newest first, like the home rails expect
+    private List<Movie> readMovies(String selection, String[] args, String limit) {
         List<Movie> list = new ArrayList<>();
-        Cursor c = getReadableDatabase().query(TABLE_MOVIES, null, null, null, null, null, COL_ID + " DESC");
+        Cursor c = getReadableDatabase().query(TABLE_MOVIES, null, selection, args, null, null, COL_ID + " DESC", limit);
         try {
-            int idxTitle = c.getColumnIndexOrThrow(COL_TITLE);
-            int idxLang = c.getColumnIndexOrThrow(COL_LANGUAGE);
-            int idxPosterName = c.getColumnIndex(COL_POSTER_NAME);
-            int idxDetailName = c.getColumnIndex(COL_DETAIL_NAME);
-            int idxCast = c.getColumnIndex(COL_CAST);
-            int idxYear = c.getColumnIndex(COL_YEAR);
-            int idxDirector = c.getColumnIndex(COL_DIRECTOR);
-            int idxRating = c.getColumnIndex(COL_RATING);
-            while (c.moveToNext()) {
-                String posterName = (idxPosterName >= 0) ? c.getString(idxPosterName) : null;
-                int img = resolveDrawableId(posterName);
-                String detailName = (idxDetailName >= 0) ? c.getString(idxDetailName) : null;
-                Integer detail = (detailName != null) ? resolveDrawableId(detailName) : null;
-                String cast = (idxCast >= 0) ? c.getString(idxCast) : null;
-                Integer year = (idxYear >= 0 && !c.isNull(idxYear)) ? c.getInt(idxYear) : null;
-                String director = (idxDirector >= 0) ? c.getString(idxDirector) : null;
-                Float rating = (idxRating >= 0 && !c.isNull(idxRating)) ? c.getFloat(idxRating) : null;
-                list.add(new Movie(c.getString(idxTitle), img, c.getString(idxLang), detail, cast, year, director, rating));
-            }
+            MovieColumns columns = new MovieColumns(c);
+            while (c.moveToNext()) list.add(movieFromCursor(c, columns));
         } finally { c.close(); }
         return list;
     }
 
-    Movie readByTitle(String title) {
+    /** Column positions of a movies cursor, resolved once per query; optional columns may be -1. */
+    private static final class MovieColumns {
+        final int id, title, language, category, posterName, detailName, cast, year, director, rating;
+
+        MovieColumns(Cursor c) {
+            id = c.getColumnIndexOrThrow(COL_ID);
+            title = c.getColumnIndexOrThrow(COL_TITLE);
+            language = c.getColumnIndexOrThrow(COL_LANGUAGE);
+            category = c.getColumnIndex(COL_CATEGORY);
+            posterName = c.getColumnIndex(COL_POSTER_NAME);
+            detailName = c.getColumnIndex(COL_DETAIL_NAME);
+            cast = c.getColumnIndex(COL_CAST);
+            year = c.getColumnIndex(COL_YEAR);
+            director = c.getColumnIndex(COL_DIRECTOR);
+            rating = c.getColumnIndex(COL_RATING);
+        }
+    }
+
+    private Movie movieFromCursor(Cursor c, MovieColumns col) {
+        String posterName = (col.posterName >= 0) ? c.getString(col.posterName) : null;
+        int img = resolvePoster(posterName, PosterVariants.Bucket.CARD);
+        String detailName = (col.detailName >= 0) ? c.getString(col.detailName) : null;
+        Integer detail = (detailName != null) ? resolvePoster(detailName, PosterVariants.Bucket.DETAIL) : null;
+        String cast = (col.cast >= 0) ? c.getString(col.cast) : null;
+        Integer year = (col.year >= 0 && !c.isNull(col.year)) ? c.getInt(col.year) : null;
+        String director = (col.director >= 0) ? c.getString(col.director) : null;
+        Float rating = (col.rating >= 0 && !c.isNull(col.rating)) ? c.getFloat(col.rating) : null;
+        String category = (col.category >= 0) ? c.getString(col.category) : null;
+        return new Movie(c.getLong(col.id), c.getString(col.title), img, c.getString(col.language),
+                detail, cast, year, director, rating, category);
+    }
+
+    /** Ids of movies whose title, cast, director or language match an FTS expression. */
+    List<Long> matchMovieIds(String matchQuery) {
+        List<Long> ids = new ArrayList<>();
+        if (matchQuery == null) return ids;
         Cursor c = getReadableDatabase().rawQuery(
-                "SELECT * FROM " + TABLE_MOVIES + " WHERE lower(" + COL_TITLE + ") = lower(?) ORDER BY " + COL_ID + " DESC LIMIT 1",
-                new String[]{title}
-        );
+                "SELECT docid FROM " + TABLE_MOVIES_FTS + " WHERE " + TABLE_MOVIES_FTS + " MATCH ?",
+                new String[]{matchQuery});
         try {
-            if (c.moveToFirst()) {
-                int idxTitle = c.getColumnIndexOrThrow(COL_TITLE);
-                int idxLang = c.getColumnIndexOrThrow(COL_LANGUAGE);
-                int idxPosterName = c.getColumnIndex(COL_POSTER_NAME);
-                int idxDetailName = c.getColumnIndex(COL_DETAIL_NAME);
-                int idxCast = c.getColumnIndex(COL_CAST);
-                int idxYear = c.getColumnIndex(COL_YEAR);
-                int idxDirector = c.getColumnIndex(COL_DIRECTOR);
-                int idxRating = c.getColumnIndex(COL_RATING);
-
-                String t = c.getString(idxTitle);
-                String lang = c.getString(idxLang);
-                String posterName = (idxPosterName >= 0) ? c.getString(idxPosterName) : null;
-                int img = resolveDrawableId(posterName);
-                String detailName = (idxDetailName >= 0) ? c.getString(idxDetailName) : null;
-                Integer detail = (detailName != null) ? resolveDrawableId(detailName) : null;
-                String cast = (idxCast >= 0) ? c.getString(idxCast) : null;
-                Integer year = (idxYear >= 0 && !c.isNull(idxYear)) ? c.getInt(idxYear) : null;
-                String director = (idxDirector >= 0) ? c.getString(idxDirector) : null;
-                Float rating = (idxRating >= 0 && !c.isNull(idxRating)) ? c.getFloat(idxRating) : null;
-                return new Movie(t, img, lang, detail, cast, year, director, rating);
-            }
-            return null;
+            while (c.moveToNext()) ids.add(c.getLong(0));
         } finally { c.close(); }
+        return ids;
     }
 
     boolean existsByTitleIgnoreCase(String title) {
@@ -363,43 +804,30 @@ class MovieDbHelper extends SQLiteOpenHelper {
     }
 
     int deleteDuplicateTitles() {
-        return getWritableDatabase().delete(TABLE_MOVIES,
-                COL_ID + " NOT IN (SELECT MIN(" + COL_ID + ") FROM " + TABLE_MOVIES + " GROUP BY lower(" + COL_TITLE + "))",
-                null);
+        String duplicates = COL_ID + " NOT IN (SELECT MIN(" + COL_ID + ") FROM " + TABLE_MOVIES + " GROUP BY lower(" + COL_TITLE + "))";
+        List<Long> ids = queryIds("SELECT " + COL_ID + " FROM " + TABLE_MOVIES + " WHERE " + duplicates, null);
+        if (ids.isEmpty()) return 0;
+        int rows = getWritableDatabase().delete(TABLE_MOVIES, COL_ID + " IN (" + TextUtils.join(",", ids) + ")", null);
+        forgetSchedules(ids);
+        if (rows > 0) ChangeBus.get().publish(new ChangeSet().moviesDeleted(ids));
+        return rows;
     }
 
-    private int resolveDrawableId(String name) {
-        if (name == null || name.trim().isEmpty()) return 0;
-        try { return appContext.getResources().getIdentifier(name, "drawable", appContext.getPackageName()); }
-        catch (Exception e) { return 0; }
+    // Prefers the build-time scaled copy for the bucket, falling back to the original drawable
+    private int resolvePoster(String name, PosterVariants.Bucket bucket) {
+        return PosterVariants.get(appContext).idOf(name, bucket);
     }
 
     void seedFromAssetsIfEmpty() {
+        seedFromAssetsIfEmpty(null);
+    }
+
+    /** Streams the bundled catalog into an empty movies table in one transaction. */
+    void seedFromAssetsIfEmpty(MovieSeeder.Progress progress) {
         Cursor c = getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " + TABLE_MOVIES, null);
         try { if (c.moveToFirst() && c.getInt(0) > 0) return; } finally { c.close(); }
-        try (InputStream is = appContext.getAssets().open("movies_seed.json");
-             BufferedReader br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-            StringBuilder sb = new StringBuilder();
-            String line; while ((line = br.readLine()) != null) sb.append(line);
-            JSONObject root = new JSONObject(sb.toString());
-            JSONArray arr = root.optJSONArray("movies"); if (arr == null) return;
-            for (int i = 0; i < arr.length(); i++) {
-                JSONObject o = arr.getJSONObject(i);
-                String title = o.optString("title");
-                String language = o.optString("language");
-                String category = o.optString("category", "now");
-                String posterName = o.optString("posterName");
-                String detailName = o.optString("detailName", null);
-                String cast = o.optString("cast", null);
-                Integer year = o.has("year") ? o.optInt("year") : null;
-                String director = o.optString("director", null);
-                Float rating = o.has("rating") ? (float) o.optDouble("rating") : null;
-                if (!existsByTitleIgnoreCase(title)) {
-                    insertMovieByName(title, language, posterName, category);
-                    updateNames(title, posterName, detailName);
-                    updateMovieAll(title, null, null, null, null, cast, year, director, rating);
-                }
-            }
+        try (InputStream is = appContext.getAssets().open("movies_seed.json")) {
+            MovieSeeder.seed(getWritableDatabase(), is, progress);
         } catch (Exception ignored) {}
     }
 
@@ -424,30 +852,213 @@ class MovieDbHelper extends SQLiteOpenHelper {
         }
     }
 
-    void ensureShowsForMovieDate(String movie, String date) {
+    // Scheduling API
+
+    /**
+     * Formatter for stored show dates. Always Locale.US so the digits are ASCII whatever the
+     * device locale, keeping generated, picked, imported and exported dates comparable.
+     */
+    static SimpleDateFormat showDateFormat() {
+        return new SimpleDateFormat(SHOW_DATE_FORMAT, Locale.US);
+    }
+
+    /** One row of a theatre's show time template; rowids only grow, see setShowTimeTemplate. */
+    private static final class TemplateTime {
+        final long rowid;
+        final long theatreId;
+        final String time;
+
+        TemplateTime(long rowid, long theatreId, String time) {
+            this.rowid = rowid;
+            this.theatreId = theatreId;
+            this.time = time;
+        }
+    }
+
+    /**
+     * Generates the next part of one movie's schedule, at each theatre's template times, in one
+     * transaction. Templates added since the movie's last call (a new theatre, new show times)
+     * are first filled in over the dates already generated; then up to {@link #SHOW_CHUNK_DAYS}
+     * more days are added, up to the last date the picker allows. A day on which the movie
+     * already has shows, such as an imported schedule, is left alone. Callers repeat it, one
+     * writer task per call, until it returns -1: nothing left to generate. Otherwise returns
+     * the number of shows created.
+     */
+    int extendShows(String movie) {
+        long movieId = getMovieId(movie);
+        if (movieId < 0) return -1;
         seedTheatresIfEmpty();
-        List<String> theatres = getAllTheatres();
-        List<String> defaultTimes = Arrays.asList("10:00 AM", "01:30 PM", "06:00 PM", "09:00 PM");
         SQLiteDatabase db = getWritableDatabase();
-        for (String theatre : theatres) {
-            Cursor c = db.query(TABLE_SHOWS, null,
-                    COL_S_MOVIE + "=? AND " + COL_S_DATE + "=? AND " + COL_S_THEATRE + "=?",
-                    new String[]{movie, date, theatre}, null, null, null);
-            boolean exists;
-            try { exists = c.moveToFirst(); } finally { c.close(); }
-            if (!exists) {
-                for (String t : defaultTimes) {
-                    ContentValues v = new ContentValues();
-                    v.put(COL_S_MOVIE, movie);
-                    v.put(COL_S_DATE, date);
-                    v.put(COL_S_THEATRE, theatre);
-                    v.put(COL_S_TIME, t);
-                    db.insert(TABLE_SHOWS, null, v);
+        seedShowTimesIfMissing(db);
+
+        List<TemplateTime> templates = getTemplateTimes();
+        long newest = 0;
+        for (TemplateTime t : templates) newest = Math.max(newest, t.rowid);
+        String through = getMeta(META_SHOWS_THROUGH + movieId);
+        String covered = getMeta(META_SHOWS_TEMPLATES + movieId);
+        long seen = through != null && covered != null ? Long.parseLong(covered) : newest;
+        List<TemplateTime> added = new ArrayList<>();
+        for (TemplateTime t : templates) {
+            if (t.rowid > seen) added.add(t);
+        }
+
+        SimpleDateFormat fmt = showDateFormat();
+        Calendar end = Calendar.getInstance();
+        end.add(Calendar.MONTH, SHOW_HORIZON_MONTHS);
+        String last = fmt.format(end.getTime());
+        List<String> filled = new ArrayList<>();
+        List<String> ahead = new ArrayList<>();
+        for (Calendar day = Calendar.getInstance(); ahead.size() < SHOW_CHUNK_DAYS; day.add(Calendar.DAY_OF_MONTH, 1)) {
+            String d = fmt.format(day.getTime());
+            if (d.compareTo(last) > 0) break;
+            if (through == null || d.compareTo(through) > 0) ahead.add(d);
+            else if (!added.isEmpty()) filled.add(d);
+        }
+        if (ahead.isEmpty() && seen == newest) return -1;
+
+        SQLiteStatement insert = statement(SQL_INSERT_SHOW);
+        int created = 0;
+        db.beginTransaction();
+        try {
+            synchronized (insert) {
+                for (String date : filled) created += insertShows(insert, movieId, added, date);
+                for (String date : ahead) {
+                    if (queryForLong(SQL_MOVIE_HAS_SHOWS_ON, String.valueOf(movieId), date) > 0) continue;
+                    created += insertShows(insert, movieId, templates, date);
+                }
+            }
+            if (!ahead.isEmpty()) putMeta(META_SHOWS_THROUGH + movieId, ahead.get(ahead.size() - 1));
+            putMeta(META_SHOWS_TEMPLATES + movieId, String.valueOf(newest));
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return created;
+    }
+
+    // Caller holds the statement's lock
+    private static int insertShows(SQLiteStatement insert, long movieId, List<TemplateTime> times, String date) {
+        int created = 0;
+        for (TemplateTime t : times) {
+            insert.clearBindings();
+            insert.bindLong(1, movieId);
+            insert.bindLong(2, t.theatreId);
+            insert.bindString(3, date);
+            insert.bindString(4, t.time);
+            if (insert.executeInsert() != -1) created++;
+        }
+        return created;
+    }
+
+    private List<TemplateTime> getTemplateTimes() {
+        List<TemplateTime> times = new ArrayList<>();
+        Cursor c = getReadableDatabase().query(TABLE_SHOW_TIMES, new String[]{"rowid", COL_ST_THEATRE_ID, COL_ST_TIME},
+                null, null, null, null, "rowid");
+        try {
+            while (c.moveToNext()) times.add(new TemplateTime(c.getLong(0), c.getLong(1), c.getString(2)));
+        } finally { c.close(); }
+        return times;
+    }
+
+    // Schedule bookkeeping of deleted movies
+    private void forgetSchedules(List<Long> movieIds) {
+        for (long id : movieIds) {
+            getWritableDatabase().delete(TABLE_META, COL_META_KEY + " IN (?,?)",
+                    new String[]{META_SHOWS_THROUGH + id, META_SHOWS_TEMPLATES + id});
+        }
+    }
+
+    /** Show times per theatre id, in the order they play. */
+    Map<Long, List<String>> getShowTimeTemplates() {
+        Map<Long, List<String>> templates = new HashMap<>();
+        Cursor c = getReadableDatabase().query(TABLE_SHOW_TIMES, new String[]{COL_ST_THEATRE_ID, COL_ST_TIME},
+                null, null, null, null, "rowid");
+        try {
+            while (c.moveToNext()) {
+                List<String> times = templates.get(c.getLong(0));
+                if (times == null) {
+                    times = new ArrayList<>();
+                    templates.put(c.getLong(0), times);
                 }
+                times.add(c.getString(1));
             }
+        } finally { c.close(); }
+        return templates;
+    }
+
+    List<String> getShowTimeTemplate(String theatre) {
+        List<String> times = getShowTimeTemplates().get(getTheatreId(theatre));
+        return times != null ? times : new ArrayList<>();
+    }
+
+    /**
+     * Replaces the theatre's show times. Shows already generated (and possibly booked) are kept;
+     * the new rows get rowids past every earlier one, so each movie's next {@link #extendShows}
+     * fills the new times in over the dates it already covers.
+     */
+    void setShowTimeTemplate(String theatre, List<String> times) {
+        long theatreId = getTheatreId(theatre);
+        if (theatreId < 0) return;
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            // Taken before the delete, which could otherwise free the highest rowids for reuse
+            long rowid = DatabaseUtils.longForQuery(db, "SELECT IFNULL(MAX(rowid), 0) + 1 FROM " + TABLE_SHOW_TIMES, null);
+            db.delete(TABLE_SHOW_TIMES, COL_ST_THEATRE_ID + "=?", new String[]{String.valueOf(theatreId)});
+            for (String t : times) {
+                ContentValues v = new ContentValues();
+                v.put("rowid", rowid++);
+                v.put(COL_ST_THEATRE_ID, theatreId);
+                v.put(COL_ST_TIME, t);
+                db.insertWithOnConflict(TABLE_SHOW_TIMES, null, v, SQLiteDatabase.CONFLICT_IGNORE);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
         }
     }
 
+    // Theatres without a template get the default times
+    private static void seedShowTimesIfMissing(SQLiteDatabase db) {
+        List<Long> missing = new ArrayList<>();
+        Cursor c = db.rawQuery("SELECT " + COL_T_ID + " FROM " + TABLE_THEATRES + " t WHERE NOT EXISTS (SELECT 1 FROM " +
+                TABLE_SHOW_TIMES + " st WHERE st." + COL_ST_THEATRE_ID + "=t." + COL_T_ID + ")", null);
+        try {
+            while (c.moveToNext()) missing.add(c.getLong(0));
+        } finally { c.close(); }
+        for (long theatreId : missing) {
+            for (String t : DEFAULT_SHOW_TIMES) {
+                ContentValues v = new ContentValues();
+                v.put(COL_ST_THEATRE_ID, theatreId);
+                v.put(COL_ST_TIME, t);
+                db.insertWithOnConflict(TABLE_SHOW_TIMES, null, v, SQLiteDatabase.CONFLICT_IGNORE);
+            }
+        }
+    }
+
+    private String getMeta(String key) {
+        Cursor c = getReadableDatabase().query(TABLE_META, new String[]{COL_META_VALUE},
+                COL_META_KEY + "=?", new String[]{key}, null, null, null);
+        try {
+            return c.moveToFirst() ? c.getString(0) : null;
+        } finally { c.close(); }
+    }
+
+    private void putMeta(String key, String value) {
+        ContentValues v = new ContentValues();
+        v.put(COL_META_KEY, key);
+        v.put(COL_META_VALUE, value);
+        getWritableDatabase().insertWithOnConflict(TABLE_META, null, v, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    long getMovieId(String title) {
+        return title == null ? -1 : queryForLong(SQL_MOVIE_ID, title);
+    }
+
+    long getTheatreId(String name) {
+        return name == null ? -1 : queryForLong(SQL_THEATRE_ID, name);
+    }
+
     List<String> getAllTheatres() {
         List<String> list = new ArrayList<>();
         Cursor c = getReadableDatabase().query(TABLE_THEATRES, new String[]{COL_T_NAME}, null, null, null, null, COL_T_NAME);
@@ -457,12 +1068,68 @@ class MovieDbHelper extends SQLiteOpenHelper {
         return list;
     }
 
+
+
+    /** Empty seat map sized for the theatre's hall; falls back to the standard 8x7 layout. */
+    SeatMap getSeatMap(String theatre) {
+        Cursor c = getReadableDatabase().query(TABLE_THEATRES,
+                new String[]{COL_T_SEAT_ROWS, COL_T_SEAT_COLS}, COL_T_NAME + "=?", new String[]{theatre},
+                null, null, null, "1");
+        try {
+            if (c.moveToFirst() && c.getInt(0) > 0 && c.getInt(1) > 0) {
+                return new SeatMap(c.getInt(0), c.getInt(1));
+            }
+        } finally { c.close(); }
+        return SeatMap.standard();
+    }
+
+    /** Seat map for a show with its sold seats already marked. */
+    SeatMap getSeatMapForShow(long showId) {
+        SeatMap map = null;
+        Cursor c = getReadableDatabase().rawQuery(
+                "SELECT t." + COL_T_SEAT_ROWS + ", t." + COL_T_SEAT_COLS + " FROM " + TABLE_SHOWS + " s" +
+                        " JOIN " + TABLE_THEATRES + " t ON t." + COL_T_ID + "=s." + COL_S_THEATRE_ID +
+                        " WHERE s." + COL_S_ID + "=?",
+                new String[]{String.valueOf(showId)});
+        try {
+            if (c.moveToFirst() && c.getInt(0) > 0 && c.getInt(1) > 0) map = new SeatMap(c.getInt(0), c.getInt(1));
+        } finally { c.close(); }
+        if (map == null) map = SeatMap.standard();
+        for (int index : getBookedSeatIndexes(showId)) {
+            if (index < map.capacity()) map.markSold(index);
+        }
+        return map;
+    }
+
+    /** Seat map for the show with sold seats and other buyers' holds marked; unknown shows yield an empty hall. */
+    SeatMap loadSeatMap(String movie, String date, String theatre, String time, String exceptToken) {
+        return loadSeatSnapshot(movie, date, theatre, time, exceptToken).map;
+    }
+
+    /**
+     * {@link #loadSeatMap} together with the feed version it reflects. The version is read
+     * first, so any change racing the read is replayed to a subscriber rather than missed.
+     */
+    SeatAvailabilityFeed.Snapshot loadSeatSnapshot(String movie, String date, String theatre, String time, String exceptToken) {
+        long showId = getShowId(movie, date, theatre, time);
+        if (showId < 0) {
+            return new SeatAvailabilityFeed.Snapshot(-1, 0, theatre != null ? getSeatMap(theatre) : SeatMap.standard());
+        }
+        long version = SeatAvailabilityFeed.get().version(showId);
+        SeatMap map = getSeatMapForShow(showId);
+        for (int index : SeatHoldManager.get().heldByOthers(showId, exceptToken)) {
+            if (index < map.capacity()) map.setHeld(index, true);
+        }
+        return new SeatAvailabilityFeed.Snapshot(showId, version, map);
+    }
+
     List<String> getTheatresForMovieAndDate(String movie, String date) {
         List<String> list = new ArrayList<>();
         Cursor c = getReadableDatabase().rawQuery(
-                "SELECT DISTINCT " + COL_S_THEATRE + " FROM " + TABLE_SHOWS +
-                        " WHERE " + COL_S_MOVIE + "=? AND " + COL_S_DATE + "=? ORDER BY " + COL_S_THEATRE,
-                new String[]{movie, date}
+                "SELECT DISTINCT t." + COL_T_NAME + " FROM " + TABLE_SHOWS + " s" +
+                        " JOIN " + TABLE_THEATRES + " t ON t." + COL_T_ID + "=s." + COL_S_THEATRE_ID +
+                        " WHERE s." + COL_S_MOVIE_ID + "=? AND s." + COL_S_DATE + "=? ORDER BY t." + COL_T_NAME,
+                new String[]{String.valueOf(getMovieId(movie)), date}
         );
         try {
             while (c.moveToNext()) list.add(c.getString(0));
@@ -472,82 +1139,312 @@ class MovieDbHelper extends SQLiteOpenHelper {
 
     List<String> getShowTimes(String movie, String date, String theatre) {
         List<String> list = new ArrayList<>();
-        Cursor c = getReadableDatabase().query(TABLE_SHOWS, new String[]{COL_S_TIME},
-                COL_S_MOVIE + "=? AND " + COL_S_DATE + "=? AND " + COL_S_THEATRE + "=?",
-                new String[]{movie, date, theatre}, null, null, COL_S_TIME);
+        Cursor c = getReadableDatabase().rawQuery(SQL_SHOW_TIMES,
+                new String[]{String.valueOf(getMovieId(movie)), date, String.valueOf(getTheatreId(theatre))});
         try {
             while (c.moveToNext()) list.add(c.getString(0));
         } finally { c.close(); }
         return list;
     }
 
+    long getShowId(String movie, String date, String theatre, String time) {
+        if (movie == null || date == null || theatre == null || time == null) return -1;
+        return queryForLong(SQL_SHOW_ID, movie, date, theatre, time);
+    }
+
     // Bookings API
-    List<String> getBookedSeats(String movie, String date, String theatre, String time) {
-        List<String> seats = new ArrayList<>();
-        Cursor c = getReadableDatabase().query(
-                TABLE_BOOKINGS,
-                new String[]{COL_B_SEAT},
-                COL_B_MOVIE + "=? AND " + COL_B_DATE + "=? AND " + COL_B_THEATRE + "=? AND " + COL_B_TIME + "=?",
-                new String[]{movie, date, theatre, time},
-                null, null, null
-        );
+    int[] getBookedSeatIndexes(long showId) {
+        Cursor c = getReadableDatabase().rawQuery(SQL_BOOKED_SEATS, new String[]{String.valueOf(showId)});
         try {
-            while (c.moveToNext()) seats.add(c.getString(0));
+            int[] seats = new int[c.getCount()];
+            int n = 0;
+            while (c.moveToNext()) seats[n++] = c.getInt(0);
+            return seats;
         } finally { c.close(); }
+    }
+
+    List<String> getBookedSeats(String movie, String date, String theatre, String time) {
+        List<String> seats = new ArrayList<>();
+        long showId = getShowId(movie, date, theatre, time);
+        if (showId < 0) return seats;
+        SeatMap map = getSeatMapForShow(showId);
+        for (int i = 0; i < map.capacity(); i++) {
+            if (map.isSold(i)) seats.add(map.labelOf(i));
+        }
         return seats;
     }
 
-    void bookSeats(String movie, String date, String theatre, String time, List<String> seatLabels) {
-        if (seatLabels == null || seatLabels.isEmpty()) return;
+    /**
+     * Leases the given seats to {@code token} for {@link SeatHoldManager#DEFAULT_TTL_MS}.
+     * All-or-nothing: returns the seats that are sold or held by someone else (empty on success).
+     */
+    List<String> holdSeats(String movie, String date, String theatre, String time, List<String> seatLabels, String token) {
+        if (seatLabels == null || seatLabels.isEmpty()) return new ArrayList<>();
+        long showId = getShowId(movie, date, theatre, time);
+        if (showId < 0) return new ArrayList<>(seatLabels); // nothing can be leased for an unknown show
+        SeatMap map = getSeatMapForShow(showId);
+        List<String> conflicts = new ArrayList<>();
+        int[] seats = new int[seatLabels.size()];
+        int n = 0;
+        for (String label : seatLabels) {
+            int index = map.indexOf(label);
+            if (index < 0 || map.isSold(index)) conflicts.add(label);
+            else seats[n++] = index;
+        }
+        if (!conflicts.isEmpty()) return conflicts;
+
+        SeatHoldManager holds = SeatHoldManager.get();
+        int[] taken = holds.tryHold(showId, seats, token, SeatHoldManager.DEFAULT_TTL_MS);
+        if (taken.length > 0) {
+            for (int index : taken) conflicts.add(map.labelOf(index));
+            return conflicts;
+        }
+
+        long expiresAt = System.currentTimeMillis() + SeatHoldManager.DEFAULT_TTL_MS;
         SQLiteDatabase db = getWritableDatabase();
         db.beginTransaction();
         try {
-            for (String seat : seatLabels) {
-                ContentValues v = new ContentValues();
-                v.put(COL_B_MOVIE, movie);
-                v.put(COL_B_DATE, date);
-                v.put(COL_B_THEATRE, theatre);
-                v.put(COL_B_TIME, time);
-                v.put(COL_B_SEAT, seat);
-                db.insertWithOnConflict(TABLE_BOOKINGS, null, v, SQLiteDatabase.CONFLICT_IGNORE);
+            db.delete(TABLE_SEAT_HOLDS, COL_H_EXPIRES_AT + "<=? OR (" + COL_H_SHOW_ID + "=? AND " + COL_H_TOKEN + "=?)",
+                    new String[]{String.valueOf(System.currentTimeMillis()), String.valueOf(showId), token});
+            SQLiteStatement insert = statement(SQL_INSERT_HOLD);
+            synchronized (insert) {
+                for (int index : seats) {
+                    insert.bindLong(1, showId);
+                    insert.bindLong(2, index);
+                    insert.bindString(3, token);
+                    insert.bindLong(4, expiresAt);
+                    insert.executeInsert();
+                }
             }
             db.setTransactionSuccessful();
         } finally {
             db.endTransaction();
         }
+        return conflicts;
     }
 
-    void savePayment(String movie, String date, String theatre, String time,
-                     List<String> seatLabels, int seatCount, int amount,
-                     String email, String phone, String nameOnCard, String cardLast4) {
-        ContentValues v = new ContentValues();
-        v.put(COL_P_MOVIE, movie);
-        v.put(COL_P_DATE, date);
-        v.put(COL_P_THEATRE, theatre);
-        v.put(COL_P_TIME, time);
+    void releaseHolds(String movie, String date, String theatre, String time, String token) {
+        long showId = getShowId(movie, date, theatre, time);
+        if (showId < 0 || token == null) return;
+        SeatHoldManager.get().release(showId, token);
+        getWritableDatabase().delete(TABLE_SEAT_HOLDS, COL_H_SHOW_ID + "=? AND " + COL_H_TOKEN + "=?",
+                new String[]{String.valueOf(showId), token});
+    }
+
+    /** Seats currently leased to other buyers; they are shown as unavailable on the seat map. */
+    List<String> getHeldSeats(String movie, String date, String theatre, String time, String exceptToken) {
+        List<String> seats = new ArrayList<>();
+        long showId = getShowId(movie, date, theatre, time);
+        if (showId < 0) return seats;
+        SeatMap map = getSeatMap(theatre);
+        for (int index : SeatHoldManager.get().heldByOthers(showId, exceptToken)) {
+            if (index < map.capacity()) seats.add(map.labelOf(index));
+        }
+        return seats;
+    }
+
+    /** Outcome of {@link #checkout}: an order id, or the seats that stopped it. */
+    static final class CheckoutResult {
+        final String orderId; // null when nothing was booked
+        final List<String> lost;
+        final boolean replayed; // true when the key had already been used; nothing new was written
+
+        CheckoutResult(String orderId, List<String> lost, boolean replayed) {
+            this.orderId = orderId;
+            this.lost = lost;
+            this.replayed = replayed;
+        }
+    }
+
+    /**
+     * Books the seats and records the payment in one transaction, so there is never a sale
+     * without a payment or a payment without its seats, and a single commit covers both.
+     * {@code idempotencyKey} identifies the checkout attempt: repeating a call with the same
+     * key returns the original order instead of booking or charging again.
+     */
+    CheckoutResult checkout(String movie, String date, String theatre, String time, List<String> seatLabels,
+                            String token, int seatCount, int amount, String email, String phone,
+                            String nameOnCard, String cardLast4, String idempotencyKey) {
+        if (seatLabels == null || seatLabels.isEmpty()) return new CheckoutResult(null, new ArrayList<>(), false);
+        long showId = getShowId(movie, date, theatre, time);
+        if (showId < 0) return new CheckoutResult(null, new ArrayList<>(seatLabels), false);
+        int[] seats = new int[seatLabels.size()];
+        String orderId = null;
+        List<String> conflicts;
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            String previous = idempotencyKey != null ? queryForString(SQL_PAYMENT_BY_KEY, idempotencyKey) : null;
+            if (previous != null) return new CheckoutResult(previous, new ArrayList<>(), true);
+            conflicts = insertBookings(db, showId, seatLabels, token, seats);
+            if (conflicts.isEmpty()) {
+                orderId = insertPayment(showId, movie, theatre, seatLabels, seatCount, amount, email, phone,
+                        nameOnCard, cardLast4, idempotencyKey);
+                db.setTransactionSuccessful();
+            }
+        } finally {
+            db.endTransaction();
+        }
+        if (!conflicts.isEmpty()) return new CheckoutResult(null, conflicts, false);
+        announceSold(showId, seats, token);
+        return new CheckoutResult(orderId, conflicts, false);
+    }
+
+    /**
+     * Inserts bookings for the seats inside the caller's transaction, filling {@code seats} with
+     * their indexes, and drops the buyer's persisted holds. Returns the seats that are sold,
+     * unknown or no longer leased to {@code token}; the caller must roll back unless it is empty.
+     */
+    private List<String> insertBookings(SQLiteDatabase db, long showId, List<String> seatLabels, String token, int[] seats) {
+        List<String> conflicts = new ArrayList<>();
+        SeatMap map = getSeatMapForShow(showId);
+        int n = 0;
+        for (String label : seatLabels) {
+            int index = map.indexOf(label);
+            if (index < 0 || map.isSold(index)) conflicts.add(label);
+            else seats[n++] = index;
+        }
+        if (conflicts.isEmpty()) {
+            for (int index : SeatHoldManager.get().conflicts(showId, seats, token)) conflicts.add(map.labelOf(index));
+        }
+        if (!conflicts.isEmpty()) return conflicts;
+
+        SQLiteStatement insert = statement(SQL_INSERT_BOOKING);
+        synchronized (insert) {
+            for (int index : seats) {
+                insert.bindLong(1, showId);
+                insert.bindLong(2, index);
+                if (insert.executeInsert() == -1) conflicts.add(map.labelOf(index));
+            }
+        }
+        if (!conflicts.isEmpty()) return conflicts;
+        db.delete(TABLE_SEAT_HOLDS, COL_H_SHOW_ID + "=? AND " + COL_H_TOKEN + "=?",
+                new String[]{String.valueOf(showId), token});
+        return conflicts;
+    }
+
+    // After commit. Sold before released, so watchers never see these seats briefly free
+    private void announceSold(long showId, int[] seats, String token) {
+        SeatAvailabilityFeed.get().publish(showId, seats, SeatAvailabilityFeed.SOLD, null);
+        SeatHoldManager.get().release(showId, token);
+    }
+
+    // Next order id; the caller's transaction makes the bump and the insert that uses it one unit
+    private String nextOrderId() {
+        SQLiteStatement bump = statement(SQL_BUMP_ORDER_SEQUENCE);
+        synchronized (bump) {
+            bump.bindString(1, SEQ_ORDERS);
+            bump.executeUpdateDelete();
+        }
+        return formatOrderId(queryForLong(SQL_ORDER_SEQUENCE, SEQ_ORDERS));
+    }
+
+    static String formatOrderId(long sequence) {
+        return String.format(Locale.US, "ORD-%08d", sequence);
+    }
+
+    // Returns the order id
+    private String insertPayment(long showId, String movie, String theatre, List<String> seatLabels, int seatCount,
+                                 int amount, String email, String phone, String nameOnCard, String cardLast4,
+                                 String idempotencyKey) {
         String seatsCsv = seatLabels != null ? android.text.TextUtils.join(", ", seatLabels) : "";
-        v.put(COL_P_SEATS, seatsCsv);
-        v.put(COL_P_SEAT_COUNT, seatCount);
-        v.put(COL_P_AMOUNT, amount);
-        v.put(COL_P_EMAIL, email);
-        v.put(COL_P_PHONE, phone);
-        v.put(COL_P_NAME_ON_CARD, nameOnCard);
-        v.put(COL_P_CARD_LAST4, cardLast4);
-        getWritableDatabase().insert(TABLE_PAYMENTS, null, v);
+        String orderId = nextOrderId();
+        SQLiteStatement insert = statement(SQL_INSERT_PAYMENT);
+        synchronized (insert) {
+            insert.bindLong(1, showId);
+            insert.bindString(2, seatsCsv);
+            insert.bindLong(3, seatCount);
+            insert.bindLong(4, amount);
+            bindNullable(insert, 5, email);
+            bindNullable(insert, 6, phone);
+            bindNullable(insert, 7, nameOnCard);
+            bindNullable(insert, 8, cardLast4);
+            bindNullable(insert, 9, idempotencyKey);
+            insert.bindString(10, orderId);
+            bindNullable(insert, 11, movie);
+            bindNullable(insert, 12, theatre);
+            insert.executeInsert();
+        }
+        return orderId;
     }
 
+    private static void bindNullable(SQLiteStatement stmt, int index, String value) {
+        if (value == null) stmt.bindNull(index); else stmt.bindString(index, value);
+    }
+
+    // Payment rows joined back to their show; movie/date/theatre/time keep their pre-v10 column names.
+    // The snapshot wins so deleting a movie or theatre does not blank old tickets
+    private static final String PAYMENT_SELECT =
+            "SELECT p.*, IFNULL(p." + COL_P_MOVIE_TITLE + ", m." + COL_TITLE + ") AS " + COL_MOVIE + ", m." + COL_POSTER_NAME +
+                    ", s." + COL_S_DATE + " AS " + COL_DATE +
+                    ", IFNULL(p." + COL_P_THEATRE_NAME + ", t." + COL_T_NAME + ") AS " + COL_THEATRE + ", s." + COL_S_TIME + " AS " + COL_TIME +
+                    " FROM " + TABLE_PAYMENTS + " p" +
+                    " JOIN " + TABLE_SHOWS + " s ON s." + COL_S_ID + "=p." + COL_P_SHOW_ID +
+                    " LEFT JOIN " + TABLE_MOVIES + " m ON m." + COL_ID + "=s." + COL_S_MOVIE_ID +
+                    " LEFT JOIN " + TABLE_THEATRES + " t ON t." + COL_T_ID + "=s." + COL_S_THEATRE_ID;
+
     Cursor getLatestPaymentByEmail(String email) {
-        return getReadableDatabase().query(
-                TABLE_PAYMENTS,
-                null,
-                COL_P_EMAIL + "=?",
-                new String[]{email},
-                null, null,
-                COL_P_ID + " DESC",
-                "1"
+        return getReadableDatabase().rawQuery(
+                PAYMENT_SELECT + " WHERE p." + COL_P_EMAIL + "=? ORDER BY p." + COL_P_ID + " DESC LIMIT 1",
+                new String[]{email}
         );
     }
 
+    Ticket getLatestTicketByEmail(String email) {
+        Cursor c = getLatestPaymentByEmail(email);
+        try {
+            return c.moveToFirst() ? ticketFromCursor(c) : null;
+        } finally { c.close(); }
+    }
+
+    /** Newest first; pass {@link Long#MAX_VALUE} for the first page, then the last ticket's id. */
+    List<Ticket> getTicketsByEmail(String email, long beforeId, int limit) {
+        return ticketPage(COL_P_EMAIL, email, beforeId, limit);
+    }
+
+    List<Ticket> getTicketsByPhone(String phone, long beforeId, int limit) {
+        return ticketPage(COL_P_PHONE, phone, beforeId, limit);
+    }
+
+    Ticket getTicketByOrderId(String orderId) {
+        Cursor c = getReadableDatabase().rawQuery(
+                PAYMENT_SELECT + " WHERE p." + COL_P_ORDER_ID + "=?", new String[]{orderId});
+        try {
+            return c.moveToFirst() ? ticketFromCursor(c) : null;
+        } finally { c.close(); }
+    }
+
+    // Keyset page: seeks straight into the (column, _id) index instead of skipping OFFSET rows
+    private List<Ticket> ticketPage(String column, String value, long beforeId, int limit) {
+        List<Ticket> page = new ArrayList<>();
+        if (value == null || value.isEmpty()) return page;
+        Cursor c = getReadableDatabase().rawQuery(
+                PAYMENT_SELECT + " WHERE p." + column + "=? AND p." + COL_P_ID + "<? ORDER BY p." + COL_P_ID +
+                        " DESC LIMIT " + limit,
+                new String[]{value, String.valueOf(beforeId)});
+        try {
+            while (c.moveToNext()) page.add(ticketFromCursor(c));
+        } finally { c.close(); }
+        return page;
+    }
+
+    private Ticket ticketFromCursor(Cursor c) {
+        return new Ticket(
+                c.getLong(c.getColumnIndexOrThrow(COL_P_ID)),
+                c.getString(c.getColumnIndexOrThrow(COL_P_ORDER_ID)),
+                c.getString(c.getColumnIndexOrThrow(COL_MOVIE)),
+                c.getString(c.getColumnIndexOrThrow(COL_DATE)),
+                c.getString(c.getColumnIndexOrThrow(COL_THEATRE)),
+                c.getString(c.getColumnIndexOrThrow(COL_TIME)),
+                c.getString(c.getColumnIndexOrThrow(COL_P_SEATS)),
+                c.getInt(c.getColumnIndexOrThrow(COL_P_AMOUNT)),
+                c.getString(c.getColumnIndexOrThrow(COL_P_EMAIL)),
+                c.getString(c.getColumnIndexOrThrow(COL_P_PHONE)),
+                c.getString(c.getColumnIndexOrThrow(COL_P_CREATED_AT)),
+                // Thumbnail-sized for history rows; the ticket screen looks its backdrop up separately
+                resolvePoster(c.getString(c.getColumnIndexOrThrow(COL_POSTER_NAME)), PosterVariants.Bucket.CARD));
+    }
+
     int getPosterResIdForMovieTitle(String title) {
         if (title == null) return 0;
         Cursor c = getReadableDatabase().query(TABLE_MOVIES,
@@ -556,7 +1453,8 @@ class MovieDbHelper extends SQLiteOpenHelper {
         try {
             if (c.moveToFirst()) {
                 String posterName = c.getString(0);
-                return resolveDrawableId(posterName);
+                // Shown as a dimmed full-screen backdrop; the grid size is plenty
+                return resolvePoster(posterName, PosterVariants.Bucket.GRID);
             }
         } finally { c.close(); }
         return 0;
@@ -8,10 +8,13 @@ import android.widget.TextView;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.appcompat.content.res.AppCompatResources;
 
 public class MovieDetailActivity extends AppCompatActivity {
 
+    private MovieCatalog catalog;
+    private final MovieCatalog.Listener catalogListener = snapshot -> refreshFromCatalog();
+    private Movie movie;
+
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -23,51 +26,16 @@ public class MovieDetailActivity extends AppCompatActivity {
             btnBack.setOnClickListener(v -> onBackPressed());
         }
 
-        TextView tvTitle = findViewById(R.id.tv_detail_title);
-        TextView tvLanguage = findViewById(R.id.tv_detail_language);
-        TextView tvCast = findViewById(R.id.tv_detail_cast_value);
-        TextView tvYear = findViewById(R.id.tv_detail_year_value);
-        TextView tvDirector = findViewById(R.id.tv_detail_director_value);
-        TextView tvRating = findViewById(R.id.tv_detail_rating_value);
         View btnBook = findViewById(R.id.btn_book_movie);
-        ImageView ivPoster = findViewById(R.id.iv_detail_poster);
-        ImageView ivDetail = findViewById(R.id.iv_detail_secondary);
 
-        Movie movie = (Movie) getIntent().getSerializableExtra("movie");
-        if (movie != null) {
-            MovieDbHelper db = new MovieDbHelper(this);
-            Movie latest = db.readByTitle(movie.getTitle());
-            if (latest != null) movie = latest;
-        }
-        if (movie != null) {
-            tvTitle.setText(movie.getTitle());
-            tvLanguage.setText(movie.getLanguage());
-            ivPoster.setVisibility(View.GONE);
-            if (movie.getDetailImageResId() != null) {
-                try {
-                    ivDetail.setImageDrawable(AppCompatResources.getDrawable(this, movie.getDetailImageResId()));
-                    ivDetail.setVisibility(View.VISIBLE);
-                } catch (Exception ignored) {
-                    ivDetail.setVisibility(View.GONE);
-                }
-            } else {
-                ivDetail.setVisibility(View.GONE);
-            }
-            if (movie.getCast() != null && !movie.getCast().trim().isEmpty()) {
-                tvCast.setText(movie.getCast());
-            } else if (tvCast != null) {
-                tvCast.setText("Not available");
-            }
-            if (movie.getYear() != null && tvYear != null) tvYear.setText(String.valueOf(movie.getYear())); else if (tvYear != null) tvYear.setText("Not available");
-            if (movie.getDirector() != null && !movie.getDirector().trim().isEmpty() && tvDirector != null) tvDirector.setText(movie.getDirector()); else if (tvDirector != null) tvDirector.setText("Not available");
-            if (movie.getRating() != null && tvRating != null) tvRating.setText(String.format(java.util.Locale.getDefault(), "%.1f/10", movie.getRating())); else if (tvRating != null) tvRating.setText("Not available");
-        }
+        catalog = MovieCatalog.get(this);
+        movie = (Movie) getIntent().getSerializableExtra("movie");
+        bindMovie(movie);
         if (btnBook != null) {
-            Movie finalMovie = movie;
             btnBook.setOnClickListener(v -> {
-                if (finalMovie != null) {
+                if (movie != null) {
                     Intent intent = new Intent(this, TheatreSelectionActivity.class);
-                    intent.putExtra("selectedMovie", finalMovie.getTitle());
+                    intent.putExtra("selectedMovie", movie.getTitle());
                     startActivity(intent);
                 }
             });
@@ -75,6 +43,62 @@ public class MovieDetailActivity extends AppCompatActivity {
 
         // No bottom nav on details per latest request
     }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        catalog.addListener(catalogListener);
+        catalog.ensureLoaded();
+        refreshFromCatalog();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        catalog.removeListener(catalogListener);
+    }
+
+    // The card's copy is shown first; the catalog has the latest edits
+    private void refreshFromCatalog() {
+        if (movie == null) return;
+        MovieCatalog.Snapshot snapshot = catalog.snapshot();
+        Movie latest = movie.getId() > 0 ? snapshot.byId(movie.getId()) : null;
+        if (latest == null) latest = snapshot.byTitle(movie.getTitle());
+        if (latest != null && !latest.equals(movie)) {
+            movie = latest;
+            bindMovie(latest);
+        }
+    }
+
+    private void bindMovie(Movie movie) {
+        if (movie == null) return;
+        TextView tvTitle = findViewById(R.id.tv_detail_title);
+        TextView tvLanguage = findViewById(R.id.tv_detail_language);
+        TextView tvCast = findViewById(R.id.tv_detail_cast_value);
+        TextView tvYear = findViewById(R.id.tv_detail_year_value);
+        TextView tvDirector = findViewById(R.id.tv_detail_director_value);
+        TextView tvRating = findViewById(R.id.tv_detail_rating_value);
+        ImageView ivPoster = findViewById(R.id.iv_detail_poster);
+        ImageView ivDetail = findViewById(R.id.iv_detail_secondary);
+
+        tvTitle.setText(movie.getTitle());
+        tvLanguage.setText(movie.getLanguage());
+        ivPoster.setVisibility(View.GONE);
+        if (movie.getDetailImageResId() != null && movie.getDetailImageResId() != 0) {
+            PosterLoader.get(this).load(ivDetail, movie.getDetailImageResId(), 0);
+            ivDetail.setVisibility(View.VISIBLE);
+        } else {
+            ivDetail.setVisibility(View.GONE);
+        }
+        if (movie.getCast() != null && !movie.getCast().trim().isEmpty()) {
+            tvCast.setText(movie.getCast());
+        } else if (tvCast != null) {
+            tvCast.setText("Not available");
+        }
+        if (movie.getYear() != null && tvYear != null) tvYear.setText(String.valueOf(movie.getYear())); else if (tvYear != null) tvYear.setText("Not available");
+        if (movie.getDirector() != null && !movie.getDirector().trim().isEmpty() && tvDirector != null) tvDirector.setText(movie.getDirector()); else if (tvDirector != null) tvDirector.setText("Not available");
+        if (movie.getRating() != null && tvRating != null) tvRating.setText(String.format(java.util.Locale.getDefault(), "%.1f/10", movie.getRating())); else if (tvRating != null) tvRating.setText("Not available");
+    }
 }
 
 
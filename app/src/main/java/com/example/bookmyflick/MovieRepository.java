@@ -0,0 +1,289 @@
+package com.example.bookmyflick;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Asynchronous front for {@link MovieDbHelper}. Reads run on the shared read pool,
+ * writes on the single writer thread, and results are delivered on the main thread
+ * unless the returned {@link Request} was cancelled first.
+ */
+final class MovieRepository {
+
+    private static final String TAG = "MovieRepository";
+
+    interface Callback<T> {
+        void onResult(T result);
+
+        default void onError(Exception e) {
+            Log.e(TAG, "Database call failed", e);
+        }
+    }
+
+    /** Handle for an in-flight call. Cancelling drops the result; queued reads are not run at all. */
+    static final class Request {
+        private volatile boolean cancelled;
+        private volatile Future<?> future;
+        private final boolean interruptible;
+
+        private Request(boolean interruptible) {
+            this.interruptible = interruptible;
+        }
+
+        void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            // Writes always run to completion; only their delivery is suppressed
+            if (f != null && interruptible) f.cancel(false);
+        }
+
+        boolean isCancelled() { return cancelled; }
+    }
+
+    /** Collects the requests of one screen so they can be cancelled together when it stops. */
+    static final class Scope {
+        private final List<Request> requests = new ArrayList<>();
+
+        synchronized Request add(Request request) {
+            requests.removeIf(r -> r.future != null && r.future.isDone());
+            requests.add(request);
+            return request;
+        }
+
+        synchronized void cancelAll() {
+            for (Request r : requests) r.cancel();
+            requests.clear();
+        }
+    }
+
+    private static volatile MovieRepository instance;
+
+    private final MovieDbHelper db;
+    private final AppExecutors executors;
+
+    static MovieRepository get(Context context) {
+        MovieRepository local = instance;
+        if (local == null) {
+            synchronized (MovieRepository.class) {
+                local = instance;
+                if (local == null) {
+                    local = new MovieRepository(MovieDbHelper.getInstance(context), AppExecutors.get());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private MovieRepository(MovieDbHelper db, AppExecutors executors) {
+        this.db = db;
+        this.executors = executors;
+    }
+
+    MovieDbHelper helper() { return db; }
+
+    <T> Request read(Callable<T> work, Callback<T> callback) {
+        return submit(executors.reads(), true, work, callback);
+    }
+
+    <T> Request write(Callable<T> work, Callback<T> callback) {
+        return submit(executors.writes(), false, work, callback);
+    }
+
+    private <T> Request submit(ExecutorService executor, boolean interruptible, Callable<T> work, Callback<T> callback) {
+        Request request = new Request(interruptible);
+        request.future = executor.submit(() -> {
+            if (request.isCancelled()) return;
+            try {
+                T result = work.call();
+                if (callback != null) {
+                    executors.postToMain(() -> {
+                        if (!request.isCancelled()) callback.onResult(result);
+                    });
+                }
+            } catch (Exception e) {
+                if (callback != null) {
+                    executors.postToMain(() -> {
+                        if (!request.isCancelled()) callback.onError(e);
+                    });
+                } else {
+                    Log.e(TAG, "Database call failed", e);
+                }
+            }
+        });
+        return request;
+    }
+
+    // Catalog
+
+    Request readByCategory(String category, Callback<List<Movie>> cb) {
+        return read(() -> db.readByCategory(category), cb);
+    }
+
+    Request readAll(Callback<List<Movie>> cb) {
+        return read(db::readAll, cb);
+    }
+
+    Request readByTitle(String title, Callback<Movie> cb) {
+        return read(() -> db.readByTitle(title), cb);
+    }
+
+    /** Ranked search over the snapshot's movies; matching is done by the full-text index. */
+    Request search(MovieCatalog.Snapshot snapshot, String query, Callback<MovieSearch.Result> cb) {
+        return read(() -> searchBlocking(snapshot, query), cb);
+    }
+
+    /** Same as {@link #search} for callers already on a worker thread. */
+    MovieSearch.Result searchBlocking(MovieCatalog.Snapshot snapshot, String query) {
+        return MovieSearch.search(snapshot.all(), snapshot.version,
+                db.matchMovieIds(MovieSearch.toMatchQuery(query)), query);
+    }
+
+    Request existsByTitleIgnoreCase(String title, Callback<Boolean> cb) {
+        return read(() -> db.existsByTitleIgnoreCase(title), cb);
+    }
+
+    Request getPosterResIdForMovieTitle(String title, Callback<Integer> cb) {
+        return read(() -> db.getPosterResIdForMovieTitle(title), cb);
+    }
+
+    Request seedFromAssetsIfEmpty(Callback<Void> cb) {
+        return write(() -> { db.seedFromAssetsIfEmpty(); return null; }, cb);
+    }
+
+    Request insertMovieByName(String title, String language, String posterName, String category, Callback<Long> cb) {
+        return write(() -> db.insertMovieByName(title, language, posterName, category), cb);
+    }
+
+    Request updateNames(String title, String posterName, String detailName, Callback<Integer> cb) {
+        return write(() -> db.updateNames(title, posterName, detailName), cb);
+    }
+
+    Request updateMovieAll(String title, String language, String category, String cast,
+                           Integer year, String director, Float rating, Callback<Integer> cb) {
+        return write(() -> db.updateMovieAll(title, language, null, category, null, cast, year, director, rating), cb);
+    }
+
+    Request deleteMovie(String title, Callback<Integer> cb) {
+        return write(() -> db.deleteMovie(title), cb);
+    }
+
+    Request deleteDuplicateTitles(Callback<Integer> cb) {
+        return write(db::deleteDuplicateTitles, cb);
+    }
+
+    /**
+     * Runs a catalog import on a read thread; {@link CatalogTransfer} queues each batch on the
+     * writer itself. Like a write it runs to completion once submitted.
+     */
+    Request importCatalog(Callable<CatalogTransfer.Report> work, Callback<CatalogTransfer.Report> cb) {
+        return submit(executors.reads(), false, work, cb);
+    }
+
+    // Theatres and shows
+
+    Request seedTheatresIfEmpty(Callback<Void> cb) {
+        return write(() -> { db.seedTheatresIfEmpty(); return null; }, cb);
+    }
+
+    Request getAllTheatres(Callback<List<String>> cb) {
+        return read(db::getAllTheatres, cb);
+    }
+
+    /**
+     * Generates the movie's missing shows up to the picker's horizon; cheap once they exist.
+     * Runs on a read thread and queues each chunk as its own writer task, so holds and
+     * checkouts run in between. Like a write it runs to completion once submitted.
+     */
+    Request ensureShows(String movie, Callback<Integer> cb) {
+        return submit(executors.reads(), false, () -> {
+            int created = 0;
+            for (int n; (n = executors.writes().submit(() -> db.extendShows(movie)).get()) >= 0; ) created += n;
+            return created;
+        }, cb);
+    }
+
+    Request getShowTimeTemplate(String theatre, Callback<List<String>> cb) {
+        return read(() -> db.getShowTimeTemplate(theatre), cb);
+    }
+
+    Request setShowTimeTemplate(String theatre, List<String> times, Callback<Void> cb) {
+        return write(() -> { db.setShowTimeTemplate(theatre, times); return null; }, cb);
+    }
+
+    Request getTheatresForMovieAndDate(String movie, String date, Callback<List<String>> cb) {
+        return read(() -> db.getTheatresForMovieAndDate(movie, date), cb);
+    }
+
+    Request getShowTimes(String movie, String date, String theatre, Callback<List<String>> cb) {
+        return read(() -> db.getShowTimes(movie, date, theatre), cb);
+    }
+
+    Request getShowId(String movie, String date, String theatre, String time, Callback<Long> cb) {
+        return read(() -> db.getShowId(movie, date, theatre, time), cb);
+    }
+
+    // Seats, holds and bookings
+
+    Request loadSeatMap(String movie, String date, String theatre, String time, String holdToken, Callback<SeatMap> cb) {
+        return read(() -> db.loadSeatMap(movie, date, theatre, time, holdToken), cb);
+    }
+
+    Request loadSeatSnapshot(String movie, String date, String theatre, String time, String holdToken,
+                             Callback<SeatAvailabilityFeed.Snapshot> cb) {
+        return read(() -> db.loadSeatSnapshot(movie, date, theatre, time, holdToken), cb);
+    }
+
+    /** Seat changes for a show after {@code sinceVersion}, delivered on the main thread. */
+    SeatAvailabilityFeed.Subscription watchSeats(long showId, long sinceVersion, SeatAvailabilityFeed.Listener listener) {
+        return SeatAvailabilityFeed.get().subscribe(showId, sinceVersion, executors::postToMain, listener);
+    }
+
+    Request getBookedSeats(String movie, String date, String theatre, String time, Callback<List<String>> cb) {
+        return read(() -> db.getBookedSeats(movie, date, theatre, time), cb);
+    }
+
+    Request getHeldSeats(String movie, String date, String theatre, String time, String exceptToken, Callback<List<String>> cb) {
+        return read(() -> db.getHeldSeats(movie, date, theatre, time, exceptToken), cb);
+    }
+
+    Request holdSeats(String movie, String date, String theatre, String time, List<String> seats, String token,
+                      Callback<List<String>> cb) {
+        return write(() -> db.holdSeats(movie, date, theatre, time, seats, token), cb);
+    }
+
+    Request releaseHolds(String movie, String date, String theatre, String time, String token, Callback<Void> cb) {
+        return write(() -> { db.releaseHolds(movie, date, theatre, time, token); return null; }, cb);
+    }
+
+    Request checkout(String movie, String date, String theatre, String time, List<String> seats, String token,
+                     int seatCount, int amount, String email, String phone, String nameOnCard, String cardLast4,
+                     String idempotencyKey, Callback<MovieDbHelper.CheckoutResult> cb) {
+        return write(() -> db.checkout(movie, date, theatre, time, seats, token, seatCount, amount,
+                email, phone, nameOnCard, cardLast4, idempotencyKey), cb);
+    }
+
+    // Tickets
+
+    Request getLatestTicketByEmail(String email, Callback<Ticket> cb) {
+        return read(() -> db.getLatestTicketByEmail(email), cb);
+    }
+
+    Request getTicketByOrderId(String orderId, Callback<Ticket> cb) {
+        return read(() -> db.getTicketByOrderId(orderId), cb);
+    }
+
+    Request getTicketsByEmail(String email, long beforeId, int limit, Callback<List<Ticket>> cb) {
+        return read(() -> db.getTicketsByEmail(email, beforeId, limit), cb);
+    }
+
+    Request getTicketsByPhone(String phone, long beforeId, int limit, Callback<List<Ticket>> cb) {
+        return read(() -> db.getTicketsByPhone(phone, beforeId, limit), cb);
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.bookmyflick;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Query parsing and ranking for movie search. The full-text index narrows the catalog
+ * to rows matching every term as a prefix; this class orders those hits, and when the
+ * index finds nothing it falls back to a typo-tolerant scan of the in-memory catalog.
+ */
+final class MovieSearch {
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{M}\\p{N}]+");
+
+    // Weights per matched term, by field
+    private static final int TITLE_START = 120;
+    private static final int TITLE_WORD = 100;
+    private static final int PERSON_WORD = 40; // cast or director
+    private static final int LANGUAGE_WORD = 20;
+    private static final int TITLE_INFIX = 10;
+
+    /** Ranked movies for one query against one catalog version. */
+    static final class Result {
+        final String query;
+        final long catalogVersion;
+        final List<Movie> movies;
+        // True when every hit matches all terms as prefixes, so longer queries can narrow it
+        final boolean prefixMatched;
+
+        Result(String query, long catalogVersion, List<Movie> movies, boolean prefixMatched) {
+            this.query = query;
+            this.catalogVersion = catalogVersion;
+            this.movies = movies;
+            this.prefixMatched = prefixMatched;
+        }
+    }
+
+    private MovieSearch() {}
+
+    static Result search(List<Movie> catalog, long catalogVersion, Collection<Long> indexHits, String query) {
+        Set<Long> hits = new HashSet<>(indexHits);
+        return new Result(query, catalogVersion, rank(catalog, hits, query), !hits.isEmpty());
+    }
+
+    /**
+     * True when {@code next} only adds characters or terms to {@code previous}, so its prefix
+     * matches are a subset of the previous ones.
+     */
+    static boolean extendsQuery(String previous, String next) {
+        List<String> before = terms(previous);
+        List<String> after = terms(next);
+        if (before.isEmpty() || after.size() < before.size()) return false;
+        int last = before.size() - 1;
+        for (int i = 0; i < last; i++) {
+            if (!before.get(i).equals(after.get(i))) return false;
+        }
+        return after.get(last).startsWith(before.get(last));
+    }
+
+    /**
+     * Re-ranks a prefix-matched result for a query that extends it, without going back to the
+     * index. Returns null when nothing survives, leaving the caller to run a full search (which
+     * may still find typo matches).
+     */
+    static Result narrow(Result previous, String query) {
+        List<String> terms = terms(query);
+        Set<Long> survivors = new HashSet<>();
+        for (Movie m : previous.movies) {
+            if (matchesAllPrefixes(m, terms)) survivors.add(m.getId());
+        }
+        if (survivors.isEmpty()) return null;
+        return new Result(query, previous.catalogVersion, rank(previous.movies, survivors, query), true);
+    }
+
+    // Mirrors the index: every term must start some word of the searchable columns
+    static boolean matchesAllPrefixes(Movie movie, List<String> terms) {
+        List<String> words = terms(join(movie.getTitle(), movie.getCast(), movie.getDirector(), movie.getLanguage()));
+        for (String t : terms) {
+            if (!anyStartsWith(words, t)) return false;
+        }
+        return true;
+    }
+
+    /** Lowercased search terms, in the order typed. */
+    static List<String> terms(String query) {
+        List<String> terms = new ArrayList<>();
+        if (query == null) return terms;
+        Matcher m = WORD.matcher(query.toLowerCase(Locale.ROOT));
+        while (m.find()) terms.add(m.group());
+        return terms;
+    }
+
+    /** FTS MATCH expression requiring every term as a prefix, or null when there is nothing to match. */
+    static String toMatchQuery(String query) {
+        List<String> terms = terms(query);
+        if (terms.isEmpty()) return null;
+        StringBuilder sb = new StringBuilder();
+        for (String t : terms) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(t).append('*');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Orders the movies for {@code query}. {@code indexHits} are the ids the full-text index
+     * returned; when it is empty the catalog is scanned for infix and near-miss matches
+     * instead. A blank query returns the catalog unchanged.
+     */
+    static List<Movie> rank(List<Movie> catalog, Collection<Long> indexHits, String query) {
+        List<String> terms = terms(query);
+        if (terms.isEmpty()) return catalog;
+        List<Scored> scored = new ArrayList<>();
+        if (!indexHits.isEmpty()) {
+            for (Movie m : catalog) {
+                if (indexHits.contains(m.getId())) scored.add(new Scored(m, score(m, terms)));
+            }
+        } else {
+            for (Movie m : catalog) {
+                int s = fuzzyScore(m, terms);
+                if (s > 0) scored.add(new Scored(m, s));
+            }
+        }
+        // Stable, so equal scores keep catalog order (newest first)
+        Collections.sort(scored, (a, b) -> Integer.compare(b.score, a.score));
+        List<Movie> out = new ArrayList<>(scored.size());
+        for (Scored s : scored) out.add(s.movie);
+        return out;
+    }
+
+    static int score(Movie movie, List<String> terms) {
+        String title = lower(movie.getTitle());
+        List<String> titleWords = terms(title);
+        List<String> people = terms(join(movie.getCast(), movie.getDirector()));
+        List<String> language = terms(movie.getLanguage());
+        int total = 0;
+        for (int i = 0; i < terms.size(); i++) {
+            String t = terms.get(i);
+            if (i == 0 && title.startsWith(t)) total += TITLE_START;
+            else if (anyStartsWith(titleWords, t)) total += TITLE_WORD;
+            else if (anyStartsWith(people, t)) total += PERSON_WORD;
+            else if (anyStartsWith(language, t)) total += LANGUAGE_WORD;
+        }
+        return total;
+    }
+
+    /**
+     * Score for movies the index missed: every term must appear inside the title or be within
+     * a small edit distance of the start of some word. Zero means no match.
+     */
+    static int fuzzyScore(Movie movie, List<String> terms) {
+        String title = lower(movie.getTitle());
+        List<String> words = terms(join(title, movie.getCast(), movie.getDirector(), movie.getLanguage()));
+        int total = 0;
+        for (String t : terms) {
+            if (title.contains(t)) {
+                total += TITLE_INFIX;
+                continue;
+            }
+            int budget = typoBudget(t.length());
+            int best = Integer.MAX_VALUE;
+            for (String w : words) {
+                best = Math.min(best, prefixDistance(t, w, budget));
+                if (best == 0) break;
+            }
+            if (best > budget) return 0;
+            total += (budget + 1 - best);
+        }
+        return total;
+    }
+
+    // Short terms are too ambiguous to correct
+    static int typoBudget(int length) {
+        if (length < 4) return 0;
+        return length < 7 ? 1 : 2;
+    }
+
+    /**
+     * Edit distance between {@code term} and the best-matching prefix of {@code word}, so a
+     * partially typed word is not penalised for its missing tail. Returns max + 1 once the
+     * distance is known to exceed {@code max}.
+     */
+    static int prefixDistance(String term, String word, int max) {
+        int n = term.length(), m = word.length();
+        if (m < n - max) return max + 1;
+        int[] prev = new int[m + 1];
+        int[] cur = new int[m + 1];
+        for (int j = 0; j <= m; j++) prev[j] = j;
+        for (int i = 1; i <= n; i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            char c = term.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                int sub = prev[j - 1] + (c == word.charAt(j - 1) ? 0 : 1);
+                cur[j] = Math.min(sub, Math.min(prev[j], cur[j - 1]) + 1);
+                rowMin = Math.min(rowMin, cur[j]);
+            }
+            if (rowMin > max) return max + 1;
+            int[] tmp = prev; prev = cur; cur = tmp;
+        }
+        // Any prefix of the word may stand in for the whole term
+        int best = Integer.MAX_VALUE;
+        for (int j = 0; j <= m; j++) best = Math.min(best, prev[j]);
+        return best > max ? max + 1 : best;
+    }
+
+    private static boolean anyStartsWith(List<String> words, String prefix) {
+        for (String w : words) if (w.startsWith(prefix)) return true;
+        return false;
+    }
+
+    private static String join(String... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (String p : parts) if (p != null) sb.append(p).append(' ');
+        return sb.toString();
+    }
+
+    private static String lower(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Scored {
+        final Movie movie;
+        final int score;
+
+        Scored(Movie movie, int score) {
+            this.movie = movie;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.bookmyflick;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams a {@code {"movies": [...]}} catalog into the movies table. Titles are read one
+ * at a time and written through a single compiled insert inside one transaction, so memory
+ * stays flat however long the file is and the whole import is a single commit. Titles
+ * already present (ignoring case) are left as they are.
+ */
+final class MovieSeeder {
+
+    /** Called on the writing thread every {@link #PROGRESS_EVERY} titles and once at the end. */
+    interface Progress {
+        void onProgress(int read, int inserted);
+    }
+
+    static final int PROGRESS_EVERY = 250;
+
+    // Served by the lower(title) index, so the duplicate check stays a lookup as the table grows
+    private static final String SQL_INSERT_IF_ABSENT =
+            "INSERT INTO " + MovieDbHelper.TABLE_MOVIES + "(" + MovieDbHelper.COL_TITLE + "," +
+                    MovieDbHelper.COL_LANGUAGE + "," + MovieDbHelper.COL_CATEGORY + "," +
+                    MovieDbHelper.COL_POSTER_NAME + "," + MovieDbHelper.COL_DETAIL_NAME + "," +
+                    MovieDbHelper.COL_CAST + "," + MovieDbHelper.COL_YEAR + "," +
+                    MovieDbHelper.COL_DIRECTOR + "," + MovieDbHelper.COL_RATING + ")" +
+                    " SELECT ?1,?2,?3,?4,?5,?6,?7,?8,?9 WHERE NOT EXISTS (SELECT 1 FROM " + MovieDbHelper.TABLE_MOVIES +
+                    " WHERE lower(" + MovieDbHelper.COL_TITLE + ")=lower(?1))";
+
+    private MovieSeeder() {}
+
+    /**
+     * Imports every movie in {@code in}. Nothing is written unless the whole file parses.
+     * Returns the number of titles inserted.
+     */
+    static int seed(SQLiteDatabase db, InputStream in, Progress progress) throws IOException {
+        int read = 0;
+        int inserted = 0;
+        SQLiteStatement insert = db.compileStatement(SQL_INSERT_IF_ABSENT);
+        db.beginTransaction();
+        try (JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!"movies".equals(reader.nextName()) || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    insert.clearBindings();
+                    if (bindMovie(reader, insert) && insert.executeInsert() != -1) inserted++;
+                    read++;
+                    if (progress != null && read % PROGRESS_EVERY == 0) progress.onProgress(read, inserted);
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+        if (progress != null) progress.onProgress(read, inserted);
+        return inserted;
+    }
+
+    // Binds one movie object; false when it has no title and should be skipped
+    private static boolean bindMovie(JsonReader reader, SQLiteStatement insert) throws IOException {
+        String title = null;
+        String language = "";
+        String category = "now";
+        String posterName = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "title": title = reader.nextString(); break;
+                case "language": language = reader.nextString(); break;
+                case "category": category = reader.nextString(); break;
+                case "posterName": posterName = reader.nextString(); break;
+                case "detailName": bindOptional(insert, 5, reader.nextString()); break;
+                case "cast": bindOptional(insert, 6, reader.nextString()); break;
+                case "year": insert.bindLong(7, reader.nextInt()); break;
+                case "director": bindOptional(insert, 8, reader.nextString()); break;
+                case "rating": insert.bindDouble(9, reader.nextDouble()); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (title == null || title.isEmpty()) return false;
+        insert.bindString(1, title);
+        insert.bindString(2, language);
+        insert.bindString(3, category);
+        insert.bindString(4, posterName);
+        return true;
+    }
+
+    // Blank optional fields are stored as NULL
+    private static void bindOptional(SQLiteStatement insert, int index, String value) {
+        if (!value.trim().isEmpty()) insert.bindString(index, value);
+    }
+}
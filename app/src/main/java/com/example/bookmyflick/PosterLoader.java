@@ -0,0 +1,382 @@
+package com.example.bookmyflick;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.ViewTreeObserver;
+import android.widget.ImageView;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.content.res.AppCompatResources;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * Loads drawable posters into ImageViews at the size they are shown.
+ * <ul>
+ * <li>Decodes with {@code inSampleSize} chosen from the view size, on the image pool.</li>
+ * <li>Keeps decoded bitmaps in a byte-bounded memory LRU keyed by resource and sample size.</li>
+ * <li>Writes the scaled bitmap to a bounded disk cache so later decodes read a small thumbnail
+ * instead of the full-resolution resource.</li>
+ * <li>Reuses bitmaps evicted from memory (and no longer on screen) via {@code inBitmap}.</li>
+ * </ul>
+ * {@link #load} and {@link #cancel} must be called on the main thread.
+ */
+final class PosterLoader {
+
+    private static final String TAG = "PosterLoader";
+    private static final long DISK_CACHE_BYTES = 24L * 1024 * 1024;
+    private static final int DISK_QUALITY = 85;
+
+    private static volatile PosterLoader instance;
+
+    private final Resources resources;
+    private final AppExecutors executors;
+    private final File diskDir;
+    private final int fallbackWidth;
+    private final LruCache<String, Bitmap> memory;
+    // Bitmaps evicted while not displayed; candidates for inBitmap
+    private final Set<SoftReference<Bitmap>> reusable = new HashSet<>();
+    // Source dimensions per resource, so sample sizes are computed without re-reading bounds
+    private final Map<Integer, int[]> bounds = new HashMap<>();
+
+    // Main thread only
+    private final Map<ImageView, Integer> requested = new WeakHashMap<>();
+    private final Map<ImageView, Future<?>> inFlight = new WeakHashMap<>();
+    private final Map<ImageView, Bitmap> displayed = new WeakHashMap<>();
+
+    static PosterLoader get(Context context) {
+        PosterLoader local = instance;
+        if (local == null) {
+            synchronized (PosterLoader.class) {
+                local = instance;
+                if (local == null) {
+                    local = new PosterLoader(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private PosterLoader(Context appContext) {
+        this.resources = appContext.getResources();
+        this.executors = AppExecutors.get();
+        this.fallbackWidth = resources.getDisplayMetrics().widthPixels / 2;
+        this.diskDir = openDiskDir(appContext);
+
+        int maxBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / 8, 32L * 1024 * 1024);
+        this.memory = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getAllocationByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                // Entries only change on the main thread, so the displayed map is safe to read
+                if (evicted && oldValue.isMutable() && !displayed.containsValue(oldValue)) {
+                    synchronized (reusable) {
+                        reusable.add(new SoftReference<>(oldValue));
+                    }
+                }
+            }
+        };
+
+        appContext.registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                if (level >= TRIM_MEMORY_BACKGROUND) {
+                    memory.evictAll();
+                } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                    memory.trimToSize(memory.maxSize() / 2);
+                }
+            }
+
+            @Override
+            public void onConfigurationChanged(@NonNull Configuration newConfig) {}
+
+            @Override
+            public void onLowMemory() {
+                memory.evictAll();
+            }
+        });
+    }
+
+    /**
+     * Shows {@code resId} in {@code view}, decoded for the view's size. Falls back to
+     * {@code fallbackResId} when the resource is missing or not a bitmap.
+     */
+    void load(ImageView view, int resId, int fallbackResId) {
+        cancel(view);
+        requested.put(view, resId);
+        if (resId == 0) {
+            showFallback(view, fallbackResId);
+            return;
+        }
+        if (view.getWidth() > 0) {
+            start(view, resId, fallbackResId, view.getWidth(), view.getHeight());
+            return;
+        }
+        // Not laid out yet (e.g. a freshly bound card); wait for its size
+        view.setImageDrawable(null);
+        view.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                ViewTreeObserver observer = view.getViewTreeObserver();
+                if (observer.isAlive()) observer.removeOnPreDrawListener(this);
+                Integer wanted = requested.get(view);
+                if (wanted != null && wanted == resId && !inFlight.containsKey(view) && !displayed.containsKey(view)) {
+                    int width = view.getWidth() > 0 ? view.getWidth() : fallbackWidth;
+                    start(view, resId, fallbackResId, width, view.getHeight());
+                }
+                return true;
+            }
+        });
+    }
+
+    /** Stops any pending load for the view, e.g. when its holder is recycled. */
+    void cancel(ImageView view) {
+        requested.remove(view);
+        // Once untracked its bitmap may be evicted into the reuse pool, so the view must let go
+        if (displayed.remove(view) != null) view.setImageDrawable(null);
+        Future<?> f = inFlight.remove(view);
+        if (f != null) f.cancel(false);
+    }
+
+    /**
+     * Decodes a poster into the memory cache for a view of the given size, without a target
+     * view; safe on any thread. Returns null when it is already cached, otherwise the pending
+     * work, which callers may cancel once the poster is no longer likely to be shown.
+     */
+    Future<?> prefetch(int resId, int width, int height) {
+        if (resId == 0 || width <= 0) return null;
+        int[] size = knownBounds(resId);
+        if (size != null && memory.get(key(resId, sampleSize(size, width, height))) != null) return null;
+        return executors.images().submit(() -> {
+            int sample = sampleSizeFor(resId, width, height);
+            if (sample <= 0) return;
+            String key = key(resId, sample);
+            if (memory.get(key) != null) return;
+            Bitmap bitmap = decode(resId, sample);
+            if (bitmap != null) executors.postToMain(() -> {
+                if (memory.get(key) == null) memory.put(key, bitmap);
+            });
+        });
+    }
+
+    private void start(ImageView view, int resId, int fallbackResId, int width, int height) {
+        int[] size = knownBounds(resId);
+        if (size != null) {
+            Bitmap cached = memory.get(key(resId, sampleSize(size, width, height)));
+            if (cached != null) {
+                show(view, cached);
+                return;
+            }
+        }
+        Future<?> f = executors.images().submit(() -> {
+            int sample = sampleSizeFor(resId, width, height);
+            String key = key(resId, sample);
+            Bitmap bitmap = sample > 0 ? memory.get(key) : null;
+            if (bitmap == null && sample > 0) bitmap = decode(resId, sample);
+            Bitmap result = bitmap;
+            executors.postToMain(() -> {
+                Integer wanted = requested.get(view);
+                if (wanted == null || wanted != resId) return;
+                inFlight.remove(view);
+                if (result == null) {
+                    showFallback(view, fallbackResId);
+                    return;
+                }
+                if (memory.get(key) == null) memory.put(key, result);
+                show(view, result);
+            });
+        });
+        inFlight.put(view, f);
+    }
+
+    private void show(ImageView view, Bitmap bitmap) {
+        displayed.put(view, bitmap);
+        view.setImageBitmap(bitmap);
+    }
+
+    private void showFallback(ImageView view, int fallbackResId) {
+        displayed.remove(view);
+        view.setImageDrawable(fallbackResId != 0 ? AppCompatResources.getDrawable(view.getContext(), fallbackResId) : null);
+    }
+
+    // Worker thread: disk thumbnail first, then the full resource
+    private Bitmap decode(int resId, int sample) {
+        String key = key(resId, sample);
+        File file = diskDir != null ? new File(diskDir, key + ".jpg") : null;
+        if (file != null && file.exists()) {
+            BitmapFactory.Options opts = new BitmapFactory.Options();
+            opts.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(file.getPath(), opts);
+            opts.inJustDecodeBounds = false;
+            opts.inMutable = true;
+            opts.inBitmap = takeReusable(opts.outWidth, opts.outHeight);
+            Bitmap bitmap = decodeFileWithReuse(file, opts);
+            if (bitmap != null) {
+                file.setLastModified(System.currentTimeMillis());
+                return bitmap;
+            }
+            file.delete();
+        }
+
+        int[] size = knownBounds(resId);
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inScaled = false; // posters live in res/drawable; keep source pixels, not density-scaled ones
+        opts.inSampleSize = sample;
+        opts.inMutable = true;
+        if (size != null) opts.inBitmap = takeReusable(size[0] / sample, size[1] / sample);
+        Bitmap bitmap;
+        try {
+            bitmap = BitmapFactory.decodeResource(resources, resId, opts);
+        } catch (IllegalArgumentException e) {
+            // inBitmap did not fit after all
+            opts.inBitmap = null;
+            bitmap = BitmapFactory.decodeResource(resources, resId, opts);
+        }
+        if (bitmap != null && file != null) writeThumbnail(file, bitmap);
+        return bitmap;
+    }
+
+    private static Bitmap decodeFileWithReuse(File file, BitmapFactory.Options opts) {
+        try {
+            return BitmapFactory.decodeFile(file.getPath(), opts);
+        } catch (IllegalArgumentException e) {
+            opts.inBitmap = null;
+            return BitmapFactory.decodeFile(file.getPath(), opts);
+        }
+    }
+
+    // Sample size for the resource at the target size; 0 when it is not a decodable bitmap
+    private int sampleSizeFor(int resId, int width, int height) {
+        int[] size = knownBounds(resId);
+        if (size == null) {
+            BitmapFactory.Options opts = new BitmapFactory.Options();
+            opts.inJustDecodeBounds = true;
+            opts.inScaled = false;
+            try {
+                BitmapFactory.decodeResource(resources, resId, opts);
+            } catch (Resources.NotFoundException e) {
+                return 0;
+            }
+            if (opts.outWidth <= 0 || opts.outHeight <= 0) return 0;
+            size = new int[]{opts.outWidth, opts.outHeight};
+            synchronized (bounds) {
+                bounds.put(resId, size);
+            }
+        }
+        return sampleSize(size, width, height);
+    }
+
+    private int[] knownBounds(int resId) {
+        synchronized (bounds) {
+            return bounds.get(resId);
+        }
+    }
+
+    /** Largest power of two that keeps the decoded image at least the target size; a height of 0 means unconstrained. */
+    static int sampleSize(int[] source, int width, int height) {
+        int sample = 1;
+        while (source[0] / (sample * 2) >= width && (height <= 0 || source[1] / (sample * 2) >= height)) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    private static String key(int resId, int sample) {
+        return resId + "_" + sample;
+    }
+
+    private Bitmap takeReusable(int width, int height) {
+        int needed = width * height * 4;
+        synchronized (reusable) {
+            Iterator<SoftReference<Bitmap>> it = reusable.iterator();
+            while (it.hasNext()) {
+                Bitmap candidate = it.next().get();
+                if (candidate == null || candidate.isRecycled() || !candidate.isMutable()) {
+                    it.remove();
+                } else if (candidate.getAllocationByteCount() >= needed) {
+                    it.remove();
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void writeThumbnail(File file, Bitmap bitmap) {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, DISK_QUALITY, out);
+        } catch (Exception e) {
+            Log.w(TAG, "Could not cache " + file.getName(), e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(file)) tmp.delete();
+        trimDisk();
+    }
+
+    // Oldest-first eviction once the directory exceeds its budget
+    private void trimDisk() {
+        File[] files = diskDir.listFiles();
+        if (files == null) return;
+        long total = 0;
+        for (File f : files) total += f.length();
+        if (total <= DISK_CACHE_BYTES) return;
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File f : files) {
+            if (total <= DISK_CACHE_BYTES * 3 / 4) break;
+            total -= f.length();
+            f.delete();
+        }
+    }
+
+    // Thumbnails are tied to the installed APK; a new install starts a fresh directory
+    private static File openDiskDir(Context context) {
+        File root = new File(context.getCacheDir(), "posters");
+        String version;
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            version = String.valueOf(info.lastUpdateTime);
+        } catch (Exception e) {
+            version = "0";
+        }
+        File dir = new File(root, version);
+        File[] stale = root.listFiles();
+        if (stale != null) {
+            for (File old : stale) {
+                if (!old.getName().equals(version)) deleteTree(old);
+            }
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()) return null;
+        return dir;
+    }
+
+    private static void deleteTree(File f) {
+        File[] children = f.listFiles();
+        if (children != null) for (File c : children) deleteTree(c);
+        f.delete();
+    }
+}
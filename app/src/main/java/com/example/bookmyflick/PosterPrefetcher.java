@@ -0,0 +1,118 @@
+package com.example.bookmyflick;
+
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Future;
+
+/**
+ * Warms the poster cache for the items a {@link MovieAdapter} list is about to show.
+ * On each scroll step it looks a few items past the leading edge, more when the list is
+ * moving fast, and queues decodes for those at the size the visible cards use. Turning
+ * around cancels whatever is still queued for the old direction.
+ * Works with {@link LinearLayoutManager} and its subclasses, horizontal or vertical.
+ * Main thread only.
+ */
+final class PosterPrefetcher extends RecyclerView.OnScrollListener {
+
+    private static final int MIN_AHEAD = 3;
+    private static final int MAX_AHEAD = 12;
+
+    private final RecyclerView list;
+    private final MovieAdapter adapter;
+    private final LinearLayoutManager layout;
+    private final PosterLoader posters;
+    // Queued decodes by adapter position
+    private final Map<Integer, Future<?>> pending = new TreeMap<>();
+
+    private int direction; // +1 towards the end, -1 towards the start, 0 before the first scroll
+
+    private PosterPrefetcher(RecyclerView list, MovieAdapter adapter, LinearLayoutManager layout) {
+        this.list = list;
+        this.adapter = adapter;
+        this.layout = layout;
+        this.posters = PosterLoader.get(list.getContext());
+    }
+
+    /** Attaches a prefetcher to a list already set up with a MovieAdapter and a linear or grid layout. */
+    static PosterPrefetcher attach(RecyclerView list) {
+        if (!(list.getAdapter() instanceof MovieAdapter) || !(list.getLayoutManager() instanceof LinearLayoutManager)) {
+            throw new IllegalArgumentException("PosterPrefetcher needs a MovieAdapter and a LinearLayoutManager");
+        }
+        PosterPrefetcher prefetcher = new PosterPrefetcher(list, (MovieAdapter) list.getAdapter(),
+                (LinearLayoutManager) list.getLayoutManager());
+        list.addOnScrollListener(prefetcher);
+        return prefetcher;
+    }
+
+    /** Drops queued decodes; call when the screen stops. Scrolling again resumes prefetching. */
+    void cancel() {
+        cancelPending();
+        direction = 0;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        int delta = layout.getOrientation() == RecyclerView.HORIZONTAL ? dx : dy;
+        if (delta == 0) return;
+        int newDirection = delta > 0 ? 1 : -1;
+        if (newDirection != direction) {
+            cancelPending();
+            direction = newDirection;
+        }
+
+        View sample = visibleImage();
+        if (sample == null) return;
+        int itemExtent = layout.getOrientation() == RecyclerView.HORIZONTAL ? sample.getWidth() : sample.getHeight();
+        int span = Math.max(1, itemsPerLine());
+        // A fling covers a large part of an item per frame; every quarter item adds a line
+        int lines = itemExtent > 0 ? Math.abs(delta) * 4 / itemExtent : 0;
+        int ahead = Math.min(MAX_AHEAD, (MIN_AHEAD + lines) * span);
+
+        int edge = direction > 0 ? layout.findLastVisibleItemPosition() : layout.findFirstVisibleItemPosition();
+        if (edge == RecyclerView.NO_POSITION) return;
+        dropBehind(edge);
+        int count = adapter.getItemCount();
+        for (int i = 1; i <= ahead; i++) {
+            int position = edge + i * direction;
+            if (position < 0 || position >= count) break;
+            if (pending.containsKey(position)) continue;
+            Future<?> f = posters.prefetch(adapter.posterResIdAt(position), sample.getWidth(), sample.getHeight());
+            if (f != null) pending.put(position, f);
+        }
+    }
+
+    // Positions that scrolled into view are bound normally; forget their prefetches
+    private void dropBehind(int edge) {
+        Iterator<Map.Entry<Integer, Future<?>>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Future<?>> e = it.next();
+            if (e.getValue().isDone() || (direction > 0 ? e.getKey() <= edge : e.getKey() >= edge)) it.remove();
+        }
+    }
+
+    private void cancelPending() {
+        for (Future<?> f : pending.values()) f.cancel(false);
+        pending.clear();
+    }
+
+    private int itemsPerLine() {
+        return layout instanceof GridLayoutManager ? ((GridLayoutManager) layout).getSpanCount() : 1;
+    }
+
+    // Size of a bound poster, so prefetches land in the same cache entry as the real bind
+    private View visibleImage() {
+        for (int i = 0; i < list.getChildCount(); i++) {
+            View image = list.getChildAt(i).findViewById(R.id.movie_image);
+            if (image != null && image.getWidth() > 0) return image;
+        }
+        return null;
+    }
+}
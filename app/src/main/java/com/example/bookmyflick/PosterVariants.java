@@ -0,0 +1,94 @@
+package com.example.bookmyflick;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Size-bucketed poster variants produced at build time by the {@code generatePosterVariants}
+ * Gradle task. The poster originals are not resources, so a poster name such as
+ * {@code avengers} only resolves through here: the manifest in
+ * {@code assets/poster_variants.properties} maps {@code <poster>.<bucket>} to its scaled copy.
+ * Names the manifest does not know resolve as plain drawables.
+ */
+final class PosterVariants {
+
+    enum Bucket {
+        CARD, GRID, DETAIL;
+
+        final String key = name().toLowerCase(Locale.ROOT);
+    }
+
+    private static final String TAG = "PosterVariants";
+    private static final String MANIFEST = "poster_variants.properties";
+
+    private static volatile PosterVariants instance;
+
+    private final DrawableRegistry registry;
+    private final Properties manifest = new Properties();
+    // Variant resource ids back to the poster name they were made from
+    private final Map<Integer, String> sourceNames = new HashMap<>();
+
+    static PosterVariants get(Context context) {
+        PosterVariants local = instance;
+        if (local == null) {
+            synchronized (PosterVariants.class) {
+                local = instance;
+                if (local == null) {
+                    local = new PosterVariants(context.getApplicationContext());
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    private PosterVariants(Context appContext) {
+        this.registry = DrawableRegistry.get(appContext);
+        try (InputStream in = appContext.getAssets().open(MANIFEST)) {
+            manifest.load(in);
+        } catch (Exception e) {
+            // No generated variants in this build; posters resolve to 0 and show the placeholder
+            Log.w(TAG, "No poster variants: " + e.getMessage());
+        }
+        for (String key : manifest.stringPropertyNames()) {
+            String source = key.substring(0, key.lastIndexOf('.'));
+            int variant = registry.idOf(manifest.getProperty(key));
+            if (variant != 0) sourceNames.put(variant, source);
+        }
+    }
+
+    /** Resource id of the {@code bucket} variant of a poster, or of a plain drawable by that name, or 0. */
+    int idOf(String name, Bucket bucket) {
+        if (name == null) return 0;
+        String key = name.trim();
+        String variant = manifest.getProperty(key + "." + bucket.key);
+        if (variant != null) {
+            int id = registry.idOf(variant);
+            if (id != 0) return id;
+        }
+        return registry.idOf(key);
+    }
+
+    /** Whether {@code name} is a poster in any bucket or a plain drawable. */
+    boolean has(String name) {
+        for (Bucket bucket : Bucket.values()) {
+            if (idOf(name, bucket) != 0) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Same poster as {@code resId} in another bucket, for ids that came from the manifest;
+     * any other id is returned unchanged.
+     */
+    int forBucket(int resId, Bucket bucket) {
+        String source = sourceNames.get(resId);
+        return source != null ? idOf(source, bucket) : resId;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.bookmyflick;
+
+import android.content.Context;
+
+import java.util.List;
+
+/**
+ * Turns search box keystrokes into ranked results for one screen. Input is debounced,
+ * a newer query cancels the one in flight, and a query that extends the previous one
+ * narrows the previous results in memory instead of going back to the index.
+ * All methods are called on the main thread; results are delivered there too.
+ */
+final class SearchPipeline {
+
+    static final long DEBOUNCE_MS = 150;
+
+    interface Listener {
+        void onResults(String query, List<Movie> movies);
+    }
+
+    private final MovieRepository repository;
+    private final MovieCatalog catalog;
+    private final AppExecutors executors;
+    private final Listener listener;
+    private final Runnable runPending = this::runPending;
+
+    private String pendingQuery = "";
+    private MovieRepository.Request inFlight;
+    private MovieSearch.Result last;
+
+    SearchPipeline(Context context, Listener listener) {
+        this.repository = MovieRepository.get(context);
+        this.catalog = MovieCatalog.get(context);
+        this.executors = AppExecutors.get();
+        this.listener = listener;
+    }
+
+    /** Schedules a search for the latest text; clearing the box is applied immediately. */
+    void submit(String query) {
+        pendingQuery = query == null ? "" : query;
+        executors.removeFromMain(runPending);
+        if (MovieSearch.terms(pendingQuery).isEmpty()) {
+            runPending();
+        } else {
+            executors.postToMainDelayed(runPending, DEBOUNCE_MS);
+        }
+    }
+
+    /** Re-runs the current query now, e.g. after the catalog changed. */
+    void refresh() {
+        executors.removeFromMain(runPending);
+        runPending();
+    }
+
+    /** Drops the pending keystroke and any in-flight query; call when the screen stops. */
+    void cancel() {
+        executors.removeFromMain(runPending);
+        if (inFlight != null) inFlight.cancel();
+        inFlight = null;
+    }
+
+    private void runPending() {
+        String query = pendingQuery;
+        MovieCatalog.Snapshot snapshot = catalog.snapshot();
+        if (!snapshot.isLoaded()) return;
+        if (inFlight != null) inFlight.cancel();
+        inFlight = null;
+
+        if (MovieSearch.terms(query).isEmpty()) {
+            last = null;
+            listener.onResults(query, snapshot.all());
+            return;
+        }
+        MovieSearch.Result previous = last;
+        if (previous != null && previous.prefixMatched && previous.catalogVersion == snapshot.version
+                && MovieSearch.extendsQuery(previous.query, query)) {
+            inFlight = repository.read(() -> {
+                MovieSearch.Result narrowed = MovieSearch.narrow(previous, query);
+                return narrowed != null ? narrowed : repository.searchBlocking(snapshot, query);
+            }, this::deliver);
+        } else {
+            inFlight = repository.search(snapshot, query, this::deliver);
+        }
+    }
+
+    private void deliver(MovieSearch.Result result) {
+        inFlight = null;
+        last = result;
+        listener.onResults(result.query, result.movies);
+    }
+}
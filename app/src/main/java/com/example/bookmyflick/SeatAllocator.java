@@ -0,0 +1,110 @@
+package com.example.bookmyflick;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Picks the best free block of adjacent seats in one row for a party.
+ * Every window of free seats is scored in a single pass over the hall: blocks near the
+ * centre line and near the preferred row score higher, and blocks that would strand a
+ * single free seat next to them are penalised, since such seats rarely sell.
+ * Plain Java so it can be exercised on the JVM without Android.
+ */
+final class SeatAllocator {
+
+    // Row 0 is nearest the screen; about two thirds back is the usual sweet spot
+    static final double PREFERRED_ROW = 0.65;
+
+    private static final double CENTER_WEIGHT = 40;
+    private static final double ROW_WEIGHT = 35;
+    private static final double ORPHAN_PENALTY = 15; // per single seat left stranded
+
+    /** A contiguous run of seats in one row. */
+    static final class Block {
+        final int row;
+        final int firstCol;
+        final int count;
+        final double score;
+
+        Block(int row, int firstCol, int count, double score) {
+            this.row = row;
+            this.firstCol = firstCol;
+            this.count = count;
+            this.score = score;
+        }
+
+        int[] seats(SeatMap map) {
+            int[] out = new int[count];
+            for (int i = 0; i < count; i++) out[i] = map.indexOf(row, firstCol + i);
+            return out;
+        }
+
+        boolean overlaps(Block other) {
+            return row == other.row && firstCol < other.firstCol + other.count && other.firstCol < firstCol + count;
+        }
+    }
+
+    private SeatAllocator() {}
+
+    /**
+     * Best block of {@code count} seats that nobody else owns (our own selection is ignored),
+     * followed by up to {@code alternatives} non-overlapping runners-up, best first. Empty when
+     * no row has that many free seats side by side.
+     */
+    static List<Block> allocate(SeatMap map, int count, int alternatives) {
+        List<Block> out = new ArrayList<>();
+        if (count <= 0 || count > map.cols()) return out;
+        int rows = map.rows();
+        int cols = map.cols();
+        double centerCol = (cols - 1) / 2.0;
+        double preferredRow = (rows - 1) * PREFERRED_ROW;
+        double maxCenterOffset = Math.max(1.0, centerCol);
+        double maxRowOffset = Math.max(1.0, Math.max(preferredRow, rows - 1 - preferredRow));
+
+        // At most one candidate per seat, so even a 1000-seat hall sorts in well under a millisecond
+        List<Block> candidates = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            double rowPenalty = ROW_WEIGHT * Math.abs(row - preferredRow) / maxRowOffset;
+            int col = 0;
+            while (col < cols) {
+                // Find the next run of free seats [runStart, runEnd)
+                while (col < cols && !map.isFree(map.indexOf(row, col))) col++;
+                int runStart = col;
+                while (col < cols && map.isFree(map.indexOf(row, col))) col++;
+                int runEnd = col;
+                for (int start = runStart; start + count <= runEnd; start++) {
+                    double center = start + (count - 1) / 2.0;
+                    double score = 100 - rowPenalty - CENTER_WEIGHT * Math.abs(center - centerCol) / maxCenterOffset;
+                    if (start - runStart == 1) score -= ORPHAN_PENALTY;
+                    if (runEnd - (start + count) == 1) score -= ORPHAN_PENALTY;
+                    candidates.add(new Block(row, start, count, score));
+                }
+            }
+        }
+
+        // Stable sort: ties keep front rows and left seats first
+        Collections.sort(candidates, (a, b) -> Double.compare(b.score, a.score));
+        int wanted = alternatives + 1;
+        for (Block candidate : candidates) {
+            if (out.size() == wanted) break;
+            boolean clash = false;
+            for (Block chosen : out) {
+                if (chosen.overlaps(candidate)) { clash = true; break; }
+            }
+            if (!clash) out.add(candidate);
+        }
+        return out;
+    }
+
+    /** Replaces the map's current selection with the block; false if a seat is no longer free. */
+    static boolean apply(SeatMap map, Block block) {
+        int[] seats = block.seats(map);
+        for (int seat : seats) {
+            if (!map.isFree(seat)) return false;
+        }
+        map.clearSelection();
+        for (int seat : seats) map.select(seat);
+        return true;
+    }
+}
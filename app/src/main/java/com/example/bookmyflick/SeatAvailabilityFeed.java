@@ -0,0 +1,213 @@
+package com.example.bookmyflick;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Per-show stream of seat availability changes, so an open seat map can follow bookings
+ * and holds without reloading the whole hall. Every batch of changes (a booking, a hold,
+ * a release, an expiry sweep) bumps the show's version by one. Subscribers name the version
+ * their snapshot was read at and receive every later batch, in order, on their executor.
+ * Changes carry absolute seat states, so replaying a batch the snapshot already reflects
+ * is harmless.
+ * <p>
+ * This is the local stand-in for a backend push channel: only changes made in this process
+ * are seen. The log keeps the last {@link #MAX_LOG} batches per show; a subscriber further
+ * behind than that is told to reload instead. Shows nobody watches are forgotten once more
+ * than {@link #MAX_IDLE_SHOWS} of them pile up; a show seen again resumes from the highest
+ * version the feed has issued, so a snapshot from before it was forgotten is reset rather
+ * than matched against unrelated batches.
+ */
+final class SeatAvailabilityFeed {
+
+    static final int MAX_LOG = 256;
+    static final int MAX_IDLE_SHOWS = 64;
+
+    static final int SOLD = 1;
+    static final int HELD = 2;
+    static final int RELEASED = 3;
+
+    /** New state of one seat. {@code holder} is the hold token for {@link #HELD}, otherwise null. */
+    static final class SeatChange {
+        final int seat;
+        final int kind;
+        final String holder;
+
+        SeatChange(int seat, int kind, String holder) {
+            this.seat = seat;
+            this.kind = kind;
+            this.holder = holder;
+        }
+    }
+
+    /** A seat map read at a known feed version; showId is -1 when the show does not exist. */
+    static final class Snapshot {
+        final long showId;
+        final long version;
+        final SeatMap map;
+
+        Snapshot(long showId, long version, SeatMap map) {
+            this.showId = showId;
+            this.version = version;
+            this.map = map;
+        }
+    }
+
+    interface Listener {
+        /** One batch; versions arrive consecutively. */
+        void onSeatChanges(long version, List<SeatChange> changes);
+
+        /** The subscriber fell behind the log (or the show was reset); reload and resubscribe. */
+        void onReset();
+    }
+
+    /** Handle returned by {@link #subscribe}; close it when the seat map goes away. */
+    interface Subscription {
+        void close();
+    }
+
+    private static final class Batch {
+        final long version;
+        final List<SeatChange> changes;
+
+        Batch(long version, List<SeatChange> changes) {
+            this.version = version;
+            this.changes = changes;
+        }
+    }
+
+    private static final class Show {
+        long version;
+
+        Show(long version) {
+            this.version = version;
+        }
+
+        final ArrayDeque<Batch> log = new ArrayDeque<>();
+        final List<Sink> sinks = new ArrayList<>();
+    }
+
+    private static final class Sink {
+        final Executor executor;
+        final Listener listener;
+        volatile boolean closed;
+
+        Sink(Executor executor, Listener listener) {
+            this.executor = executor;
+            this.listener = listener;
+        }
+
+        void deliver(Batch batch) {
+            executor.execute(() -> {
+                if (!closed) listener.onSeatChanges(batch.version, batch.changes);
+            });
+        }
+
+        void reset() {
+            executor.execute(() -> {
+                if (!closed) listener.onReset();
+            });
+        }
+    }
+
+    private static volatile SeatAvailabilityFeed instance;
+
+    // Access order, so the idle shows trimmed first are the least recently used
+    private final Map<Long, Show> shows = new LinkedHashMap<>(16, 0.75f, true);
+    private long highestVersion;
+
+    static SeatAvailabilityFeed get() {
+        SeatAvailabilityFeed local = instance;
+        if (local == null) {
+            synchronized (SeatAvailabilityFeed.class) {
+                local = instance;
+                if (local == null) {
+                    local = new SeatAvailabilityFeed();
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    /** Current version of a show; read it before loading a snapshot to subscribe from. */
+    synchronized long version(long showId) {
+        Show show = shows.get(showId);
+        return show == null ? highestVersion : show.version;
+    }
+
+    /** Records one batch of changes for a show and fans it out to subscribers. */
+    void publish(long showId, int[] seats, int kind, String holder) {
+        if (seats.length == 0) return;
+        List<SeatChange> changes = new ArrayList<>(seats.length);
+        String owner = kind == HELD ? holder : null;
+        for (int seat : seats) changes.add(new SeatChange(seat, kind, owner));
+        publish(showId, Collections.unmodifiableList(changes));
+    }
+
+    private synchronized void publish(long showId, List<SeatChange> changes) {
+        Show show = show(showId);
+        Batch batch = new Batch(++show.version, changes);
+        highestVersion = Math.max(highestVersion, show.version);
+        show.log.addLast(batch);
+        if (show.log.size() > MAX_LOG) show.log.removeFirst();
+        // Enqueued under the lock so every sink sees batches in version order
+        for (Sink sink : show.sinks) sink.deliver(batch);
+    }
+
+    /**
+     * Delivers every batch after {@code sinceVersion}, then each new one, to {@code listener}
+     * on {@code executor}. When the missed batches are no longer in the log the listener
+     * gets {@link Listener#onReset} instead.
+     */
+    synchronized Subscription subscribe(long showId, long sinceVersion, Executor executor, Listener listener) {
+        Show show = show(showId);
+        Sink sink = new Sink(executor, listener);
+        Batch oldest = show.log.peekFirst();
+        if (sinceVersion > show.version || (oldest != null && sinceVersion < oldest.version - 1)
+                || (oldest == null && sinceVersion < show.version)) {
+            sink.reset();
+        } else {
+            for (Batch batch : show.log) {
+                if (batch.version > sinceVersion) sink.deliver(batch);
+            }
+        }
+        show.sinks.add(sink);
+        return () -> {
+            sink.closed = true;
+            synchronized (SeatAvailabilityFeed.this) {
+                show.sinks.remove(sink);
+            }
+        };
+    }
+
+    private Show show(long showId) {
+        Show show = shows.get(showId);
+        if (show == null) {
+            trimIdleShows();
+            show = new Show(highestVersion);
+            shows.put(showId, show);
+        }
+        return show;
+    }
+
+    // Makes room for one more idle show by dropping the least recently used ones
+    private void trimIdleShows() {
+        int idle = 0;
+        for (Show show : shows.values()) {
+            if (show.sinks.isEmpty()) idle++;
+        }
+        for (Iterator<Show> it = shows.values().iterator(); idle >= MAX_IDLE_SHOWS && it.hasNext(); ) {
+            if (it.next().sinks.isEmpty()) {
+                it.remove();
+                idle--;
+            }
+        }
+    }
+}
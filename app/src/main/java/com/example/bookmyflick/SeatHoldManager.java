@@ -0,0 +1,288 @@
+package com.example.bookmyflick;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory seat leases per show. A buyer (identified by a hold token) reserves seats
+ * all-or-nothing when leaving the seat map; leases expire after a TTL and are swept
+ * by a background thread. Mutations are guarded by a lock striped on the show id so
+ * unrelated shows never contend. Every change in who holds which seat is published to
+ * the {@link SeatAvailabilityFeed}, when one is attached.
+ */
+final class SeatHoldManager {
+
+    static final long DEFAULT_TTL_MS = TimeUnit.MINUTES.toMillis(8);
+    static final long SWEEP_PERIOD_MS = TimeUnit.SECONDS.toMillis(15);
+
+    interface Clock {
+        long now();
+    }
+
+    private static final class Lease {
+        final String token;
+        final long expiresAt;
+
+        Lease(String token, long expiresAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static volatile SeatHoldManager instance;
+
+    private final ReentrantLock[] stripes;
+    private final Map<Long, Map<Integer, Lease>> holdsByShow = new ConcurrentHashMap<>();
+    private final Clock clock;
+    private ScheduledExecutorService sweeper;
+    private ScheduledFuture<?> sweepTask;
+    private boolean restored;
+    private volatile SeatAvailabilityFeed feed;
+
+    static SeatHoldManager get() {
+        SeatHoldManager local = instance;
+        if (local == null) {
+            synchronized (SeatHoldManager.class) {
+                local = instance;
+                if (local == null) {
+                    local = new SeatHoldManager(System::currentTimeMillis,
+                            Runtime.getRuntime().availableProcessors() * 4);
+                    local.setFeed(SeatAvailabilityFeed.get());
+                    local.startSweeper(SWEEP_PERIOD_MS);
+                    instance = local;
+                }
+            }
+        }
+        return local;
+    }
+
+    SeatHoldManager(Clock clock, int minStripes) {
+        int n = 1;
+        while (n < Math.max(1, minStripes)) n <<= 1;
+        this.stripes = new ReentrantLock[n];
+        for (int i = 0; i < n; i++) stripes[i] = new ReentrantLock();
+        this.clock = clock;
+    }
+
+    void setFeed(SeatAvailabilityFeed feed) {
+        this.feed = feed;
+    }
+
+    /**
+     * Makes {@code seats} the exact set held by {@code token} for the show. Either every seat
+     * is leased (and any other seats the token held for that show are released) or nothing
+     * changes. Returns the seats leased to somebody else; empty means success.
+     */
+    int[] tryHold(long showId, int[] seats, String token, long ttlMs) {
+        ReentrantLock lock = lockFor(showId);
+        lock.lock();
+        try {
+            long now = clock.now();
+            Map<Integer, Lease> holds = holdsByShow.get(showId);
+            if (holds == null) {
+                holds = new HashMap<>();
+                holdsByShow.put(showId, holds);
+            }
+            int[] conflicts = new int[seats.length];
+            int n = 0;
+            for (int seat : seats) {
+                Lease lease = holds.get(seat);
+                if (lease != null && lease.expiresAt > now && !lease.token.equals(token)) conflicts[n++] = seat;
+            }
+            if (n > 0) return trim(conflicts, n);
+
+            int[] released = new int[holds.size()];
+            int r = 0;
+            Iterator<Map.Entry<Integer, Lease>> it = holds.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Integer, Lease> e = it.next();
+                Lease lease = e.getValue();
+                if (lease.token.equals(token) || lease.expiresAt <= now) {
+                    it.remove();
+                    if (!contains(seats, e.getKey())) released[r++] = e.getKey();
+                }
+            }
+            Lease lease = new Lease(token, now + ttlMs);
+            for (int seat : seats) holds.put(seat, lease);
+            publish(showId, trim(released, r), SeatAvailabilityFeed.RELEASED, null);
+            publish(showId, seats, SeatAvailabilityFeed.HELD, token);
+            return new int[0];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Seats in {@code seats} that are not currently leased to {@code token}. */
+    int[] conflicts(long showId, int[] seats, String token) {
+        ReentrantLock lock = lockFor(showId);
+        lock.lock();
+        try {
+            long now = clock.now();
+            Map<Integer, Lease> holds = holdsByShow.get(showId);
+            int[] out = new int[seats.length];
+            int n = 0;
+            for (int seat : seats) {
+                Lease lease = holds != null ? holds.get(seat) : null;
+                if (lease == null || lease.expiresAt <= now || !lease.token.equals(token)) out[n++] = seat;
+            }
+            return trim(out, n);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Live seats leased to anyone other than {@code token} (pass null to list every lease). */
+    int[] heldByOthers(long showId, String token) {
+        ReentrantLock lock = lockFor(showId);
+        lock.lock();
+        try {
+            Map<Integer, Lease> holds = holdsByShow.get(showId);
+            if (holds == null) return new int[0];
+            long now = clock.now();
+            int[] out = new int[holds.size()];
+            int n = 0;
+            for (Map.Entry<Integer, Lease> e : holds.entrySet()) {
+                Lease lease = e.getValue();
+                if (lease.expiresAt > now && (token == null || !lease.token.equals(token))) out[n++] = e.getKey();
+            }
+            return trim(out, n);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Drops every lease the token has for the show, e.g. after checkout or cancel. */
+    void release(long showId, String token) {
+        ReentrantLock lock = lockFor(showId);
+        lock.lock();
+        try {
+            Map<Integer, Lease> holds = holdsByShow.get(showId);
+            if (holds == null) return;
+            int[] released = new int[holds.size()];
+            int r = 0;
+            Iterator<Map.Entry<Integer, Lease>> it = holds.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Integer, Lease> e = it.next();
+                if (e.getValue().token.equals(token)) {
+                    it.remove();
+                    released[r++] = e.getKey();
+                }
+            }
+            if (holds.isEmpty()) holdsByShow.remove(showId);
+            publish(showId, trim(released, r), SeatAvailabilityFeed.RELEASED, null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Re-installs a persisted lease; ignored when expired or when the seat is leased already. */
+    void restore(long showId, int seat, String token, long expiresAt) {
+        ReentrantLock lock = lockFor(showId);
+        lock.lock();
+        try {
+            if (expiresAt <= clock.now()) return;
+            Map<Integer, Lease> holds = holdsByShow.get(showId);
+            if (holds == null) {
+                holds = new HashMap<>();
+                holdsByShow.put(showId, holds);
+            }
+            if (!holds.containsKey(seat)) {
+                holds.put(seat, new Lease(token, expiresAt));
+                publish(showId, new int[]{seat}, SeatAvailabilityFeed.HELD, token);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns true exactly once per process so persisted leases are loaded a single time. */
+    synchronized boolean markRestored() {
+        if (restored) return false;
+        restored = true;
+        return true;
+    }
+
+    /** Removes expired leases from every show and returns the ids of shows that changed. */
+    List<Long> sweep() {
+        List<Long> changed = new ArrayList<>();
+        long now = clock.now();
+        for (Long showId : holdsByShow.keySet()) {
+            ReentrantLock lock = lockFor(showId);
+            lock.lock();
+            try {
+                Map<Integer, Lease> holds = holdsByShow.get(showId);
+                if (holds == null) continue;
+                int[] expired = new int[holds.size()];
+                int r = 0;
+                Iterator<Map.Entry<Integer, Lease>> it = holds.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<Integer, Lease> e = it.next();
+                    if (e.getValue().expiresAt <= now) {
+                        it.remove();
+                        expired[r++] = e.getKey();
+                    }
+                }
+                if (holds.isEmpty()) holdsByShow.remove(showId);
+                if (r > 0) {
+                    changed.add(showId);
+                    publish(showId, trim(expired, r), SeatAvailabilityFeed.RELEASED, null);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return changed;
+    }
+
+    synchronized void startSweeper(long periodMs) {
+        if (sweeper == null) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "seat-hold-sweeper");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        if (sweepTask != null) sweepTask.cancel(false);
+        sweepTask = sweeper.scheduleWithFixedDelay(this::sweep, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void stopSweeper() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+            sweepTask = null;
+        }
+    }
+
+    // Called under the show's stripe lock, so a show's batches reach the feed in order
+    private void publish(long showId, int[] seats, int kind, String token) {
+        SeatAvailabilityFeed f = feed;
+        if (f != null && seats.length > 0) f.publish(showId, seats, kind, token);
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) if (v == value) return true;
+        return false;
+    }
+
+    private ReentrantLock lockFor(long showId) {
+        long h = showId * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h >>> 32) & (stripes.length - 1)];
+    }
+
+    private static int[] trim(int[] values, int n) {
+        if (n == values.length) return values;
+        int[] out = new int[n];
+        System.arraycopy(values, 0, out, 0, n);
+        return out;
+    }
+}
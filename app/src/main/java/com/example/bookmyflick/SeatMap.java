@@ -0,0 +1,230 @@
+package com.example.bookmyflick;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Seat state for a single show, backed by packed bitsets.
+ * Seats are addressed by a dense index (row * cols + col); labels such as "C4"
+ * map to and from that index arithmetically, so no per-seat lookups are needed.
+ * Plain Java on purpose so it can be exercised on the JVM without Android.
+ */
+final class SeatMap {
+
+    static final int DEFAULT_ROWS = 8;
+    static final int DEFAULT_COLS = 7;
+
+    static final int STATE_AVAILABLE = 0;
+    static final int STATE_SOLD = 1;
+    static final int STATE_HELD = 2;
+    static final int STATE_SELECTED = 3;
+
+    private final int rows;
+    private final int cols;
+    private final int capacity;
+    private final String[] rowLabels;
+    private final long[] sold;
+    private final long[] held;
+    private final long[] selected;
+    private String[] seatLabels; // built lazily on first labelOf()
+
+    SeatMap(int rows, int cols) {
+        if (rows <= 0 || cols <= 0) throw new IllegalArgumentException("rows and cols must be positive");
+        this.rows = rows;
+        this.cols = cols;
+        this.capacity = rows * cols;
+        this.rowLabels = new String[rows];
+        for (int r = 0; r < rows; r++) rowLabels[r] = rowLabel(r);
+        int words = (capacity + 63) >>> 6;
+        this.sold = new long[words];
+        this.held = new long[words];
+        this.selected = new long[words];
+    }
+
+    static SeatMap standard() {
+        return new SeatMap(DEFAULT_ROWS, DEFAULT_COLS);
+    }
+
+    int rows() { return rows; }
+    int cols() { return cols; }
+    int capacity() { return capacity; }
+
+    int rowOf(int index) { return index / cols; }
+    int colOf(int index) { return index % cols; }
+
+    int indexOf(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) return -1;
+        return row * cols + col;
+    }
+
+    /** Row label for a zero-based row: A..Z, then AA, AB, ... */
+    static String rowLabel(int row) {
+        StringBuilder sb = new StringBuilder(2);
+        int n = row + 1;
+        while (n > 0) {
+            n--;
+            sb.append((char) ('A' + (n % 26)));
+            n /= 26;
+        }
+        return sb.reverse().toString();
+    }
+
+    String rowLabelOf(int row) { return rowLabels[row]; }
+
+    String labelOf(int index) {
+        checkIndex(index);
+        String[] labels = seatLabels;
+        if (labels == null) {
+            labels = new String[capacity];
+            for (int i = 0; i < capacity; i++) labels[i] = rowLabels[i / cols] + (i % cols + 1);
+            seatLabels = labels;
+        }
+        return labels[index];
+    }
+
+    /** Parses a label like "C4" or "AB12"; returns -1 when it is malformed or out of range. */
+    int indexOf(String label) {
+        if (label == null) return -1;
+        int len = label.length();
+        int i = 0;
+        int row = 0;
+        while (i < len) {
+            char ch = label.charAt(i);
+            if (ch >= 'a' && ch <= 'z') ch = (char) (ch - 32);
+            if (ch < 'A' || ch > 'Z') break;
+            row = row * 26 + (ch - 'A' + 1);
+            if (row > rows) return -1;
+            i++;
+        }
+        if (i == 0 || i == len) return -1;
+        int col = 0;
+        for (; i < len; i++) {
+            char ch = label.charAt(i);
+            if (ch < '0' || ch > '9') return -1;
+            col = col * 10 + (ch - '0');
+            if (col > cols) return -1;
+        }
+        return indexOf(row - 1, col - 1);
+    }
+
+    int state(int index) {
+        checkIndex(index);
+        if (get(sold, index)) return STATE_SOLD;
+        if (get(held, index)) return STATE_HELD;
+        if (get(selected, index)) return STATE_SELECTED;
+        return STATE_AVAILABLE;
+    }
+
+    boolean isSold(int index) { checkIndex(index); return get(sold, index); }
+    boolean isHeld(int index) { checkIndex(index); return get(held, index); }
+    boolean isSelected(int index) { checkIndex(index); return get(selected, index); }
+
+    boolean isAvailable(int index) {
+        checkIndex(index);
+        int w = index >>> 6;
+        long mask = 1L << index;
+        return ((sold[w] | held[w] | selected[w]) & mask) == 0;
+    }
+
+    /** Seats nobody else owns: not sold and not held, regardless of our own selection. */
+    boolean isFree(int index) {
+        checkIndex(index);
+        int w = index >>> 6;
+        return ((sold[w] | held[w]) & (1L << index)) == 0;
+    }
+
+    void markSold(int index) {
+        checkIndex(index);
+        set(sold, index);
+        clear(selected, index);
+    }
+
+    /** Marks every parseable label as sold and returns how many were applied. */
+    int markSold(Collection<String> labels) {
+        if (labels == null) return 0;
+        int applied = 0;
+        for (String label : labels) {
+            int index = indexOf(label);
+            if (index >= 0) {
+                markSold(index);
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    void setHeld(int index, boolean value) {
+        checkIndex(index);
+        if (value) set(held, index); else clear(held, index);
+    }
+
+    /** Selects a free seat; returns false if it is sold or held. */
+    boolean select(int index) {
+        if (!isFree(index)) return false;
+        set(selected, index);
+        return true;
+    }
+
+    void deselect(int index) {
+        checkIndex(index);
+        clear(selected, index);
+    }
+
+    void clearSelection() {
+        Arrays.fill(selected, 0L);
+    }
+
+    void clearAll() {
+        Arrays.fill(sold, 0L);
+        Arrays.fill(held, 0L);
+        Arrays.fill(selected, 0L);
+    }
+
+    int soldCount() { return count(sold); }
+    int heldCount() { return count(held); }
+    int selectedCount() { return count(selected); }
+
+    int[] selectedIndexes() {
+        int[] out = new int[selectedCount()];
+        int n = 0;
+        for (int w = 0; w < selected.length; w++) {
+            long bits = selected[w];
+            while (bits != 0) {
+                out[n++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return out;
+    }
+
+    List<String> selectedLabels() {
+        int[] indexes = selectedIndexes();
+        List<String> out = new ArrayList<>(indexes.length);
+        for (int index : indexes) out.add(labelOf(index));
+        return out;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= capacity) throw new IndexOutOfBoundsException("seat " + index + " of " + capacity);
+    }
+
+    private static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static void clear(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+
+    private static int count(long[] bits) {
+        int n = 0;
+        for (long w : bits) n += Long.bitCount(w);
+        return n;
+    }
+}
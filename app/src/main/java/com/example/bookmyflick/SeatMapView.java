@@ -0,0 +1,363 @@
+package com.example.bookmyflick;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Bundle;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
+import androidx.customview.widget.ExploreByTouchHelper;
+
+import java.util.List;
+
+/**
+ * Draws a whole {@link SeatMap} on one canvas instead of one view per seat.
+ * Seat state is read straight from the map's bitsets; a tap is mapped back to a seat
+ * index arithmetically. The map is fitted to the view width and can be pinch-zoomed
+ * and panned for large halls. Only seats inside the clip are drawn, and a single seat
+ * change invalidates just that seat's rectangle. Seats are exposed to accessibility
+ * services as virtual views.
+ */
+public class SeatMapView extends View {
+
+    interface OnSeatTapListener {
+        void onSeatTapped(int index);
+    }
+
+    static final int COLOR_AVAILABLE = 0xFF9E9E9E; // gray
+    static final int COLOR_SOLD = 0xFFC62828;      // red
+    static final int COLOR_HELD = 0xFFF9A825;      // amber, someone is paying for it
+    static final int COLOR_SELECTED = 0xFF2E7D32;  // green
+
+    private static final float MAX_ZOOM = 4f;
+
+    private final float seatSize;
+    private final float seatGap;
+    private final float corner;
+    private final float minLabelSize; // below this on screen, labels are unreadable and skipped
+    private final float labelTextSize;
+
+    private final Paint seatPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF seatRect = new RectF();
+    private final Rect clip = new Rect();
+    private final Rect dirty = new Rect();
+
+    private final ScaleGestureDetector scaleDetector;
+    private final GestureDetector gestureDetector;
+    private final SeatAccessibility accessibility;
+
+    private SeatMap seatMap;
+    private OnSeatTapListener listener;
+
+    // Content (unscaled seat grid) to view: view = content * scale + translate
+    private float fitScale = 1f;
+    private float scale = 1f;
+    private float translateX;
+    private float translateY;
+
+    public SeatMapView(Context context) {
+        this(context, null);
+    }
+
+    public SeatMapView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        float density = getResources().getDisplayMetrics().density;
+        seatSize = 36 * density;
+        seatGap = 12 * density;
+        corner = 4 * density;
+        minLabelSize = 20 * density;
+        labelPaint.setColor(0xFFFFFFFF);
+        labelPaint.setTextAlign(Paint.Align.CENTER);
+        labelTextSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 12, getResources().getDisplayMetrics());
+
+        scaleDetector = new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(ScaleGestureDetector detector) {
+                zoomBy(detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY());
+                return true;
+            }
+        });
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(MotionEvent e) {
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(MotionEvent e1, @NonNull MotionEvent e2, float dx, float dy) {
+                if (scale <= fitScale) return false;
+                translateX -= dx;
+                translateY -= dy;
+                clampTranslation();
+                invalidate();
+                return true;
+            }
+
+            @Override
+            public boolean onSingleTapUp(@NonNull MotionEvent e) {
+                int index = seatAt(e.getX(), e.getY());
+                if (index < 0) return false;
+                performClick();
+                tapSeat(index);
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(@NonNull MotionEvent e) {
+                // Toggle between the fitted view and a readable zoom around the tap
+                float target = scale > fitScale * 1.01f ? fitScale : Math.max(fitScale * 2f, 1f);
+                zoomBy(target / scale, e.getX(), e.getY());
+                return true;
+            }
+        });
+        accessibility = new SeatAccessibility();
+        ViewCompat.setAccessibilityDelegate(this, accessibility);
+    }
+
+    void setOnSeatTapListener(OnSeatTapListener listener) {
+        this.listener = listener;
+    }
+
+    /** Shows a new map (e.g. after a reload); keeps the zoom if the hall size is unchanged. */
+    void setSeatMap(SeatMap map) {
+        boolean sameShape = seatMap != null && map != null
+                && seatMap.rows() == map.rows() && seatMap.cols() == map.cols();
+        seatMap = map;
+        if (!sameShape) {
+            scale = 0f; // refit on next layout
+            requestLayout();
+        }
+        invalidate();
+        accessibility.invalidateRoot();
+    }
+
+    /** Redraws one seat after its state changed in the map. */
+    void invalidateSeat(int index) {
+        if (seatMap == null || index < 0 || index >= seatMap.capacity()) return;
+        seatBounds(index, seatRect);
+        seatRect.roundOut(dirty);
+        dirty.inset(-1, -1);
+        invalidate(dirty);
+        accessibility.invalidateVirtualView(index);
+    }
+
+    private float contentWidth() {
+        return seatMap == null ? 0 : seatMap.cols() * (seatSize + seatGap) - seatGap;
+    }
+
+    private float contentHeight() {
+        return seatMap == null ? 0 : seatMap.rows() * (seatSize + seatGap) - seatGap;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int padH = getPaddingLeft() + getPaddingRight();
+        int padV = getPaddingTop() + getPaddingBottom();
+        int width = resolveSize((int) Math.ceil(contentWidth()) + padH, widthMeasureSpec);
+        float fit = contentWidth() > 0 ? Math.min(1f, (width - padH) / contentWidth()) : 1f;
+        // Height follows the fitted width, so a wide hall does not leave a tall empty band
+        int height = resolveSize((int) Math.ceil(contentHeight() * fit) + padV, heightMeasureSpec);
+        setMeasuredDimension(width, height);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        scale = 0f;
+        fit();
+    }
+
+    private void fit() {
+        float availW = getWidth() - getPaddingLeft() - getPaddingRight();
+        float availH = getHeight() - getPaddingTop() - getPaddingBottom();
+        if (seatMap == null || availW <= 0 || availH <= 0) return;
+        fitScale = Math.min(1f, Math.min(availW / contentWidth(), availH / contentHeight()));
+        if (scale < fitScale) {
+            scale = fitScale;
+            translateX = 0;
+            translateY = 0;
+        }
+        clampTranslation();
+    }
+
+    private void zoomBy(float factor, float focusX, float focusY) {
+        float next = Math.max(fitScale, Math.min(scale * factor, MAX_ZOOM));
+        float applied = next / scale;
+        // Keep the content point under the focus fixed
+        float fx = focusX - getPaddingLeft();
+        float fy = focusY - getPaddingTop();
+        translateX = fx - (fx - translateX) * applied;
+        translateY = fy - (fy - translateY) * applied;
+        scale = next;
+        clampTranslation();
+        invalidate();
+    }
+
+    // Centers content smaller than the view and keeps larger content covering it
+    private void clampTranslation() {
+        float availW = getWidth() - getPaddingLeft() - getPaddingRight();
+        float availH = getHeight() - getPaddingTop() - getPaddingBottom();
+        translateX = clampAxis(translateX, contentWidth() * scale, availW);
+        translateY = clampAxis(translateY, contentHeight() * scale, availH);
+    }
+
+    private static float clampAxis(float t, float content, float avail) {
+        if (content <= avail) return (avail - content) / 2f;
+        return Math.max(avail - content, Math.min(0f, t));
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        if (seatMap == null) return;
+        if (scale <= 0f) fit();
+        if (scale <= 0f) return;
+
+        canvas.getClipBounds(clip);
+        float pitch = (seatSize + seatGap) * scale;
+        float originX = getPaddingLeft() + translateX;
+        float originY = getPaddingTop() + translateY;
+        // Only rows and columns that intersect the clip
+        int firstCol = Math.max(0, (int) Math.floor((clip.left - originX) / pitch));
+        int lastCol = Math.min(seatMap.cols() - 1, (int) Math.floor((clip.right - originX) / pitch));
+        int firstRow = Math.max(0, (int) Math.floor((clip.top - originY) / pitch));
+        int lastRow = Math.min(seatMap.rows() - 1, (int) Math.floor((clip.bottom - originY) / pitch));
+
+        boolean labels = seatSize * scale >= minLabelSize;
+        if (labels) labelPaint.setTextSize(labelTextSize * Math.min(scale, 2f));
+        float textOffset = (labelPaint.descent() + labelPaint.ascent()) / 2f;
+        float radius = corner * scale;
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int index = seatMap.indexOf(row, col);
+                seatBounds(index, seatRect);
+                seatPaint.setColor(colorFor(seatMap.state(index)));
+                canvas.drawRoundRect(seatRect, radius, radius, seatPaint);
+                if (labels) {
+                    canvas.drawText(seatMap.labelOf(index), seatRect.centerX(), seatRect.centerY() - textOffset, labelPaint);
+                }
+            }
+        }
+    }
+
+    static int colorFor(int state) {
+        switch (state) {
+            case SeatMap.STATE_SOLD: return COLOR_SOLD;
+            case SeatMap.STATE_HELD: return COLOR_HELD;
+            case SeatMap.STATE_SELECTED: return COLOR_SELECTED;
+            default: return COLOR_AVAILABLE;
+        }
+    }
+
+    // Seat rectangle in view coordinates
+    private void seatBounds(int index, RectF out) {
+        float pitch = (seatSize + seatGap) * scale;
+        float left = getPaddingLeft() + translateX + seatMap.colOf(index) * pitch;
+        float top = getPaddingTop() + translateY + seatMap.rowOf(index) * pitch;
+        out.set(left, top, left + seatSize * scale, top + seatSize * scale);
+    }
+
+    /** Seat index under a view coordinate, or -1 outside the map. Gaps count towards the nearest seat. */
+    int seatAt(float x, float y) {
+        if (seatMap == null || scale <= 0f) return -1;
+        float pitch = seatSize + seatGap;
+        float half = seatGap / 2f;
+        float cx = (x - getPaddingLeft() - translateX) / scale + half;
+        float cy = (y - getPaddingTop() - translateY) / scale + half;
+        if (cx < 0 || cy < 0) return -1;
+        return seatMap.indexOf((int) (cy / pitch), (int) (cx / pitch));
+    }
+
+    private void tapSeat(int index) {
+        if (listener != null) listener.onSeatTapped(index);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        boolean handled = scaleDetector.onTouchEvent(event);
+        handled |= gestureDetector.onTouchEvent(event);
+        // While zoomed in, panning belongs to this view rather than the enclosing ScrollView
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN || event.getPointerCount() > 1) {
+            getParent().requestDisallowInterceptTouchEvent(scale > fitScale || event.getPointerCount() > 1);
+        }
+        return handled || super.onTouchEvent(event);
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        return accessibility.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
+    }
+
+    private final class SeatAccessibility extends ExploreByTouchHelper {
+
+        SeatAccessibility() {
+            super(SeatMapView.this);
+        }
+
+        @Override
+        protected int getVirtualViewAt(float x, float y) {
+            int index = seatAt(x, y);
+            return index >= 0 ? index : INVALID_ID;
+        }
+
+        @Override
+        protected void getVisibleVirtualViews(List<Integer> ids) {
+            if (seatMap == null) return;
+            for (int i = 0; i < seatMap.capacity(); i++) ids.add(i);
+        }
+
+        @Override
+        protected void onPopulateNodeForVirtualView(int id, @NonNull AccessibilityNodeInfoCompat node) {
+            if (seatMap == null || id >= seatMap.capacity()) {
+                node.setContentDescription("");
+                node.setBoundsInParent(new Rect());
+                return;
+            }
+            int state = seatMap.state(id);
+            node.setContentDescription("Seat " + seatMap.labelOf(id) + ", " + describe(state));
+            seatBounds(id, seatRect);
+            Rect bounds = new Rect();
+            seatRect.roundOut(bounds);
+            node.setBoundsInParent(bounds);
+            if (state == SeatMap.STATE_AVAILABLE || state == SeatMap.STATE_SELECTED) {
+                node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+                node.setCheckable(true);
+                node.setChecked(state == SeatMap.STATE_SELECTED);
+            }
+        }
+
+        @Override
+        protected boolean onPerformActionForVirtualView(int id, int action, @Nullable Bundle arguments) {
+            if (action != AccessibilityNodeInfoCompat.ACTION_CLICK || seatMap == null || id >= seatMap.capacity()) return false;
+            tapSeat(id);
+            return true;
+        }
+
+        private String describe(int state) {
+            switch (state) {
+                case SeatMap.STATE_SOLD: return "sold";
+                case SeatMap.STATE_HELD: return "held";
+                case SeatMap.STATE_SELECTED: return "selected";
+                default: return "available";
+            }
+        }
+    }
+}
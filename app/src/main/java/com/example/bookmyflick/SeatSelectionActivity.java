@@ -1,13 +1,10 @@
 package com.example.bookmyflick;
 
-import android.graphics.Color;
 import android.os.Bundle;
-import android.view.Gravity;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
-import android.widget.GridLayout;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -16,13 +13,11 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 public class SeatSelectionActivity extends AppCompatActivity {
 
-    GridLayout seatLayout;
+    SeatMapView seatLayout;
     Button btnBookNow;
     EditText etSeatCount;
     TextView txtMovieName;
@@ -30,13 +25,22 @@ public class SeatSelectionActivity extends AppCompatActivity {
     String selectedDate;
     String selectedTheatre;
     String selectedTime;
-    int selectedSeats = 0;
     int maxSeatCount = 0;
+    // Best-seat suggestions for the current count, cycled through on repeated taps
+    private List<SeatAllocator.Block> bestBlocks = new ArrayList<>();
+    private int bestBlockIndex;
 
-    Set<Integer> soldSeatIndexes = new HashSet<>();
-    Set<String> selectedSeatLabels = new HashSet<>();
-    List<String> initiallyBookedSeatLabels = new ArrayList<>();
-    MovieDbHelper dbHelper;
+    SeatMap seatMap = SeatMap.standard();
+    MovieRepository repository;
+    private final MovieRepository.Scope requests = new MovieRepository.Scope();
+    // The Book Now hold; cancelled in onDestroy, not onStop, so leaving mid-hold cannot strand the button
+    private final MovieRepository.Scope holds = new MovieRepository.Scope();
+    String holdToken; // identifies this buyer's seat leases across the payment step
+    // Live updates: the show being watched and the last feed version applied to seatMap
+    private long showId = -1;
+    private long seatVersion;
+    private SeatAvailabilityFeed.Subscription seatWatch;
+    private boolean seatsLoaded; // false until a snapshot lands; onStop cancels one in flight
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -56,10 +60,13 @@ public class SeatSelectionActivity extends AppCompatActivity {
         selectedDate = getIntent().getStringExtra("date");
         selectedTheatre = getIntent().getStringExtra("theatre");
         selectedTime = getIntent().getStringExtra("time");
+        holdToken = savedInstanceState != null ? savedInstanceState.getString("holdToken") : null;
+        if (holdToken == null) holdToken = java.util.UUID.randomUUID().toString();
 
         txtMovieName = findViewById(R.id.txtMovieName);
         etSeatCount = findViewById(R.id.etSeatCount);
         seatLayout = findViewById(R.id.seatLayout);
+        seatLayout.setOnSeatTapListener(this::onSeatTapped);
         btnBookNow = findViewById(R.id.btnBookNow);
         btnBookNow.setEnabled(false);
 
@@ -72,16 +79,44 @@ public class SeatSelectionActivity extends AppCompatActivity {
         }
 
         createSeatStatusIndicators();
-        dbHelper = new MovieDbHelper(this);
-        loadSoldSeats();
+        repository = MovieRepository.get(this);
         btnBookNow.setOnClickListener(v -> onBookNowClicked());
+        findViewById(R.id.btnBestSeats).setOnClickListener(v -> onBestSeatsClicked());
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString("holdToken", holdToken);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // Catch up on whatever changed while the screen was stopped
+        if (!seatsLoaded) loadSoldSeats();
+        else if (showId >= 0 && seatWatch == null) watchSeats();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        requests.cancelAll();
+        stopWatchingSeats();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        holds.cancelAll();
     }
 
     private void createSeatStatusIndicators() {
         LinearLayout statusLayout = findViewById(R.id.seatStatusLayout);
-        addStatusIndicator(statusLayout, 0xFF2E7D32, "Selected"); // green
-        addStatusIndicator(statusLayout, 0xFFC62828, "Sold");     // red
-        addStatusIndicator(statusLayout, 0xFF9E9E9E, "Available"); // gray
+        addStatusIndicator(statusLayout, SeatMapView.COLOR_SELECTED, "Selected");
+        addStatusIndicator(statusLayout, SeatMapView.COLOR_SOLD, "Sold");
+        addStatusIndicator(statusLayout, SeatMapView.COLOR_HELD, "Held");
+        addStatusIndicator(statusLayout, SeatMapView.COLOR_AVAILABLE, "Available");
     }
 
     private void addStatusIndicator(LinearLayout layout, int color, String label) {
@@ -104,89 +139,143 @@ public class SeatSelectionActivity extends AppCompatActivity {
     }
 
     private void loadSoldSeats() {
-        soldSeatIndexes.clear();
-        initiallyBookedSeatLabels.clear();
+        stopWatchingSeats();
+        seatsLoaded = false;
         if (selectedMovie != null && selectedDate != null && selectedTheatre != null && selectedTime != null) {
-            initiallyBookedSeatLabels = dbHelper.getBookedSeats(selectedMovie, selectedDate, selectedTheatre, selectedTime);
+            requests.add(repository.loadSeatSnapshot(selectedMovie, selectedDate, selectedTheatre, selectedTime, holdToken, snapshot -> {
+                seatMap = snapshot.map;
+                showId = snapshot.showId;
+                seatVersion = snapshot.version;
+                seatsLoaded = true;
+                createSeats();
+                updateBookNowEnabled();
+                if (showId >= 0) watchSeats();
+            }));
+        } else {
+            seatMap = SeatMap.standard();
+            seatsLoaded = true;
+            createSeats();
         }
-        createSeats();
     }
 
-    private void createSeats() {
-        int rows = 8;
-        int cols = 7;
-        char[] rowLetters = {'A', 'B', 'C', 'D', 'E', 'F', 'G', 'H'};
-
-        seatLayout.removeAllViews();
-        for (int i = 0; i < rows * cols; i++) {
-            int row = i / cols;
-            int col = i % cols;
-
-            GridLayout.LayoutParams params = new GridLayout.LayoutParams(
-                    GridLayout.spec(row), GridLayout.spec(col)
-            );
-            int seatSize = dpToPx(36);
-            int seatMargin = dpToPx(6);
-            params.width = seatSize;
-            params.height = seatSize;
-            params.setMargins(seatMargin, seatMargin, seatMargin, seatMargin);
-
-            TextView seat = new TextView(this);
-            seat.setLayoutParams(params);
-            seat.setGravity(Gravity.CENTER);
-            seat.setTextSize(12);
-            seat.setTextColor(Color.WHITE);
-
-            String seatLabel = rowLetters[row] + String.valueOf(col + 1);
-            seat.setText(seatLabel);
-            seat.setContentDescription("Seat " + seatLabel);
-
-            boolean isBooked = initiallyBookedSeatLabels.contains(seatLabel);
-            if (isBooked) {
-                seat.setBackgroundColor(0xFFC62828); // red
-                seat.setEnabled(false);
-            } else {
-                seat.setBackgroundColor(0xFF9E9E9E); // gray available
-                seat.setPadding(8, 8, 8, 8);
-
-                final boolean[] isSelected = {false};
-                seat.setOnClickListener(v -> {
-                    String input = etSeatCount.getText().toString().trim();
-                    if (input.isEmpty()) {
-                        Toast.makeText(this, "Please enter seat count first", Toast.LENGTH_SHORT).show();
-                        return;
-                    }
-                    maxSeatCount = Integer.parseInt(input);
-                    if (isSelected[0]) {
-                        seat.setBackgroundColor(0xFF9E9E9E);
-                        isSelected[0] = false;
-                        selectedSeats--;
-                        selectedSeatLabels.remove(seatLabel);
-                    } else {
-                        if (selectedSeats >= maxSeatCount) {
-                            Toast.makeText(this, "Max " + maxSeatCount + " seats", Toast.LENGTH_SHORT).show();
-                            return;
-                        }
-                        seat.setBackgroundColor(0xFF2E7D32); // green
-                        isSelected[0] = true;
-                        selectedSeats++;
-                        selectedSeatLabels.add(seatLabel);
+    private void watchSeats() {
+        seatWatch = repository.watchSeats(showId, seatVersion, new SeatAvailabilityFeed.Listener() {
+            @Override
+            public void onSeatChanges(long version, List<SeatAvailabilityFeed.SeatChange> changes) {
+                applySeatChanges(version, changes);
+            }
+
+            @Override
+            public void onReset() {
+                loadSoldSeats();
+            }
+        });
+    }
+
+    private void stopWatchingSeats() {
+        if (seatWatch != null) seatWatch.close();
+        seatWatch = null;
+    }
+
+    // Applies other buyers' bookings and holds in place; seats we had picked that are gone get dropped
+    private void applySeatChanges(long version, List<SeatAvailabilityFeed.SeatChange> changes) {
+        if (version <= seatVersion) return;
+        seatVersion = version;
+        List<String> lost = new ArrayList<>();
+        for (SeatAvailabilityFeed.SeatChange change : changes) {
+            int index = change.seat;
+            if (index >= seatMap.capacity()) continue;
+            switch (change.kind) {
+                case SeatAvailabilityFeed.SOLD:
+                    if (seatMap.isSold(index)) continue;
+                    if (seatMap.isSelected(index)) lost.add(seatMap.labelOf(index));
+                    seatMap.markSold(index);
+                    break;
+                case SeatAvailabilityFeed.HELD:
+                    if (holdToken.equals(change.holder) || seatMap.isHeld(index)) continue;
+                    if (seatMap.isSelected(index)) {
+                        lost.add(seatMap.labelOf(index));
+                        seatMap.deselect(index);
                     }
-                    updateBookNowEnabled();
-                });
+                    seatMap.setHeld(index, true);
+                    break;
+                case SeatAvailabilityFeed.RELEASED:
+                    if (!seatMap.isHeld(index)) continue;
+                    seatMap.setHeld(index, false);
+                    break;
+                default:
+                    continue;
+            }
+            seatLayout.invalidateSeat(index);
+        }
+        if (!lost.isEmpty()) {
+            Toast.makeText(this, "Just taken by someone else: " + String.join(", ", lost), Toast.LENGTH_SHORT).show();
+            updateBookNowEnabled();
+        }
+    }
+
+    private void createSeats() {
+        seatLayout.setSeatMap(seatMap);
+    }
+
+    private void onSeatTapped(int index) {
+        if (!seatMap.isFree(index)) return;
+        String input = etSeatCount.getText().toString().trim();
+        if (input.isEmpty()) {
+            Toast.makeText(this, "Please enter seat count first", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        maxSeatCount = Integer.parseInt(input);
+        if (seatMap.isSelected(index)) {
+            seatMap.deselect(index);
+        } else {
+            if (seatMap.selectedCount() >= maxSeatCount) {
+                Toast.makeText(this, "Max " + maxSeatCount + " seats", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            if (!seatMap.select(index)) return;
+        }
+        seatLayout.invalidateSeat(index);
+        updateBookNowEnabled();
+    }
+
+    private void onBestSeatsClicked() {
+        String input = etSeatCount.getText().toString().trim();
+        if (input.isEmpty()) {
+            Toast.makeText(this, "Please enter seat count first", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        int count = Integer.parseInt(input);
+        if (count != maxSeatCount) bestBlocks = new ArrayList<>();
+        maxSeatCount = count;
+        // Next suggestion in the cycle; suggestions can go stale as the live feed marks seats taken
+        if (!applyNextBestBlock()) {
+            bestBlocks = SeatAllocator.allocate(seatMap, count, 4);
+            bestBlockIndex = 0;
+            if (!applyNextBestBlock()) {
+                Toast.makeText(this, "No " + count + " seats together; pick them on the map", Toast.LENGTH_SHORT).show();
             }
+        }
+        updateBookNowEnabled();
+    }
 
-            seatLayout.addView(seat);
+    private boolean applyNextBestBlock() {
+        while (bestBlockIndex < bestBlocks.size()) {
+            if (applyBlock(bestBlocks.get(bestBlockIndex++))) return true;
         }
+        return false;
     }
 
-    private int dpToPx(int dp) {
-        float density = getResources().getDisplayMetrics().density;
-        return Math.round(dp * density);
+    private boolean applyBlock(SeatAllocator.Block block) {
+        int[] previous = seatMap.selectedIndexes();
+        if (!SeatAllocator.apply(seatMap, block)) return false;
+        for (int index : previous) seatLayout.invalidateSeat(index);
+        for (int index : block.seats(seatMap)) seatLayout.invalidateSeat(index);
+        return true;
     }
 
     private void updateBookNowEnabled() {
-        boolean enable = maxSeatCount > 0 && selectedSeats == maxSeatCount;
+        boolean enable = maxSeatCount > 0 && seatMap.selectedCount() == maxSeatCount;
         btnBookNow.setEnabled(enable);
     }
 
@@ -195,11 +284,11 @@ public class SeatSelectionActivity extends AppCompatActivity {
             Toast.makeText(this, "Enter seat count first", Toast.LENGTH_SHORT).show();
             return;
         }
-        if (selectedSeats != maxSeatCount) {
+        if (seatMap.selectedCount() != maxSeatCount) {
             Toast.makeText(this, "Select exactly " + maxSeatCount + " seats", Toast.LENGTH_SHORT).show();
             return;
         }
-        String seats = String.join(", ", new ArrayList<>(selectedSeatLabels));
+        String seats = String.join(", ", seatMap.selectedLabels());
         StringBuilder message = new StringBuilder();
         message.append("Movie: ").append(selectedMovie != null ? selectedMovie : "-").append('\n');
         message.append("Date: ").append(selectedDate != null ? selectedDate : "-").append('\n');
@@ -210,14 +299,36 @@ public class SeatSelectionActivity extends AppCompatActivity {
                 .setTitle("Proceed to payment")
                 .setMessage(message.toString())
                 .setPositiveButton("Proceed", (dialog, which) -> {
-                    android.content.Intent intent = new android.content.Intent(this, TicketWalletActivity.class);
-                    intent.putExtra("movie", selectedMovie);
-                    intent.putExtra("date", selectedDate);
-                    intent.putExtra("theatre", selectedTheatre);
-                    intent.putExtra("time", selectedTime);
-                    intent.putExtra("seats", seats);
-                    intent.putExtra("seatCount", maxSeatCount);
-                    startActivity(intent);
+                    btnBookNow.setEnabled(false);
+                    holds.add(repository.holdSeats(selectedMovie, selectedDate, selectedTheatre, selectedTime,
+                            seatMap.selectedLabels(), holdToken, new MovieRepository.Callback<List<String>>() {
+                                @Override
+                                public void onResult(List<String> lost) {
+                                    if (!lost.isEmpty()) {
+                                        Toast.makeText(SeatSelectionActivity.this, "Seats no longer available: " + String.join(", ", lost), Toast.LENGTH_LONG).show();
+                                        maxSeatCount = 0;
+                                        loadSoldSeats();
+                                        return;
+                                    }
+                                    updateBookNowEnabled();
+                                    android.content.Intent intent = new android.content.Intent(SeatSelectionActivity.this, TicketWalletActivity.class);
+                                    intent.putExtra("movie", selectedMovie);
+                                    intent.putExtra("date", selectedDate);
+                                    intent.putExtra("theatre", selectedTheatre);
+                                    intent.putExtra("time", selectedTime);
+                                    intent.putExtra("seats", seats);
+                                    intent.putExtra("seatCount", maxSeatCount);
+                                    intent.putExtra("holdToken", holdToken);
+                                    startActivity(intent);
+                                }
+
+                                @Override
+                                public void onError(Exception e) {
+                                    MovieRepository.Callback.super.onError(e);
+                                    updateBookNowEnabled();
+                                    Toast.makeText(SeatSelectionActivity.this, "Could not hold the seats, please try again", Toast.LENGTH_LONG).show();
+                                }
+                            }));
                 })
                 .setNegativeButton("Cancel", (dialog, which) -> dialog.dismiss())
                 .show();
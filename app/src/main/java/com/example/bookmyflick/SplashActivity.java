@@ -8,6 +8,12 @@ import androidx.appcompat.app.AppCompatActivity;
 
 public class SplashActivity extends AppCompatActivity {
 
+	// Home loads its own data anyway; past this the tap is not kept waiting on the warm-up
+	private static final long HOME_WAIT_MS = 3_000;
+
+	private boolean homeOpened;
+	private final Runnable openHome = this::openHome;
+
 	@Override
 	protected void onCreate(Bundle savedInstanceState) {
 		super.onCreate(savedInstanceState);
@@ -15,12 +21,28 @@ public class SplashActivity extends AppCompatActivity {
 
 		ImageButton nextBtn = findViewById(R.id.splash_imageButton3);
 
+		// AppStartup is loading Home's data meanwhile; Home opens once it is ready so its
+		// rails and first posters are there on the first frame
 		nextBtn.setOnClickListener(v -> {
-			Intent intent = new Intent(SplashActivity.this, MainActivity.class);
-			startActivity(intent);
-			finish();
+			nextBtn.setEnabled(false);
+			AppStartup.get(this).whenHomeReady(openHome);
+			AppExecutors.get().postToMainDelayed(openHome, HOME_WAIT_MS);
 		});
 	}
-}
 
+	@Override
+	protected void onDestroy() {
+		super.onDestroy();
+		AppExecutors.get().removeFromMain(openHome);
+	}
 
+	// Main thread; whichever of the ready callback and the timeout comes first wins
+	private void openHome() {
+		if (homeOpened || isFinishing() || isDestroyed()) return;
+		homeOpened = true;
+		AppExecutors.get().removeFromMain(openHome);
+		Intent intent = new Intent(SplashActivity.this, MainActivity.class);
+		startActivity(intent);
+		finish();
+	}
+}
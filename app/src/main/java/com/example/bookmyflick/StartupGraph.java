@@ -0,0 +1,146 @@
+package com.example.bookmyflick;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs named startup steps, each on its own executor, as soon as every step it depends on
+ * has finished, so independent steps overlap. Steps are warm-ups the app would otherwise
+ * do lazily: one that throws is reported to the {@link Listener} and still counts as
+ * finished, so its dependents run and redo what they need. Plain Java so it can be tested
+ * on the JVM.
+ */
+final class StartupGraph {
+
+    /** Called on the step's thread as each step ends; {@code error} is null on success. */
+    interface Listener {
+        void onStepFinished(String name, long elapsedMs, Throwable error);
+    }
+
+    private static final class Step {
+        final String name;
+        final Executor executor;
+        final Runnable work;
+        final String[] dependsOn;
+        final List<Step> dependents = new ArrayList<>();
+        final List<Runnable> callbacks = new ArrayList<>();
+        int waitingFor;
+        boolean finished;
+
+        Step(String name, Executor executor, Runnable work, String[] dependsOn) {
+            this.name = name;
+            this.executor = executor;
+            this.work = work;
+            this.dependsOn = dependsOn;
+        }
+    }
+
+    private final Listener listener;
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+    private boolean started;
+
+    StartupGraph(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Adds a step; every step it names must be added before {@link #start}. */
+    synchronized StartupGraph add(String name, Executor executor, Runnable work, String... dependsOn) {
+        if (started) throw new IllegalStateException("Graph already started");
+        if (steps.containsKey(name)) throw new IllegalArgumentException("Duplicate step " + name);
+        steps.put(name, new Step(name, executor, work, dependsOn));
+        return this;
+    }
+
+    /**
+     * Submits the steps with no dependencies; the rest follow as they become ready.
+     * Throws when a dependency is missing or the steps form a cycle. Later calls do nothing.
+     */
+    void start() {
+        List<Step> ready = new ArrayList<>();
+        synchronized (this) {
+            if (started) return;
+            for (Step step : steps.values()) {
+                for (String name : step.dependsOn) {
+                    if (!steps.containsKey(name)) throw new IllegalStateException(step.name + " depends on unknown step " + name);
+                }
+            }
+            for (Step step : steps.values()) {
+                for (String name : step.dependsOn) steps.get(name).dependents.add(step);
+                step.waitingFor = step.dependsOn.length;
+                if (step.waitingFor == 0) ready.add(step);
+            }
+            checkAcyclic(ready);
+            started = true;
+        }
+        for (Step step : ready) submit(step);
+    }
+
+    /** Runs {@code callback} on {@code executor} once the step has finished, straight away if it already has. */
+    void whenFinished(String name, Executor executor, Runnable callback) {
+        Runnable onExecutor = () -> executor.execute(callback);
+        synchronized (this) {
+            Step step = steps.get(name);
+            if (step == null) throw new IllegalArgumentException("Unknown step " + name);
+            if (!step.finished) {
+                step.callbacks.add(onExecutor);
+                return;
+            }
+        }
+        onExecutor.run();
+    }
+
+    synchronized boolean isFinished(String name) {
+        Step step = steps.get(name);
+        return step != null && step.finished;
+    }
+
+    private void submit(Step step) {
+        step.executor.execute(() -> {
+            long start = System.nanoTime();
+            Throwable error = null;
+            try {
+                step.work.run();
+            } catch (Throwable e) {
+                error = e; // Errors too, or the dependents and callbacks waiting on this step never run
+            }
+            finish(step, (System.nanoTime() - start) / 1_000_000, error);
+        });
+    }
+
+    private void finish(Step step, long elapsedMs, Throwable error) {
+        List<Step> ready = new ArrayList<>();
+        List<Runnable> callbacks;
+        synchronized (this) {
+            step.finished = true;
+            callbacks = new ArrayList<>(step.callbacks);
+            step.callbacks.clear();
+            for (Step dependent : step.dependents) {
+                if (--dependent.waitingFor == 0) ready.add(dependent);
+            }
+        }
+        if (listener != null) listener.onStepFinished(step.name, elapsedMs, error);
+        for (Runnable r : callbacks) r.run();
+        for (Step next : ready) submit(next);
+    }
+
+    // Kahn's algorithm over a copy of the counts; steps left over sit on a cycle
+    private void checkAcyclic(List<Step> roots) {
+        Map<Step, Integer> waiting = new LinkedHashMap<>();
+        for (Step step : steps.values()) waiting.put(step, step.waitingFor);
+        List<Step> queue = new ArrayList<>(roots);
+        int reached = 0;
+        while (!queue.isEmpty()) {
+            Step step = queue.remove(queue.size() - 1);
+            reached++;
+            for (Step dependent : step.dependents) {
+                int left = waiting.get(dependent) - 1;
+                waiting.put(dependent, left);
+                if (left == 0) queue.add(dependent);
+            }
+        }
+        if (reached != steps.size()) throw new IllegalStateException("Startup steps form a cycle");
+    }
+}
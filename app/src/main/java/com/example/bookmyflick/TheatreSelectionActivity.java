@@ -7,17 +7,16 @@ import android.widget.Button;
 import android.widget.ExpandableListView;
 import android.widget.SimpleExpandableListAdapter;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.ActionBar;
 import androidx.appcompat.app.AppCompatActivity;
 
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 
 public class TheatreSelectionActivity extends AppCompatActivity {
@@ -32,8 +31,10 @@ public class TheatreSelectionActivity extends AppCompatActivity {
 
     private String selectedDate = "";
     private String selectedMovie = "";
+    private boolean showsReady;
 
-    private MovieDbHelper db;
+    private MovieRepository repository;
+    private final MovieRepository.Scope requests = new MovieRepository.Scope();
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -47,9 +48,7 @@ public class TheatreSelectionActivity extends AppCompatActivity {
         android.view.View backArrow = findViewById(R.id.ivBackArrow);
         if (backArrow != null) backArrow.setOnClickListener(v -> onBackPressed());
 
-        db = new MovieDbHelper(this);
-        db.seedTheatresIfEmpty();
-
+        repository = MovieRepository.get(this);
         selectedMovie = getIntent().getStringExtra("selectedMovie");
         TextView tvSelectedMovie = findViewById(R.id.tvSelectedMovie);
         if (tvSelectedMovie != null) {
@@ -71,6 +70,39 @@ public class TheatreSelectionActivity extends AppCompatActivity {
         });
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        // The movie's shows are generated up front, so picking a date only reads
+        if (!showsReady) {
+            requests.add(repository.ensureShows(selectedMovie, new MovieRepository.Callback<Integer>() {
+                @Override
+                public void onResult(Integer created) {
+                    onShowsReady();
+                }
+
+                // Shows generated earlier, or imported, can still be picked
+                @Override
+                public void onError(Exception e) {
+                    MovieRepository.Callback.super.onError(e);
+                    Toast.makeText(TheatreSelectionActivity.this, "Some show times could not be prepared", Toast.LENGTH_LONG).show();
+                    onShowsReady();
+                }
+            }));
+        }
+    }
+
+    private void onShowsReady() {
+        showsReady = true;
+        if (!selectedDate.isEmpty()) loadTheatres();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        requests.cancelAll();
+    }
+
     private void showDatePicker() {
         final Calendar calendar = Calendar.getInstance();
         DatePickerDialog dp = new DatePickerDialog(
@@ -78,15 +110,9 @@ public class TheatreSelectionActivity extends AppCompatActivity {
                 (view, year, month, dayOfMonth) -> {
                     Calendar sel = Calendar.getInstance();
                     sel.set(year, month, dayOfMonth);
-                    SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-                    selectedDate = sdf.format(sel.getTime());
+                    selectedDate = MovieDbHelper.showDateFormat().format(sel.getTime());
                     tvSelectedDate.setText("Selected Date: " + selectedDate);
-                    // Ensure shows exist then load theatres from DB
-                    new Thread(() -> {
-                        db.ensureShowsForMovieDate(selectedMovie, selectedDate);
-                        List<String> theatres = db.getTheatresForMovieAndDate(selectedMovie, selectedDate);
-                        runOnUiThread(() -> bindTheatres(theatres));
-                    }).start();
+                    if (showsReady) loadTheatres();
                 },
                 calendar.get(Calendar.YEAR),
                 calendar.get(Calendar.MONTH),
@@ -94,11 +120,15 @@ public class TheatreSelectionActivity extends AppCompatActivity {
         );
         dp.getDatePicker().setMinDate(System.currentTimeMillis() - 1000);
         Calendar max = Calendar.getInstance();
-        max.add(Calendar.MONTH, 3);
+        max.add(Calendar.MONTH, MovieDbHelper.SHOW_HORIZON_MONTHS);
         dp.getDatePicker().setMaxDate(max.getTimeInMillis());
         dp.show();
     }
 
+    private void loadTheatres() {
+        requests.add(repository.getTheatresForMovieAndDate(selectedMovie, selectedDate, this::bindTheatres));
+    }
+
     private void bindTheatres(List<String> theatres) {
         currentTheatres = theatres == null ? new ArrayList<>() : theatres;
         groupData = buildGroupData(currentTheatres);
@@ -122,8 +152,7 @@ public class TheatreSelectionActivity extends AppCompatActivity {
             if (childData.get(groupPosition).isEmpty()) {
                 String theatre = currentTheatres.get(groupPosition);
                 // Load times from DB
-                new Thread(() -> {
-                    List<String> times = db.getShowTimes(selectedMovie, selectedDate, theatre);
+                requests.add(repository.getShowTimes(selectedMovie, selectedDate, theatre, times -> {
                     List<Map<String, String>> rows = new ArrayList<>();
                     if (times != null && !times.isEmpty()) {
                         for (String t : times) {
@@ -136,11 +165,9 @@ public class TheatreSelectionActivity extends AppCompatActivity {
                         map.put("TIME", "No show times");
                         rows.add(map);
                     }
-                    runOnUiThread(() -> {
-                        childData.set(groupPosition, rows);
-                        adapter.notifyDataSetChanged();
-                    });
-                }).start();
+                    childData.set(groupPosition, rows);
+                    adapter.notifyDataSetChanged();
+                }));
             }
         });
         elvTheatres.setOnChildClickListener((parent, v, groupPosition, childPosition, id) -> {
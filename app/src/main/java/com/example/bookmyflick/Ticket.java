@@ -0,0 +1,48 @@
+package com.example.bookmyflick;
+
+/**
+ * Immutable view of a saved payment joined with its show, as displayed on ticket screens.
+ */
+public class Ticket {
+    private final long id;
+    private final String orderId;
+    private final String movie;
+    private final String date;
+    private final String theatre;
+    private final String time;
+    private final String seats;
+    private final int amount;
+    private final String email;
+    private final String phone;
+    private final String createdAt;
+    private final int posterResId; // 0 when the movie has no poster
+
+    public Ticket(long id, String orderId, String movie, String date, String theatre, String time, String seats,
+                  int amount, String email, String phone, String createdAt, int posterResId) {
+        this.id = id;
+        this.orderId = orderId;
+        this.movie = movie;
+        this.date = date;
+        this.theatre = theatre;
+        this.time = time;
+        this.seats = seats;
+        this.amount = amount;
+        this.email = email;
+        this.phone = phone;
+        this.createdAt = createdAt;
+        this.posterResId = posterResId;
+    }
+
+    public long getId() { return id; }
+    public String getOrderId() { return orderId; }
+    public String getMovie() { return movie; }
+    public String getDate() { return date; }
+    public String getTheatre() { return theatre; }
+    public String getTime() { return time; }
+    public String getSeats() { return seats; }
+    public int getAmount() { return amount; }
+    public String getEmail() { return email; }
+    public String getPhone() { return phone; }
+    public String getCreatedAt() { return createdAt; }
+    public int getPosterResId() { return posterResId; }
+}
@@ -0,0 +1,57 @@
+package com.example.bookmyflick;
+
+import android.os.Bundle;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Every ticket booked with one email (or phone number), newest first.
+ * Start it with an "email" or "phone" extra.
+ */
+public class TicketHistoryActivity extends AppCompatActivity {
+
+    private final MovieRepository.Scope requests = new MovieRepository.Scope();
+    private TicketHistoryAdapter adapter;
+    private TextView emptyView;
+
+    @Override
+    protected void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_ticket_history);
+        MovieRepository repository = MovieRepository.get(this);
+
+        String email = getIntent().getStringExtra("email");
+        String phone = getIntent().getStringExtra("phone");
+        TicketHistoryAdapter.PageSource source = email != null
+                ? (beforeId, limit, cb) -> repository.getTicketsByEmail(email, beforeId, limit, cb)
+                : (beforeId, limit, cb) -> repository.getTicketsByPhone(phone, beforeId, limit, cb);
+
+        emptyView = findViewById(R.id.ticket_history_empty);
+        RecyclerView list = findViewById(R.id.recycler_ticket_history);
+        list.setLayoutManager(new LinearLayoutManager(this));
+        adapter = new TicketHistoryAdapter(this, source, requests, (count, exhausted) ->
+                emptyView.setVisibility(count == 0 && exhausted ? View.VISIBLE : View.GONE));
+        list.setAdapter(adapter);
+
+        View back = findViewById(R.id.btn_back);
+        if (back != null) back.setOnClickListener(v -> finish());
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        adapter.resume();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        requests.cancelAll();
+        adapter.onRequestsCancelled();
+    }
+}
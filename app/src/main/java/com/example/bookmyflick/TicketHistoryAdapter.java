@@ -0,0 +1,148 @@
+package com.example.bookmyflick;
+
+import android.content.Context;
+import android.content.Intent;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ticket history rows, newest first, fetched a page at a time as the list nears its end.
+ * Each page continues below the id of the last ticket shown (keyset paging), so a page
+ * costs the same however deep the user has scrolled. Posters load when a row binds.
+ */
+final class TicketHistoryAdapter extends RecyclerView.Adapter<TicketHistoryAdapter.TicketViewHolder> {
+
+    static final int PAGE_SIZE = 20;
+    // Start the next page while this many rows are still below the one being bound
+    private static final int LOAD_AHEAD = 5;
+
+    /** Fetches up to {@code limit} tickets with ids below {@code beforeId}, newest first. */
+    interface PageSource {
+        MovieRepository.Request load(long beforeId, int limit, MovieRepository.Callback<List<Ticket>> cb);
+    }
+
+    /** Told after every page so the screen can show its empty state. */
+    interface Listener {
+        void onPageLoaded(int totalCount, boolean exhausted);
+    }
+
+    private final Context context;
+    private final PageSource source;
+    private final MovieRepository.Scope requests;
+    private final Listener listener;
+    private final PosterLoader posters;
+    private final List<Ticket> tickets = new ArrayList<>();
+
+    private boolean loading;
+    private boolean interrupted; // a page was in flight when the screen stopped
+    private boolean exhausted;
+
+    TicketHistoryAdapter(Context context, PageSource source, MovieRepository.Scope requests, Listener listener) {
+        this.context = context;
+        this.source = source;
+        this.requests = requests;
+        this.listener = listener;
+        this.posters = PosterLoader.get(context);
+        setHasStableIds(true);
+    }
+
+    /** Loads the next page unless one is in flight or the history has run out. */
+    void loadMore() {
+        if (loading || exhausted) return;
+        loading = true;
+        long beforeId = tickets.isEmpty() ? Long.MAX_VALUE : tickets.get(tickets.size() - 1).getId();
+        requests.add(source.load(beforeId, PAGE_SIZE, new MovieRepository.Callback<List<Ticket>>() {
+            @Override
+            public void onResult(List<Ticket> page) {
+                loading = false;
+                exhausted = page.size() < PAGE_SIZE;
+                int start = tickets.size();
+                tickets.addAll(page);
+                notifyItemRangeInserted(start, page.size());
+                if (listener != null) listener.onPageLoaded(tickets.size(), exhausted);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                MovieRepository.Callback.super.onError(e);
+                loading = false; // the next bind near the end retries
+            }
+        }));
+    }
+
+    /** Call after cancelling the screen's requests; a page that was in flight is dropped. */
+    void onRequestsCancelled() {
+        interrupted = loading;
+        loading = false;
+    }
+
+    /** Fetches the first page, or again the page dropped when the screen last stopped. */
+    void resume() {
+        if (tickets.isEmpty() || interrupted) {
+            interrupted = false;
+            loadMore();
+        }
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return tickets.get(position).getId();
+    }
+
+    @NonNull
+    @Override
+    public TicketViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(context).inflate(R.layout.item_ticket, parent, false);
+        return new TicketViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull TicketViewHolder holder, int position) {
+        Ticket ticket = tickets.get(position);
+        posters.load(holder.poster, ticket.getPosterResId(), R.drawable.ic_launcher_foreground);
+        holder.movie.setText(ticket.getMovie());
+        holder.show.setText(ticket.getTheatre() + " · " + ticket.getDate() + " " + ticket.getTime());
+        holder.seats.setText(ticket.getSeats());
+        holder.order.setText(ticket.getOrderId() + "  ·  Rs. " + ticket.getAmount());
+        holder.itemView.setOnClickListener(v -> {
+            Intent details = new Intent(context, DetailActivity.class);
+            details.putExtra("orderId", ticket.getOrderId());
+            context.startActivity(details);
+        });
+
+        if (position >= tickets.size() - LOAD_AHEAD) loadMore();
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull TicketViewHolder holder) {
+        posters.cancel(holder.poster);
+    }
+
+    @Override
+    public int getItemCount() {
+        return tickets.size();
+    }
+
+    static class TicketViewHolder extends RecyclerView.ViewHolder {
+        final ImageView poster;
+        final TextView movie, show, seats, order;
+
+        TicketViewHolder(@NonNull View itemView) {
+            super(itemView);
+            poster = itemView.findViewById(R.id.ticket_poster);
+            movie = itemView.findViewById(R.id.ticket_movie);
+            show = itemView.findViewById(R.id.ticket_show);
+            seats = itemView.findViewById(R.id.ticket_seats);
+            order = itemView.findViewById(R.id.ticket_order);
+        }
+    }
+}
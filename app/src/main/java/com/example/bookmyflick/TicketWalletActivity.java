@@ -13,6 +13,7 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 
 public class TicketWalletActivity extends AppCompatActivity {
 
@@ -24,13 +25,18 @@ public class TicketWalletActivity extends AppCompatActivity {
 
     String selectedMovie, selectedDate, selectedTheatre, selectedTime;
     List<String> selectedSeats;
-    MovieDbHelper dbHelper;
+    String holdToken;
+    // Same key for every attempt on this screen, so a retried tap can't book or charge twice
+    String checkoutKey;
+    MovieRepository repository;
+    // Cancelled in onDestroy rather than onStop so a payment finishing in the background still navigates
+    private final MovieRepository.Scope requests = new MovieRepository.Scope();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_ticket_wallet);
-        dbHelper = new MovieDbHelper(this);
+        repository = MovieRepository.get(this);
 
         etEmail = findViewById(R.id.ticket_wallet_et_email);
         etPhone = findViewById(R.id.ticket_wallet_et_phone);
@@ -52,6 +58,9 @@ public class TicketWalletActivity extends AppCompatActivity {
         selectedTime = getIntent().getStringExtra("time");
         String seatsStr = getIntent().getStringExtra("seats");
         int seatCount = getIntent().getIntExtra("seatCount", 0);
+        holdToken = getIntent().getStringExtra("holdToken");
+        checkoutKey = savedInstanceState != null ? savedInstanceState.getString("checkoutKey") : null;
+        if (checkoutKey == null) checkoutKey = UUID.randomUUID().toString();
 
         if (seatsStr != null && !seatsStr.isEmpty()) {
             tvSeats.setText(seatsStr);
@@ -64,7 +73,12 @@ public class TicketWalletActivity extends AppCompatActivity {
             tvAmount.setText("Rs. 0");
         }
 
-        btnCancel.setOnClickListener(v -> finish());
+        btnCancel.setOnClickListener(v -> {
+            if (selectedMovie != null && selectedDate != null && selectedTheatre != null && selectedTime != null) {
+                repository.releaseHolds(selectedMovie, selectedDate, selectedTheatre, selectedTime, holdToken, null);
+            }
+            finish();
+        });
 
         btnPay.setOnClickListener(v -> {
             if (validateInputs()) {
@@ -72,35 +86,36 @@ public class TicketWalletActivity extends AppCompatActivity {
                         .setTitle("Payment Confirmation")
                         .setMessage("Proceed with payment?")
                         .setPositiveButton("Yes", (dialog, which) -> {
-                            // Persist bookings (mark seats as sold)
-                            if (selectedMovie != null && selectedDate != null && selectedTheatre != null && selectedTime != null && selectedSeats != null) {
-                                dbHelper.bookSeats(selectedMovie, selectedDate, selectedTheatre, selectedTime, selectedSeats);
-                                // Persist payment details
-                                String email = etEmail.getText().toString().trim();
-                                String phone = etPhone.getText().toString().trim();
-                                String nameOnCard = etNameOnCard.getText().toString().trim();
-                                String card = etCardNumber.getText().toString().trim();
-                                String last4 = card.length() >= 4 ? card.substring(card.length() - 4) : card;
-                                dbHelper.savePayment(
-                                        selectedMovie,
-                                        selectedDate,
-                                        selectedTheatre,
-                                        selectedTime,
-                                        selectedSeats,
-                                        seatCount,
-                                        totalAmount,
-                                        email,
-                                        phone,
-                                        nameOnCard,
-                                        last4
-                                );
+                            if (selectedMovie == null || selectedDate == null || selectedTheatre == null || selectedTime == null || selectedSeats == null) {
+                                onPaymentSaved(null);
+                                return;
                             }
-                            Toast.makeText(TicketWalletActivity.this, "Payment saved!", Toast.LENGTH_SHORT).show();
-                            // Navigate to ticket details page
-                            Intent details = new Intent(TicketWalletActivity.this, DetailActivity.class);
-                            details.putExtra("email", etEmail.getText().toString().trim());
-                            startActivity(details);
-                            finish();
+                            String email = etEmail.getText().toString().trim();
+                            String phone = etPhone.getText().toString().trim();
+                            String nameOnCard = etNameOnCard.getText().toString().trim();
+                            String card = etCardNumber.getText().toString().trim();
+                            String last4 = card.length() >= 4 ? card.substring(card.length() - 4) : card;
+                            btnPay.setEnabled(false);
+                            requests.add(repository.checkout(selectedMovie, selectedDate, selectedTheatre, selectedTime,
+                                    selectedSeats, holdToken, seatCount, totalAmount, email, phone, nameOnCard, last4,
+                                    checkoutKey, new MovieRepository.Callback<MovieDbHelper.CheckoutResult>() {
+                                @Override
+                                public void onResult(MovieDbHelper.CheckoutResult result) {
+                                    if (!result.lost.isEmpty()) {
+                                        showSeatsLostDialog(result.lost);
+                                    } else {
+                                        onPaymentSaved(result.orderId);
+                                    }
+                                }
+
+                                // checkoutKey makes a retry return the same order rather than charge twice
+                                @Override
+                                public void onError(Exception e) {
+                                    MovieRepository.Callback.super.onError(e);
+                                    btnPay.setEnabled(true);
+                                    Toast.makeText(TicketWalletActivity.this, "Payment failed, please try again", Toast.LENGTH_LONG).show();
+                                }
+                            }));
                         })
                         .setNegativeButton("No", null)
                         .show();
@@ -108,6 +123,38 @@ public class TicketWalletActivity extends AppCompatActivity {
         });
     }
 
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putString("checkoutKey", checkoutKey);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        requests.cancelAll();
+    }
+
+    private void onPaymentSaved(String orderId) {
+        Toast.makeText(TicketWalletActivity.this, "Payment saved!", Toast.LENGTH_SHORT).show();
+        // Navigate to ticket details page
+        Intent details = new Intent(TicketWalletActivity.this, DetailActivity.class);
+        details.putExtra("email", etEmail.getText().toString().trim());
+        if (orderId != null) details.putExtra("orderId", orderId);
+        startActivity(details);
+        finish();
+    }
+
+    private void showSeatsLostDialog(List<String> lost) {
+        new AlertDialog.Builder(this)
+                .setTitle("Seats no longer available")
+                .setMessage("Your hold on " + TextUtils.join(", ", lost) + " expired or was taken by another booking. " +
+                        "You have not been charged. Please pick your seats again.")
+                .setCancelable(false)
+                .setPositiveButton("Back to seats", (d, w) -> finish())
+                .show();
+    }
+
     private boolean validateInputs() {
         String email = etEmail.getText().toString().trim();
         if (TextUtils.isEmpty(email) || !email.contains("@")) {
@@ -0,0 +1,36 @@
+package com.example.bookmyflick;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class ChangeSetTest {
+
+    @Test
+    public void editsToANewMovieStayAnInsert() {
+        ChangeSet merged = new ChangeSet().movieInserted(7)
+                .add(new ChangeSet().movieUpdated(7))
+                .add(new ChangeSet().moviesUpdated(Arrays.asList(7L, 8L)));
+        assertEquals(Collections.singleton(7L), merged.insertedMovies());
+        assertEquals(Collections.singleton(8L), merged.updatedMovies());
+        assertTrue(merged.deletedMovies().isEmpty());
+    }
+
+    @Test
+    public void movieInsertedAndDeletedInOneFrameVanishes() {
+        ChangeSet merged = new ChangeSet().movieInserted(3).add(new ChangeSet().movieDeleted(3));
+        assertTrue(merged.isEmpty());
+    }
+
+    @Test
+    public void deleteWinsOverEarlierUpdate() {
+        ChangeSet merged = new ChangeSet().movieUpdated(4).movieUpdated(5)
+                .add(new ChangeSet().moviesDeleted(Arrays.asList(4L, 9L)));
+        assertEquals(Collections.singleton(5L), merged.updatedMovies());
+        assertEquals(new HashSet<>(Arrays.asList(4L, 9L)), merged.deletedMovies());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.bookmyflick;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CsvReaderTest {
+
+    private static List<List<String>> readAll(String csv) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            List<String> r;
+            while ((r = reader.next()) != null) records.add(r);
+        }
+        return records;
+    }
+
+    @Test
+    public void readsPlainAndQuotedFields() throws IOException {
+        List<List<String>> records = readAll("title,cast,year\r\nLeo,\"Vijay, Trisha\",2023\nJailer,\"Says \"\"hi\"\"\",\n");
+        assertEquals(3, records.size());
+        assertEquals(Arrays.asList("Leo", "Vijay, Trisha", "2023"), records.get(1));
+        assertEquals(Arrays.asList("Jailer", "Says \"hi\"", ""), records.get(2));
+    }
+
+    @Test
+    public void blankLinesSeparateSectionsAndLineNumbersFollowQuotedBreaks() throws IOException {
+        try (CsvReader reader = new CsvReader(new StringReader("a,b\n\"x\ny\",z\n\nname\nRajah"))) {
+            assertEquals(Arrays.asList("a", "b"), reader.next());
+            assertEquals(Arrays.asList("x\ny", "z"), reader.next());
+            assertEquals(2, reader.recordLine());
+            assertEquals(Collections.emptyList(), reader.next());
+            assertEquals(Arrays.asList("name"), reader.next());
+            assertEquals(Arrays.asList("Rajah"), reader.next());
+            assertEquals(6, reader.recordLine());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void escapedValuesReadBackUnchanged() throws IOException {
+        String[] values = {"plain", "a,b", "say \"hi\"", "two\nlines", ""};
+        StringBuilder line = new StringBuilder();
+        for (String v : values) {
+            if (line.length() > 0) line.append(',');
+            line.append(CsvReader.escape(v));
+        }
+        assertEquals(Arrays.asList(values), readAll(line + "\n").get(0));
+    }
+
+    @Test(expected = IOException.class)
+    public void unterminatedQuoteFails() throws IOException {
+        readAll("a,\"open\n");
+    }
+}
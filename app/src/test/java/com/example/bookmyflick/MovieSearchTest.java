@@ -0,0 +1,70 @@
+package com.example.bookmyflick;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MovieSearchTest {
+
+    private final Movie avengers = movie(3, "Avengers", "Robert Downey, Chris Evans", "Russo", "ENGLISH");
+    private final Movie batman = movie(2, "Batman", "Christian Bale", "Christopher Nolan", "ENGLISH");
+    private final Movie maargan = movie(1, "Maargan", "Vijay Antony", "Leo John Paul", "TAMIL");
+    private final List<Movie> catalog = Arrays.asList(avengers, batman, maargan);
+
+    @Test
+    public void matchQueryRequiresEveryTermAsPrefix() {
+        assertEquals("spider* man*", MovieSearch.toMatchQuery("  Spider-Man "));
+        assertNull(MovieSearch.toMatchQuery(" -- "));
+    }
+
+    @Test
+    public void titleHitsOutrankPeopleHits() {
+        Movie christ = movie(4, "Christy", null, null, "TAMIL");
+        List<Movie> all = Arrays.asList(avengers, batman, maargan, christ);
+        List<Movie> ranked = MovieSearch.rank(all, new HashSet<>(Arrays.asList(3L, 2L, 4L)), "chris");
+        assertEquals(Arrays.asList(christ, avengers, batman), ranked);
+    }
+
+    @Test
+    public void fallsBackToInfixAndTypos() {
+        assertEquals(Collections.singletonList(batman), MovieSearch.rank(catalog, Collections.emptySet(), "man"));
+        assertEquals(Collections.singletonList(avengers), MovieSearch.rank(catalog, Collections.emptySet(), "avnegers"));
+        assertEquals(Collections.singletonList(maargan), MovieSearch.rank(catalog, Collections.emptySet(), "margan"));
+        assertTrue(MovieSearch.rank(catalog, Collections.emptySet(), "xyz").isEmpty());
+    }
+
+    @Test
+    public void prefixDistanceIgnoresUntypedTail() {
+        assertEquals(0, MovieSearch.prefixDistance("aveng", "avengers", 1));
+        assertEquals(1, MovieSearch.prefixDistance("avang", "avengers", 1));
+        assertEquals(2, MovieSearch.prefixDistance("abcdef", "avengers", 1));
+    }
+
+    @Test
+    public void blankQueryKeepsCatalogOrder() {
+        assertSame(catalog, MovieSearch.rank(catalog, Collections.emptySet(), " "));
+    }
+
+    @Test
+    public void longerQueriesNarrowThePreviousResult() {
+        assertTrue(MovieSearch.extendsQuery("chr", "chris"));
+        assertTrue(MovieSearch.extendsQuery("chris", "chris eva"));
+        assertFalse(MovieSearch.extendsQuery("chris", "chri"));
+        assertFalse(MovieSearch.extendsQuery("chris bale", "chris evans"));
+
+        MovieSearch.Result previous = MovieSearch.search(catalog, 1, Arrays.asList(3L, 2L), "chr");
+        assertTrue(previous.prefixMatched);
+        MovieSearch.Result narrowed = MovieSearch.narrow(previous, "chris ev");
+        assertEquals(Collections.singletonList(avengers), narrowed.movies);
+        assertNull(MovieSearch.narrow(previous, "chris xyz"));
+    }
+
+    private static Movie movie(long id, String title, String cast, String director, String language) {
+        return new Movie(id, title, 0, language, null, cast, null, director, null, "now");
+    }
+}
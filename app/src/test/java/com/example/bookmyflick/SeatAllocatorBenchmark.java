@@ -0,0 +1,45 @@
+package com.example.bookmyflick;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times best-seat allocation on a 1000-seat hall at various fill levels. Wall-clock timing
+ * is too noisy for every test run, so it is skipped unless Gradle is given
+ * {@code -Pbenchmarks}; the bound is loose so it only fails on a real regression.
+ */
+public class SeatAllocatorBenchmark {
+
+    private static final int ROWS = 25;
+    private static final int COLS = 40;
+    private static final int WARMUP = 2_000;
+    private static final int RUNS = 10_000;
+
+    @Test
+    public void allocatesWithinAMillisecondOnLargeHall() {
+        Assume.assumeTrue("run with -Pbenchmarks", Boolean.getBoolean("benchmarks"));
+        for (double fill : new double[]{0.0, 0.5, 0.9}) {
+            SeatMap map = hall(fill, 42);
+            for (int i = 0; i < WARMUP; i++) SeatAllocator.allocate(map, 1 + i % 6, 3);
+            long start = System.nanoTime();
+            int found = 0;
+            for (int i = 0; i < RUNS; i++) found += SeatAllocator.allocate(map, 1 + i % 6, 3).size();
+            double micros = (System.nanoTime() - start) / 1_000.0 / RUNS;
+            assertTrue("no blocks found at fill " + fill, fill > 0.5 || found > 0);
+            assertTrue("allocation took " + micros + " us at fill " + fill, micros < 1_000);
+        }
+    }
+
+    private static SeatMap hall(double fill, long seed) {
+        SeatMap map = new SeatMap(ROWS, COLS);
+        Random random = new Random(seed);
+        for (int i = 0; i < map.capacity(); i++) {
+            if (random.nextDouble() < fill) map.markSold(i);
+        }
+        return map;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.bookmyflick;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SeatAllocatorTest {
+
+    @Test
+    public void emptyHallGetsCentredBlockInPreferredRow() {
+        SeatMap map = new SeatMap(10, 11);
+        SeatAllocator.Block best = SeatAllocator.allocate(map, 3, 0).get(0);
+        assertEquals(6, best.row); // 9 * 0.65 rounds to the seventh row
+        assertEquals(4, best.firstCol); // columns 4..6 around centre column 5
+    }
+
+    @Test
+    public void soldAndHeldSeatsAreSkippedButOwnSelectionIsNot() {
+        SeatMap map = new SeatMap(1, 7);
+        map.markSold(map.indexOf("A3"));
+        map.setHeld(map.indexOf("A5"), true);
+        map.select(map.indexOf("A6"));
+        List<SeatAllocator.Block> blocks = SeatAllocator.allocate(map, 2, 5);
+        assertEquals(2, blocks.size());
+        // Equally far from the centre; ties go to the leftmost block
+        assertEquals("A1, A2", labels(map, blocks.get(0)));
+        assertEquals("A6, A7", labels(map, blocks.get(1)));
+    }
+
+    @Test
+    public void avoidsStrandingASingleSeat() {
+        SeatMap map = new SeatMap(1, 9);
+        map.markSold(map.indexOf("A1"));
+        map.markSold(map.indexOf("A8"));
+        map.markSold(map.indexOf("A9"));
+        // Free run A2..A7; a centred pair at A4-A5 would leave two-seat gaps, A3-A4 would strand A2
+        SeatAllocator.Block best = SeatAllocator.allocate(map, 2, 0).get(0);
+        assertEquals("A4, A5", labels(map, best));
+        map.markSold(map.indexOf("A4"));
+        // Free runs A2..A3 and A5..A7: stranding A7 still beats moving well off centre to A2..A3
+        best = SeatAllocator.allocate(map, 2, 0).get(0);
+        assertEquals("A5, A6", labels(map, best));
+    }
+
+    @Test
+    public void alternativesDoNotOverlap() {
+        SeatMap map = new SeatMap(3, 12);
+        List<SeatAllocator.Block> blocks = SeatAllocator.allocate(map, 4, 4);
+        assertEquals(5, blocks.size());
+        for (int i = 0; i < blocks.size(); i++) {
+            for (int j = i + 1; j < blocks.size(); j++) assertFalse(blocks.get(i).overlaps(blocks.get(j)));
+            if (i > 0) assertTrue(blocks.get(i - 1).score >= blocks.get(i).score);
+        }
+    }
+
+    @Test
+    public void noRoomYieldsNothing() {
+        SeatMap map = new SeatMap(2, 4);
+        assertTrue(SeatAllocator.allocate(map, 5, 3).isEmpty());
+        for (int i = 0; i < map.capacity(); i += 2) map.markSold(i);
+        assertTrue(SeatAllocator.allocate(map, 2, 3).isEmpty());
+    }
+
+    @Test
+    public void applyReplacesSelection() {
+        SeatMap map = new SeatMap(2, 5);
+        map.select(0);
+        SeatAllocator.Block best = SeatAllocator.allocate(map, 2, 0).get(0);
+        assertTrue(SeatAllocator.apply(map, best));
+        assertEquals(2, map.selectedCount());
+        assertFalse(map.isSelected(0));
+    }
+
+    private static String labels(SeatMap map, SeatAllocator.Block block) {
+        List<String> labels = new ArrayList<>();
+        for (int seat : block.seats(map)) labels.add(map.labelOf(seat));
+        return String.join(", ", labels);
+    }
+}
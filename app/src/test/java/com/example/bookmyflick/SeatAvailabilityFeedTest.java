@@ -0,0 +1,117 @@
+package com.example.bookmyflick;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SeatAvailabilityFeedTest {
+
+    private final SeatAvailabilityFeed feed = new SeatAvailabilityFeed();
+
+    private static final class Recorder implements SeatAvailabilityFeed.Listener {
+        final List<Long> versions = new ArrayList<>();
+        final List<SeatAvailabilityFeed.SeatChange> changes = new ArrayList<>();
+        int resets;
+
+        @Override
+        public void onSeatChanges(long version, List<SeatAvailabilityFeed.SeatChange> batch) {
+            versions.add(version);
+            changes.addAll(batch);
+        }
+
+        @Override
+        public void onReset() {
+            resets++;
+        }
+    }
+
+    @Test
+    public void subscriberCatchesUpFromItsSnapshotVersion() {
+        feed.publish(1, new int[]{3}, SeatAvailabilityFeed.SOLD, null);
+        long snapshot = feed.version(1);
+        feed.publish(1, new int[]{4, 5}, SeatAvailabilityFeed.HELD, "bob");
+
+        Recorder r = new Recorder();
+        feed.subscribe(1, snapshot, Runnable::run, r);
+        feed.publish(1, new int[]{4}, SeatAvailabilityFeed.RELEASED, null);
+        feed.publish(2, new int[]{9}, SeatAvailabilityFeed.SOLD, null);
+
+        assertEquals(Arrays.asList(2L, 3L), r.versions);
+        assertEquals(3, r.changes.size());
+        assertEquals("bob", r.changes.get(0).holder);
+        assertNull(r.changes.get(2).holder);
+        assertEquals(0, r.resets);
+    }
+
+    @Test
+    public void subscriberBehindTheLogIsReset() {
+        for (int i = 0; i <= SeatAvailabilityFeed.MAX_LOG; i++) {
+            feed.publish(1, new int[]{i % 10}, SeatAvailabilityFeed.SOLD, null);
+        }
+        Recorder r = new Recorder();
+        feed.subscribe(1, 0, Runnable::run, r);
+        assertEquals(1, r.resets);
+        assertTrue(r.versions.isEmpty());
+    }
+
+    @Test
+    public void forgottenShowResetsOldSnapshots() {
+        feed.publish(1, new int[]{1}, SeatAvailabilityFeed.SOLD, null);
+        long snapshot = feed.version(1);
+        for (int show = 2; show <= SeatAvailabilityFeed.MAX_IDLE_SHOWS + 1; show++) {
+            feed.publish(show, new int[]{1}, SeatAvailabilityFeed.SOLD, null);
+        }
+        feed.publish(1, new int[]{2}, SeatAvailabilityFeed.SOLD, null); // show 1 was trimmed, starts over
+
+        Recorder r = new Recorder();
+        feed.subscribe(1, snapshot, Runnable::run, r);
+        assertEquals(1, r.resets);
+        assertTrue(r.versions.isEmpty());
+    }
+
+    @Test
+    public void watchedShowIsNotTrimmed() {
+        Recorder r = new Recorder();
+        feed.subscribe(1, 0, Runnable::run, r);
+        for (int show = 2; show <= SeatAvailabilityFeed.MAX_IDLE_SHOWS * 2; show++) {
+            feed.publish(show, new int[]{1}, SeatAvailabilityFeed.SOLD, null);
+        }
+        feed.publish(1, new int[]{2}, SeatAvailabilityFeed.SOLD, null);
+        assertEquals(Arrays.asList(1L), r.versions);
+    }
+
+    @Test
+    public void closedSubscriptionStopsDelivery() {
+        Recorder r = new Recorder();
+        SeatAvailabilityFeed.Subscription sub = feed.subscribe(1, 0, Runnable::run, r);
+        feed.publish(1, new int[]{1}, SeatAvailabilityFeed.SOLD, null);
+        sub.close();
+        feed.publish(1, new int[]{2}, SeatAvailabilityFeed.SOLD, null);
+        assertEquals(Arrays.asList(1L), r.versions);
+    }
+
+    @Test
+    public void holdChangesArePublished() {
+        long[] now = {1_000L};
+        SeatHoldManager holds = new SeatHoldManager(() -> now[0], 4);
+        holds.setFeed(feed);
+        Recorder r = new Recorder();
+        feed.subscribe(7, 0, Runnable::run, r);
+
+        holds.tryHold(7, new int[]{1, 2}, "alice", 1_000);
+        holds.tryHold(7, new int[]{2, 3}, "alice", 1_000); // releases 1, holds 2 and 3
+        now[0] += 5_000;
+        holds.sweep();
+
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L), r.versions);
+        int released = 0;
+        for (SeatAvailabilityFeed.SeatChange c : r.changes) {
+            if (c.kind == SeatAvailabilityFeed.RELEASED) released++;
+        }
+        assertEquals(3, released); // seat 1 on re-hold, seats 2 and 3 on expiry
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.bookmyflick;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SeatHoldManagerTest {
+
+    private long now = 1_000L;
+    private final SeatHoldManager holds = new SeatHoldManager(() -> now, 8);
+
+    @Test
+    public void holdIsAllOrNothing() {
+        assertEquals(0, holds.tryHold(1, new int[]{3, 4}, "alice", 60_000).length);
+        int[] conflicts = holds.tryHold(1, new int[]{5, 4}, "bob", 60_000);
+        assertArrayEquals(new int[]{4}, conflicts);
+        // bob got nothing, so seat 5 is still free for carol
+        assertEquals(0, holds.tryHold(1, new int[]{5}, "carol", 60_000).length);
+    }
+
+    @Test
+    public void reholdingReplacesPreviousSelection() {
+        holds.tryHold(1, new int[]{1, 2}, "alice", 60_000);
+        holds.tryHold(1, new int[]{2, 3}, "alice", 60_000);
+        assertArrayEquals(new int[]{1}, holds.conflicts(1, new int[]{1, 2, 3}, "alice"));
+        assertEquals(0, holds.tryHold(1, new int[]{1}, "bob", 60_000).length);
+    }
+
+    @Test
+    public void expiredLeasesAreLostAndSwept() {
+        holds.tryHold(7, new int[]{10}, "alice", 1_000);
+        now += 1_000;
+        assertArrayEquals(new int[]{10}, holds.conflicts(7, new int[]{10}, "alice"));
+        assertEquals(0, holds.tryHold(7, new int[]{10}, "bob", 1_000).length);
+        now += 5_000;
+        assertEquals(1, holds.sweep().size());
+        assertEquals(0, holds.heldByOthers(7, null).length);
+    }
+
+    @Test
+    public void showsAreIndependent() {
+        holds.tryHold(1, new int[]{0}, "alice", 60_000);
+        assertEquals(0, holds.tryHold(2, new int[]{0}, "bob", 60_000).length);
+        holds.release(1, "alice");
+        assertEquals(0, holds.heldByOthers(1, null).length);
+        assertArrayEquals(new int[]{0}, holds.heldByOthers(2, "alice"));
+    }
+
+    @Test
+    public void concurrentBuyersNeverShareASeat() throws Exception {
+        int buyers = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger winners = new AtomicInteger();
+        for (int i = 0; i < buyers; i++) {
+            String token = "buyer-" + i;
+            pool.execute(() -> {
+                try { start.await(); } catch (InterruptedException e) { return; }
+                if (holds.tryHold(42, new int[]{20, 21}, token, 60_000).length == 0) winners.incrementAndGet();
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(1, winners.get());
+    }
+}
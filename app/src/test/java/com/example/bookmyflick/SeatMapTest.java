@@ -0,0 +1,92 @@
+package com.example.bookmyflick;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SeatMapTest {
+
+    @Test
+    public void labelsRoundTripForStandardHall() {
+        SeatMap map = SeatMap.standard();
+        assertEquals(56, map.capacity());
+        for (int i = 0; i < map.capacity(); i++) {
+            assertEquals(i, map.indexOf(map.labelOf(i)));
+        }
+        assertEquals("A1", map.labelOf(0));
+        assertEquals("C4", map.labelOf(2 * 7 + 3));
+        assertEquals("H7", map.labelOf(55));
+    }
+
+    @Test
+    public void labelsRoundTripForLargeHall() {
+        SeatMap map = new SeatMap(30, 28);
+        assertEquals(840, map.capacity());
+        assertEquals("Z1", map.labelOf(25 * 28));
+        assertEquals("AA1", map.labelOf(26 * 28));
+        assertEquals("AD28", map.labelOf(map.capacity() - 1));
+        for (int i = 0; i < map.capacity(); i++) {
+            assertEquals(i, map.indexOf(map.labelOf(i)));
+        }
+    }
+
+    @Test
+    public void rejectsMalformedAndOutOfRangeLabels() {
+        SeatMap map = SeatMap.standard();
+        assertEquals(-1, map.indexOf(null));
+        assertEquals(-1, map.indexOf(""));
+        assertEquals(-1, map.indexOf("C"));
+        assertEquals(-1, map.indexOf("4"));
+        assertEquals(-1, map.indexOf("C0"));
+        assertEquals(-1, map.indexOf("C8"));
+        assertEquals(-1, map.indexOf("I1"));
+        assertEquals(-1, map.indexOf("C4x"));
+        assertEquals(map.indexOf("C4"), map.indexOf("c4"));
+    }
+
+    @Test
+    public void soldAndHeldSeatsCannotBeSelected() {
+        SeatMap map = SeatMap.standard();
+        assertEquals(2, map.markSold(Arrays.asList("A1", "B2", "Q9")));
+        map.setHeld(map.indexOf("C3"), true);
+
+        assertFalse(map.select(map.indexOf("A1")));
+        assertFalse(map.select(map.indexOf("C3")));
+        assertTrue(map.select(map.indexOf("D4")));
+
+        assertEquals(SeatMap.STATE_SOLD, map.state(map.indexOf("B2")));
+        assertEquals(SeatMap.STATE_HELD, map.state(map.indexOf("C3")));
+        assertEquals(SeatMap.STATE_SELECTED, map.state(map.indexOf("D4")));
+        assertEquals(SeatMap.STATE_AVAILABLE, map.state(map.indexOf("E5")));
+        assertEquals(2, map.soldCount());
+        assertEquals(1, map.heldCount());
+    }
+
+    @Test
+    public void selectionIsReportedInSeatOrder() {
+        SeatMap map = new SeatMap(20, 40);
+        map.select(map.indexOf("T40"));
+        map.select(map.indexOf("A1"));
+        map.select(map.indexOf("B33"));
+        List<String> labels = map.selectedLabels();
+        assertEquals(Arrays.asList("A1", "B33", "T40"), labels);
+
+        map.deselect(map.indexOf("B33"));
+        assertEquals(2, map.selectedCount());
+        map.clearSelection();
+        assertEquals(0, map.selectedIndexes().length);
+    }
+
+    @Test
+    public void markingSoldDropsOwnSelection() {
+        SeatMap map = SeatMap.standard();
+        int seat = map.indexOf("F6");
+        assertTrue(map.select(seat));
+        map.markSold(seat);
+        assertFalse(map.isSelected(seat));
+        assertTrue(map.isSold(seat));
+    }
+}
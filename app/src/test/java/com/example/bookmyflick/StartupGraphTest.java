@@ -0,0 +1,101 @@
+package com.example.bookmyflick;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StartupGraphTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    @Test
+    public void stepsRunAfterTheirDependencies() {
+        List<String> order = new ArrayList<>();
+        new StartupGraph(null)
+                .add("catalog", DIRECT, () -> order.add("catalog"), "database", "variants")
+                .add("posters", DIRECT, () -> order.add("posters"), "catalog")
+                .add("database", DIRECT, () -> order.add("database"))
+                .add("variants", DIRECT, () -> order.add("variants"))
+                .start();
+        assertEquals(Arrays.asList("database", "variants", "catalog", "posters"), order);
+    }
+
+    @Test
+    public void independentStepsOverlap() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(1);
+        Runnable waitForOther = () -> {
+            bothRunning.countDown();
+            try {
+                assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        };
+        StartupGraph graph = new StartupGraph(null)
+                .add("a", pool, waitForOther)
+                .add("b", pool, waitForOther)
+                .add("home", pool, () -> {}, "a", "b");
+        graph.whenFinished("home", DIRECT, done::countDown);
+        graph.start();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        pool.shutdown();
+    }
+
+    @Test
+    public void failedStepIsReportedAndDependentsStillRun() {
+        List<String> reported = Collections.synchronizedList(new ArrayList<>());
+        List<String> ran = new ArrayList<>();
+        StartupGraph graph = new StartupGraph((name, ms, error) -> reported.add(name + (error != null ? " failed" : "")))
+                .add("database", DIRECT, () -> { throw new IllegalStateException("migration"); })
+                .add("catalog", DIRECT, () -> ran.add("catalog"), "database");
+        graph.start();
+        assertEquals(Arrays.asList("database failed", "catalog"), reported);
+        assertEquals(Collections.singletonList("catalog"), ran);
+        assertTrue(graph.isFinished("database"));
+    }
+
+    @Test
+    public void stepThrowingAnErrorStillFinishes() {
+        List<String> calls = new ArrayList<>();
+        StartupGraph graph = new StartupGraph(null)
+                .add("posters", DIRECT, () -> { throw new OutOfMemoryError("decode"); })
+                .add("home", DIRECT, () -> calls.add("home"), "posters");
+        graph.whenFinished("posters", DIRECT, () -> calls.add("ready"));
+        graph.start();
+        assertEquals(Arrays.asList("ready", "home"), calls);
+    }
+
+    @Test
+    public void callbackForAFinishedStepRunsStraightAway() {
+        StartupGraph graph = new StartupGraph(null).add("database", DIRECT, () -> {});
+        graph.start();
+        List<String> calls = new ArrayList<>();
+        graph.whenFinished("database", DIRECT, () -> calls.add("ready"));
+        assertEquals(Collections.singletonList("ready"), calls);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cycleIsRejected() {
+        new StartupGraph(null)
+                .add("a", DIRECT, () -> {}, "b")
+                .add("b", DIRECT, () -> {}, "a")
+                .start();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unknownDependencyIsRejected() {
+        new StartupGraph(null).add("catalog", DIRECT, () -> {}, "database").start();
+    }
+}